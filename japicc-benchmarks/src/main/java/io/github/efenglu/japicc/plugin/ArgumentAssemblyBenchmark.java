@@ -0,0 +1,76 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembling the japi-compliance-checker command line of a fully configured mojo, including the annotation list
+ * files written for every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ArgumentAssemblyBenchmark {
+    private File target;
+    private JapiccMojo mojo;
+    private ModuleContext module;
+
+    @Setup
+    public void setUp() throws IOException {
+        target = Files.createTempDirectory("japicc-arguments").toFile();
+        File classesList = new File(target, "classes-list");
+        List<String> classes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            classes.add("bench.p" + i / 100 + ".C" + i);
+        }
+        Files.write(classesList.toPath(), classes);
+
+        mojo = new JapiccMojo();
+        BenchmarkSupport.setParameter(mojo, "jdkPath", System.getProperty("java.home"));
+        BenchmarkSupport.setParameter(mojo, "keepInternal", true);
+        BenchmarkSupport.setParameter(mojo, "skipInternalPackages", "impl");
+        BenchmarkSupport.setParameter(mojo, "classesList", classesList);
+        BenchmarkSupport.setParameter(mojo, "annotationsList", Arrays.asList("bench.Public", "bench.Stable"));
+        BenchmarkSupport.setParameter(mojo, "skipAnnotationsList", Arrays.asList("bench.Internal"));
+        BenchmarkSupport.setParameter(mojo, "limitAffected", 10);
+        BenchmarkSupport.setParameter(mojo, "sort", true);
+
+        module = new ModuleContext(new MavenProject(), new QuietLog(), target, new File(target, "new.jar"),
+                new File(target, "compat_report.html"), new File(target, "bin_compat_report.html"),
+                new File(target, "src_compat_report.html"), new File(target, "compat_result.json"), "benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(target);
+    }
+
+    @Benchmark
+    public List<String> assemble() throws MojoExecutionException {
+        List<String> arguments = new ArrayList<>();
+        mojo.insertAdditionalArguments(module, arguments);
+        return arguments;
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transport.file.FileTransporterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding and downloading the previous release from a file based remote repository with a given number of releases.
+ * The remote metadata is read on every lookup, as with an update policy that always checks for updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BaselineResolutionBenchmark {
+    private static final String GROUP_ID = "bench";
+    private static final String ARTIFACT_ID = "lib";
+
+    @Param({"10", "100"})
+    public int releases;
+
+    private File root;
+    private BaselineResolver uncached;
+    private BaselineResolver cached;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("japicc-resolution").toFile();
+        File remote = new File(root, "remote");
+        writeRemoteRepository(remote);
+
+        DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+        locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+        locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+        RepositorySystem system = locator.getService(RepositorySystem.class);
+        DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+        session.setLocalRepositoryManager(system.newLocalRepositoryManager(session,
+                new LocalRepository(new File(root, "local"))));
+        session.setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_ALWAYS);
+        session.setChecksumPolicy(RepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+        RemoteRepository repository = new RemoteRepository.Builder("bench", "default",
+                remote.toURI().toString()).build();
+
+        uncached = new BaselineResolver(system, session, Collections.singletonList(repository), null);
+        VersionCache versionCache = new VersionCache(new File(root, "versions.properties"),
+                TimeUnit.DAYS.toMillis(1), false, false, new QuietLog());
+        cached = new BaselineResolver(system, session, Collections.singletonList(repository), versionCache);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public String latestVersion() throws VersionRangeResolutionException {
+        return uncached.resolveLatestVersion(GROUP_ID, ARTIFACT_ID, 1);
+    }
+
+    @Benchmark
+    public String latestVersionCached() throws VersionRangeResolutionException {
+        return cached.resolveLatestVersion(GROUP_ID, ARTIFACT_ID, 1);
+    }
+
+    @Benchmark
+    public ArtifactResult resolveArtifact() throws ArtifactResolutionException {
+        return uncached.resolve(new DefaultArtifact(GROUP_ID, ARTIFACT_ID, "jar", "1." + (releases - 1) + ".0"));
+    }
+
+    private void writeRemoteRepository(File remote) throws IOException {
+        File jars = new File(root, "jars");
+        SyntheticJars.writePair(jars, 100, 0);
+        File artifactDirectory = new File(remote, GROUP_ID + "/" + ARTIFACT_ID);
+        StringBuilder versions = new StringBuilder();
+        for (int i = 0; i < releases; i++) {
+            String version = "1." + i + ".0";
+            File versionDirectory = new File(artifactDirectory, version);
+            Files.createDirectories(versionDirectory.toPath());
+            Files.copy(new File(jars, "old.jar").toPath(),
+                    new File(versionDirectory, ARTIFACT_ID + "-" + version + ".jar").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            write(new File(versionDirectory, ARTIFACT_ID + "-" + version + ".pom"),
+                    "<project><modelVersion>4.0.0</modelVersion><groupId>" + GROUP_ID + "</groupId><artifactId>"
+                            + ARTIFACT_ID + "</artifactId><version>" + version + "</version></project>\n");
+            versions.append("      <version>").append(version).append("</version>\n");
+        }
+        write(new File(artifactDirectory, "maven-metadata.xml"),
+                "<metadata>\n"
+                        + "  <groupId>" + GROUP_ID + "</groupId>\n"
+                        + "  <artifactId>" + ARTIFACT_ID + "</artifactId>\n"
+                        + "  <versioning>\n"
+                        + "    <release>1." + (releases - 1) + ".0</release>\n"
+                        + "    <versions>\n" + versions
+                        + "    </versions>\n"
+                        + "  </versioning>\n"
+                        + "</metadata>\n");
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
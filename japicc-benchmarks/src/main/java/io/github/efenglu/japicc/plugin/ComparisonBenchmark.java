@@ -0,0 +1,111 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.api.ApiDiff;
+import io.github.efenglu.japicc.plugin.api.ApiFilter;
+import io.github.efenglu.japicc.plugin.api.ApiFingerprint;
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import io.github.efenglu.japicc.plugin.api.Severity;
+import io.github.efenglu.japicc.plugin.report.HtmlReport;
+import io.github.efenglu.japicc.plugin.report.JsonResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages of a comparison with the java engine on synthetic jars of a given size with a given number of
+ * breaking changes, and the full comparison including the reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ComparisonBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int classes;
+
+    @Param({"0", "10"})
+    public int breaks;
+
+    private File directory;
+    private File oldJar;
+    private File newJar;
+    private ApiModel oldModel;
+    private ApiModel newModel;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("japicc-comparison").toFile();
+        SyntheticJars.writePair(directory, classes, breaks);
+        oldJar = new File(directory, "old.jar");
+        newJar = new File(directory, "new.jar");
+        oldModel = ApiModel.load(oldJar);
+        newModel = ApiModel.load(newJar);
+        int problems = new ApiDiff(new ApiFilter()).compare(oldModel, newModel).size();
+        if (problems != breaks) {
+            throw new IllegalStateException("Expected " + breaks + " problems, found " + problems);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public ApiModel load() throws IOException {
+        return ApiModel.load(newJar);
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return ApiFingerprint.of(newModel);
+    }
+
+    @Benchmark
+    public List<ApiProblem> diff() {
+        return new ApiDiff(new ApiFilter()).compare(oldModel, newModel);
+    }
+
+    @Benchmark
+    public boolean fullComparison() throws IOException {
+        ApiModel oldApi = ApiModel.load(oldJar);
+        ApiModel newApi = ApiModel.load(newJar);
+        List<ApiProblem> problems = new ArrayList<>();
+        boolean compatible;
+        try (JsonResult result = new JsonResult(new File(directory, "compat_result.json"), "benchmark", "1.0.0",
+                "1.1.0", AbstractJapiccMojo.JAVA_ENGINE,
+                new ProblemThreshold(Severity.LOW, ProblemThreshold.Compatibility.ANY))) {
+            new ApiDiff(new ApiFilter()).compare(oldApi, newApi, problem -> {
+                problems.add(problem);
+                result.problem(problem);
+            });
+            compatible = result.finish();
+        }
+        HtmlReport report = new HtmlReport("benchmark", "1.0.0", "1.1.0");
+        report.writeCombined(new File(directory, "compat_report.html"), problems);
+        report.writeBinary(new File(directory, "bin_compat_report.html"), problems);
+        report.writeSource(new File(directory, "src_compat_report.html"), problems);
+        return compatible;
+    }
+}
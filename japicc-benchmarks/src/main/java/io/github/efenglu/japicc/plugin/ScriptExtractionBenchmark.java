@@ -0,0 +1,55 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Installing the japi-compliance-checker script, as done by {@code getScriptFromJar}: into an empty cache
+ * directory and again into a directory the script is already installed in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ScriptExtractionBenchmark {
+    private final QuietLog log = new QuietLog();
+    private File root;
+    private int installations;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("japicc-scripts").toFile();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public File emptyCache() throws IOException {
+        return new ScriptInstaller(new File(root, "cache-" + installations++), "benchmark", log).install();
+    }
+
+    @Benchmark
+    public File installed() throws IOException {
+        return new ScriptInstaller(new File(root, "shared"), "benchmark", log).install();
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Generates pairs of jars with a given number of public classes, where the new jar contains a given number of
+ * breaking changes.  Methods are declared native, so the class files need no code.
+ */
+final class SyntheticJars {
+    static final int FIELDS = 5;
+    static final int METHODS = 10;
+    private static final int CLASSES_PER_PACKAGE = 100;
+    private static final int ACC_SUPER = 0x0020;
+
+    private SyntheticJars() {
+    }
+
+    /**
+     * Write {@code old.jar} and {@code new.jar} into the directory.  Each break changes one class, rotating through
+     * a removed method, a changed field type, a class that became final and a removed class.
+     */
+    static void writePair(File directory, int classes, int breaks) throws IOException {
+        if (breaks > classes) {
+            throw new IllegalArgumentException(breaks + " breaks in " + classes + " classes");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        writeJar(new File(directory, "old.jar"), classes, 0);
+        writeJar(new File(directory, "new.jar"), classes, breaks);
+    }
+
+    private static void writeJar(File file, int classes, int breaks) throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < classes; i++) {
+                // spread the breaks evenly over the classes
+                int breakKind = breaks > 0 && i % (classes / breaks) == 0 && i / (classes / breaks) < breaks
+                        ? i / (classes / breaks) % 4
+                        : -1;
+                if (breakKind == 3) {
+                    continue;
+                }
+                String name = "bench/p" + i / CLASSES_PER_PACKAGE + "/C" + i;
+                jar.putNextEntry(new ZipEntry(name + ".class"));
+                jar.write(classFile(name, breakKind));
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] classFile(String name, int breakKind) throws IOException {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(name);
+        int superClass = pool.classRef("java/lang/Object");
+        List<int[]> fields = new ArrayList<>();
+        for (int f = 0; f < FIELDS; f++) {
+            String descriptor = breakKind == 1 && f == 0 ? "J" : "I";
+            fields.add(new int[]{ClassFile.ACC_PUBLIC, pool.utf8("field" + f), pool.utf8(descriptor)});
+        }
+        List<int[]> methods = new ArrayList<>();
+        for (int m = 0; m < METHODS; m++) {
+            if (breakKind == 0 && m == 0) {
+                continue;
+            }
+            methods.add(new int[]{ClassFile.ACC_PUBLIC | ClassFile.ACC_NATIVE, pool.utf8("method" + m),
+                    pool.utf8("(ILjava/lang/String;)Ljava/lang/String;")});
+        }
+        int access = ClassFile.ACC_PUBLIC | ACC_SUPER | (breakKind == 2 ? ClassFile.ACC_FINAL : 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(52);
+        pool.write(out);
+        out.writeShort(access);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(0);
+        writeMembers(out, fields);
+        writeMembers(out, methods);
+        out.writeShort(0);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeMembers(DataOutputStream out, List<int[]> members) throws IOException {
+        out.writeShort(members.size());
+        for (int[] member : members) {
+            out.writeShort(member[0]);
+            out.writeShort(member[1]);
+            out.writeShort(member[2]);
+            out.writeShort(0);
+        }
+    }
+
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) throws IOException {
+            Integer index = indexes.get("U" + value);
+            if (index == null) {
+                out.writeByte(1);
+                out.writeUTF(value);
+                index = count++;
+                indexes.put("U" + value, index);
+            }
+            return index;
+        }
+
+        int classRef(String name) throws IOException {
+            Integer index = indexes.get("C" + name);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                out.writeByte(7);
+                out.writeShort(nameIndex);
+                index = count++;
+                indexes.put("C" + name, index);
+            }
+            return index;
+        }
+
+        void write(DataOutputStream target) throws IOException {
+            out.flush();
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,1834 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.annotations.SkipComplianceCheck;
+import io.github.efenglu.japicc.plugin.api.ApiDump;
+import io.github.efenglu.japicc.plugin.api.ApiExports;
+import io.github.efenglu.japicc.plugin.api.ApiFilter;
+import io.github.efenglu.japicc.plugin.api.ApiFingerprint;
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiSnapshot;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import io.github.efenglu.japicc.plugin.classfile.ClassFormatException;
+import io.github.efenglu.japicc.plugin.classfile.ClassStubs;
+import io.github.efenglu.japicc.plugin.report.JsonResult;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Configuration and comparison logic shared by the goals of the plugin.
+ */
+public abstract class AbstractJapiccMojo extends AbstractMojo {
+    protected static final String PERL_ENGINE = PerlEngine.NAME;
+    protected static final String JAVA_ENGINE = JavaEngine.NAME;
+    /**
+     * Affected methods listed per changed type by the quick analysis of modules exceeding the time budget.
+     */
+    private static final int REDUCED_LIMIT_AFFECTED = 10;
+    protected static final String SNAPSHOT_CLASSIFIER = "api-snapshot";
+    protected static final String SNAPSHOT_EXTENSION = "japi";
+    protected static final String MAIN_JAR = "main jar";
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    protected MavenProject project;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private MojoExecution mojo;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true) // Maven 3 only
+    protected PluginDescriptor plugin;
+
+    @Parameter(defaultValue = "${settings}", readonly = true)
+    protected Settings settings;
+
+    @Parameter(defaultValue = "${project.basedir}", readonly = true)
+    private File basedir;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    protected File target;
+
+    /**
+     * Skip execution
+     */
+    @Parameter(defaultValue = "false", property = "japicc.skip")
+    protected boolean skip;
+
+    /**
+     * The entry point to Aether, i.e. the component doing all the work.
+     */
+    @Component
+    private RepositorySystem repoSystem;
+
+    /**
+     * The current repository/network configuration of Maven.
+     */
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private RepositorySystemSession repoSession;
+
+    /**
+     * The project's remote repositories to use for the resolution of plugins and their dependencies.
+     */
+    @Parameter(defaultValue = "${project.remotePluginRepositories}", readonly = true)
+    private List<RemoteRepository> remoteRepos;
+
+    /**
+     * Fail the build on error
+     */
+    @Parameter(defaultValue = "true", property = "japicc.failOnError")
+    protected boolean failOnError = true;
+
+    /**
+     * -keep-internal
+     * Do NOT skip checking of these packages:
+     * impl*
+     * internal*
+     * examples*
+     */
+    @Parameter(defaultValue = "false", property = "japicc.keepInternal")
+    private boolean keepInternal = false;
+
+    /**
+     * -skip-internal-packages PATTERN
+     * Do not check packages matched by the pattern.
+     */
+    @Parameter(property = "japicc.skipInternalPackages")
+    private String skipInternalPackages = null;
+
+    /**
+     * -skip-internal-types PATTERN
+     * Do not check types (classes and interfaces) matched by the pattern.
+     */
+    @Parameter(property = "japicc.skipInternalTypes")
+    private String skipInternalTypes = null;
+
+    /**
+     * -classes-list PATH
+     * This option allows to specify a file with a list
+     * of classes that should be checked, other classes will not be checked.
+     */
+    @Parameter(property = "japicc.classesList")
+    private File classesList;
+
+    /**
+     * -annotations-list
+     * List of annotations to be included
+     * Other classes will not be checked.
+     */
+    @Parameter
+    private List<String> annotationsList;
+
+    /**
+     * -skip-annotations-list
+     * List of annotations to be skipped
+     * Skip checking of classes annotated by the annotations in the list.
+     */
+    @Parameter
+    private List<String> skipAnnotationsList;
+
+    /**
+     * -skip-deprecated
+     * Skip analysis of deprecated methods and classes.
+     */
+    @Parameter(defaultValue = "true", property = "japicc.skipDeprecated")
+    private boolean skipDeprecated = true;
+
+    /**
+     * -skip-classes PATH
+     * This option allows to specify a file with a list
+     * of classes that should not be checked.
+     */
+    @Parameter(property = "japicc.skipClasses")
+    private File skipClasses = null;
+
+    /**
+     * -skip-packages PATH
+     * This option allows to specify a file with a list
+     * of packages that should not be checked.
+     */
+    @Parameter(property = "japicc.skipPackages")
+    private File skipPackages = null;
+
+    /**
+     * Only check the packages exported by the module descriptors (module-info) of the versions that have one.
+     * Packages exported by the previous version stay checked when the new version no longer exports them
+     */
+    @Parameter(defaultValue = "true", property = "japicc.moduleExports")
+    private boolean moduleExports = true;
+
+    /**
+     * Modules whose qualified exports (exports ... to) are checked as API, * for every module.
+     * By default only unqualified exports are checked
+     */
+    @Parameter
+    private List<String> qualifiedExports;
+
+    /**
+     * -quick
+     * Quick analysis.
+     * Disabled:
+     * - analysis of method parameter names
+     * - analysis of class field values
+     * - analysis of usage of added abstract methods
+     * - distinction of deprecated methods and classes
+     */
+    @Parameter(defaultValue = "false", property = "japicc.quick")
+    private boolean quick = false;
+
+    /**
+     * -sort
+     * Enable sorting of data in API dumps.
+     */
+    @Parameter(defaultValue = "false", property = "japicc.sort")
+    private boolean sort = false;
+
+    /**
+     * -show-access
+     * Show access level of non-public methods listed in the report.
+     */
+    @Parameter(defaultValue = "false", property = "japicc.showAccess")
+    private boolean showAccess = false;
+
+    /**
+     * -hide-templates
+     * Hide template parameters in the report.
+     */
+    @Parameter(defaultValue = "false", property = "japicc.hideTemplates")
+    private boolean hideTemplates = false;
+
+    /**
+     * -show-packages
+     * Show package names in the report.
+     */
+    @Parameter(defaultValue = "false", property = "japicc.showPackages")
+    private boolean showPackages = false;
+
+    /**
+     * -limit-affected LIMIT
+     * The maximum number of affected methods listed under the description
+     * of the changed type in the report.
+     */
+    @Parameter(defaultValue = "-1", property = "japicc.limitAffected")
+    private Integer limitAffected;
+
+    /**
+     * -compact
+     * Try to simplify formatting and reduce size of the report (for a big set of changes).
+     */
+    @Parameter(defaultValue = "false", property = "japicc.compact")
+    private boolean compact = false;
+
+    /**
+     * Write the report of the java engine as an index of packages linking one page per package, streamed while
+     * comparing so memory does not grow with the number of problems.  The binary and source reports show the index
+     */
+    @Parameter(defaultValue = "false", property = "japicc.pagedReport")
+    private boolean pagedReport = false;
+
+    /**
+     * Compress the package pages of the paged report, for web servers serving precompressed files
+     */
+    @Parameter(defaultValue = "false", property = "japicc.pagedReportGzip")
+    private boolean pagedReportGzip = false;
+
+    /**
+     * Gating mode of the java engine: stop at the first type with a problem failing the check, see failOnSeverity
+     * and failOnCompatibility.  No report is written when the check passes, otherwise the reports only list the
+     * problems of that type
+     */
+    @Parameter(defaultValue = "false", property = "japicc.gate")
+    private boolean gate = false;
+
+    /**
+     * Run the complete analysis and write every report even in gating mode
+     */
+    @Parameter(defaultValue = "false", property = "japicc.fullReport")
+    private boolean fullReport = false;
+
+    /**
+     * -added-annotations
+     * Apply filters by annotations only to new version of the library.
+     */
+    @Parameter(defaultValue = "false", property = "japicc.addedAnnotations")
+    private boolean addedAnnotations = false;
+
+    /**
+     * -removed-annotations
+     * Apply filters by annotations only to previous version of the library.
+     */
+    @Parameter(defaultValue = "false", property = "japicc.removedAnnotations")
+    private boolean removedAnnotations = false;
+
+    /**
+     * -jdk-path PATH
+     * Path to the JDK install tree (e.g. /usr/lib/jvm/java-7-openjdk-amd64).
+     */
+    @Parameter(defaultValue = "${env.JAVA_HOME}", property = "japicc.jdkPath")
+    private String jdkPath;
+
+    /**
+     * Skip compliance check if it is the first version in a series
+     */
+    @Parameter(defaultValue = "true", property = "japicc.skipFirstInSeries")
+    protected boolean skipFirstInSeries;
+
+    /**
+     * Full path to perl executable
+     */
+    @Parameter(defaultValue = "/usr/bin/perl", property = "japicc.perlExec", required = true)
+    private String perlExec;
+
+    /**
+     * Comparison engine
+     * perl: fork the japi-compliance-checker script (reference implementation)
+     * java: read the class files and apply the compatibility rules inside the Maven JVM
+     */
+    @Parameter(defaultValue = PERL_ENGINE, property = "japicc.engine", required = true)
+    protected String engine;
+
+    /**
+     * Cache the API dump of the previous artifact so it is only analyzed once
+     */
+    @Parameter(defaultValue = "true", property = "japicc.dumpCache")
+    private boolean dumpCache = true;
+
+    /**
+     * Directory shared by all builds for cached data
+     */
+    @Parameter(defaultValue = "${settings.localRepository}/.cache/japicc", property = "japicc.cacheDirectory")
+    private File cacheDirectory;
+
+    /**
+     * Maximum size of the API dump cache in megabytes, least recently used dumps are evicted first
+     */
+    @Parameter(defaultValue = "512", property = "japicc.dumpCacheMaxSize")
+    private long dumpCacheMaxSize = 512;
+
+    /**
+     * Dump store shared by several machines, e.g. a directory on NFS or a file: URI.  Cached dumps missing locally are
+     * read from the store and new dumps are published to it, so the first build populates it for all others
+     */
+    @Parameter(property = "japicc.dumpStore")
+    private String dumpStore;
+
+    /**
+     * Skip the comparison when the public API of the new jar, the previous artifact and the configuration are
+     * unchanged since the last successful check, or when the API equals the previous artifact's API
+     */
+    @Parameter(defaultValue = "true", property = "japicc.upToDateCheck")
+    private boolean upToDateCheck = true;
+
+    /**
+     * With the java engine, compare against the API snapshots attached to the previous versions by the snapshot goal
+     * instead of their jars.  Versions without snapshot are compared against their jars
+     */
+    @Parameter(defaultValue = "true", property = "japicc.useApiSnapshots")
+    private boolean useApiSnapshots = true;
+
+    /**
+     * Record the duration, class counts and configuration of every check in a history per module below
+     * cacheDirectory, and warn when a check is slower than usual
+     */
+    @Parameter(defaultValue = "true", property = "japicc.history")
+    private boolean history = true;
+
+    /**
+     * Percentage by which a check may exceed the median duration of the recent checks with the same configuration
+     * before a warning is logged
+     */
+    @Parameter(defaultValue = "50", property = "japicc.durationRegression")
+    private int durationRegression = 50;
+
+    /**
+     * Seconds a check of a snapshot may usually take with the perl engine.  Modules whose recent checks took longer
+     * run the quick analysis with a limited number of affected methods, 0 to always run the full analysis.  Every
+     * tenth check of a reduced module runs the full analysis again, so the decision follows the module's current
+     * duration.  Release versions always run the full analysis
+     */
+    @Parameter(defaultValue = "0", property = "japicc.timeBudget")
+    private long timeBudget;
+
+    /**
+     * Minutes a resolved previous version is reused before the version range is resolved again, 0 disables the
+     * version cache
+     */
+    @Parameter(defaultValue = "60", property = "japicc.versionCacheTtl")
+    private long versionCacheTtl = 60;
+
+    /**
+     * Resolve the previous version range again even if a cached version has not expired, also done with -U
+     */
+    @Parameter(defaultValue = "false", property = "japicc.refreshVersions")
+    private boolean refreshVersions;
+
+    /**
+     * Minimum severity of a problem that fails the check: low, medium or high.  Only applies to the java engine, the
+     * perl engine fails on any problem
+     */
+    @Parameter(defaultValue = "low", property = "japicc.failOnSeverity")
+    private String failOnSeverity;
+
+    /**
+     * Kind of compatibility whose problems fail the check: binary, source or any.  Only applies to the java engine
+     */
+    @Parameter(defaultValue = "any", property = "japicc.failOnCompatibility")
+    private String failOnCompatibility;
+
+    /**
+     * Scan the class files of both jars for the skip and include annotations before running
+     * japi-compliance-checker and pass it the exact list of classes to check, so excluded classes are not analyzed
+     */
+    @Parameter(defaultValue = "true", property = "japicc.annotationPrescan")
+    private boolean annotationPrescan = true;
+
+    /**
+     * Compare the compiled classes instead of the packaged jar, so the check can run before the package phase,
+     * e.g. bound to process-classes.  The classes are also compared when the jar has not been built
+     */
+    @Parameter(defaultValue = "false", property = "japicc.compareClasses")
+    private boolean compareClasses;
+
+    /**
+     * Split the perl comparison into this many shards checked in parallel, each with its own classes list; 1 runs
+     * a single comparison
+     */
+    @Parameter(defaultValue = "1", property = "japicc.shards")
+    private int shards = 1;
+
+    /**
+     * How classes are assigned to shards:
+     * package: whole packages, balanced by class count
+     * classes: buckets of equal class count
+     */
+    @Parameter(defaultValue = "package", property = "japicc.shardBy")
+    private String shardBy;
+
+    /**
+     * Rewrite both jars into API stubs before handing them to japi-compliance-checker: only the signatures,
+     * constants and annotations of the non-private members are kept, method bodies and resources are dropped
+     */
+    @Parameter(defaultValue = "true", property = "japicc.apiStubs")
+    private boolean apiStubs = true;
+
+    /**
+     * Run japi-compliance-checker in a daemon shared by the modules of the build instead of starting Perl for every
+     * check, the daemon loads the Perl modules once and forks a worker per check
+     */
+    @Parameter(defaultValue = "false", property = "japicc.daemon")
+    private boolean daemon;
+
+    /**
+     * Number of checks the daemon runs at the same time, 0 for the number of processors
+     */
+    @Parameter(defaultValue = "0", property = "japicc.daemonWorkers")
+    private int daemonWorkers;
+
+    /**
+     * Number of checks running or waiting in the daemon, further modules wait for a free slot
+     */
+    @Parameter(defaultValue = "16", property = "japicc.daemonQueueSize")
+    private int daemonQueueSize = 16;
+
+    /**
+     * Seconds without checks after which the daemon exits, it is started again on demand
+     */
+    @Parameter(defaultValue = "60", property = "japicc.daemonIdleTimeout")
+    private long daemonIdleTimeout = 60;
+
+    /**
+     * Seconds after which a japi-compliance-checker run is killed, 0 for no limit
+     */
+    @Parameter(defaultValue = "0", property = "japicc.timeout")
+    private long timeout;
+
+    /**
+     * Virtual memory limit of the japi-compliance-checker process in megabytes, 0 for no limit
+     */
+    @Parameter(defaultValue = "0", property = "japicc.maxMemory")
+    private long maxMemory;
+
+    /**
+     * List files written by this execution, by path.
+     */
+    private final ConcurrentMap<String, File> listFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Exported packages of the jars read by this execution, by path.
+     */
+    private final ConcurrentMap<String, Optional<Set<String>>> exports = new ConcurrentHashMap<>();
+
+    /**
+     * Compare the module's new jar against the resolved previous artifact with the configured engine.
+     *
+     * @return whether the new jar is compatible
+     */
+    protected boolean compare(ModuleContext module, Artifact previousArtifact) throws MojoExecutionException {
+        return withHistory(module, previousArtifact.getVersion(), 1,
+                () -> compare(module, previousArtifact, new NewJarAnalysis(false)));
+    }
+
+    /**
+     * Compare the module's new jar against several previous artifacts concurrently.  The new jar is analyzed once
+     * and shared by all comparisons, the reports of each comparison are written to a subdirectory named after the
+     * previous version.
+     *
+     * @return whether the new jar is compatible with every previous artifact
+     */
+    protected boolean compareAll(ModuleContext module, List<Artifact> previousArtifacts) throws MojoExecutionException {
+        if (previousArtifacts.size() == 1) {
+            return compare(module, previousArtifacts.get(0));
+        }
+        String versions = previousArtifacts.stream().map(Artifact::getVersion).collect(Collectors.joining(","));
+        return withHistory(module, versions, previousArtifacts.size(), () -> compareConcurrently(module, previousArtifacts));
+    }
+
+    private boolean compareConcurrently(ModuleContext module, List<Artifact> previousArtifacts)
+            throws MojoExecutionException {
+        NewJarAnalysis analysis = new NewJarAnalysis(true);
+        int poolSize = Math.min(previousArtifacts.size(), Runtime.getRuntime().availableProcessors());
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "japicc-baseline-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<ModuleContext, Future<Boolean>> comparisons = new LinkedHashMap<>();
+            for (Artifact previousArtifact : previousArtifacts) {
+                ModuleContext baseline = module.forBaseline(previousArtifact.getVersion());
+                comparisons.put(baseline, executor.submit(() -> compare(baseline, previousArtifact, analysis)));
+            }
+            boolean compatible = true;
+            for (Map.Entry<ModuleContext, Future<Boolean>> comparison : comparisons.entrySet()) {
+                ModuleContext baseline = comparison.getKey();
+                try {
+                    if (!comparison.getValue().get()) {
+                        baseline.getLog().error("Incompatible, report available at: file://" + baseline.getReportPath());
+                        compatible = false;
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof MojoExecutionException) {
+                        throw (MojoExecutionException) e.getCause();
+                    }
+                    throw new MojoExecutionException("Error while validating: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return compatible;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a module's check with the analysis chosen from its history, then record it and warn if it was slower than
+     * usual.
+     */
+    private boolean withHistory(ModuleContext module, String baseline, int comparisons, HistoryRecorder.Check check)
+            throws MojoExecutionException {
+        if (!history) {
+            return check.run();
+        }
+        HistoryRecorder recorder = new HistoryRecorder(new File(cacheDirectory, "history"), engine,
+                this::configurationKey);
+        recorder.setTimeBudget(PERL_ENGINE.equals(engine) && !quick ? timeBudget : 0);
+        recorder.setDurationRegression(durationRegression);
+        return recorder.run(module, baseline, comparisons, check);
+    }
+
+    private boolean compare(ModuleContext module, Artifact previousArtifact, NewJarAnalysis analysis) throws MojoExecutionException {
+        File previousJarFile = previousArtifact.getFile();
+        try {
+            FileUtils.forceMkdir(module.getTarget());
+            FileUtils.forceMkdir(module.getReportPath().getParentFile());
+            FileUtils.forceMkdir(module.getBinReportPath().getParentFile());
+            FileUtils.forceMkdir(module.getSrcReportPath().getParentFile());
+        } catch (IOException e) {
+            throw new MojoExecutionException("IO Error while creating target directory", e);
+        }
+
+        CheckMetrics metrics = module.getMetrics();
+        if (module.getNewJar().isFile()) {
+            metrics.count("newJar.bytes", module.getNewJar().length());
+        }
+        metrics.count("baselineJar.bytes", previousJarFile.length());
+        File stateFile = new File(module.getResultPath().getParentFile(), "state.properties");
+        CheckState state = null;
+        if (upToDateCheck) {
+            CheckMetrics.Phase upToDateCheckPhase = metrics.phase("upToDateCheck");
+            try {
+                state = new CheckState(analysis.fingerprint(module), previousArtifact.toString(), configurationKey(module));
+                if (state.equals(CheckState.read(stateFile))) {
+                    metrics.increment("upToDate.skipped");
+                    module.getLog().info("API unchanged since the last successful check, skipping");
+                    return true;
+                }
+                if (state.getFingerprint().equals(baselineFingerprint(module, previousJarFile))) {
+                    metrics.increment("upToDate.identical");
+                    module.getLog().info("API identical to " + previousArtifact + ", skipping");
+                    try (JsonResult result = createResult(module, previousArtifact.getVersion())) {
+                        result.finish();
+                    }
+                    state.write(stateFile);
+                    return true;
+                }
+            } catch (IOException | ClassFormatException e) {
+                module.getLog().warn("Up-to-date check failed: " + e.getMessage());
+                state = null;
+            } finally {
+                upToDateCheckPhase.end();
+            }
+        }
+
+        boolean compatible;
+        if (JAVA_ENGINE.equals(engine)) {
+            compatible = runJavaEngine(module, previousJarFile, previousArtifact.getVersion(), analysis);
+        } else {
+            compatible = runPerlEngine(module, previousJarFile, previousArtifact.getVersion(), analysis);
+        }
+        try {
+            if (compatible && state != null) {
+                state.write(stateFile);
+            } else {
+                Files.deleteIfExists(stateFile.toPath());
+            }
+        } catch (IOException e) {
+            module.getLog().warn("Failed to record check state: " + e.getMessage());
+        }
+        return compatible;
+    }
+
+    /**
+     * The new API of a module: its packaged jar, or its classes directory if configured or if the jar has not been
+     * built.
+     *
+     * @return the jar or classes directory, {@code null} if neither exists
+     */
+    protected File getNewApi(MavenProject module) {
+        File jar = new File(module.getBuild().getDirectory(), module.getBuild().getFinalName() + ".jar");
+        if (jar.isFile() && !compareClasses) {
+            return jar;
+        }
+        File classes = new File(module.getBuild().getOutputDirectory());
+        String[] content = classes.list();
+        if (content != null && content.length > 0) {
+            return classes;
+        }
+        return jar.isFile() ? jar : null;
+    }
+
+    /**
+     * Validate the engine configuration and its environment.
+     *
+     * @return whether a comparison can be run
+     */
+    protected boolean checkEnvironment() throws MojoExecutionException {
+        if (!PERL_ENGINE.equals(engine) && !JAVA_ENGINE.equals(engine)) {
+            throw new MojoExecutionException("Unknown engine " + engine + ", expected " + PERL_ENGINE + " or " + JAVA_ENGINE);
+        }
+        getThreshold();
+        if (!"package".equals(shardBy) && !"classes".equals(shardBy)) {
+            throw new MojoExecutionException("Unknown shardBy " + shardBy + ", expected package or classes");
+        }
+        if (gate && PERL_ENGINE.equals(engine)) {
+            getLog().warn("gate only applies to the " + JAVA_ENGINE + " engine, running the complete analysis");
+        }
+        if (pagedReport && PERL_ENGINE.equals(engine)) {
+            getLog().warn("pagedReport only applies to the " + JAVA_ENGINE + " engine, use compact or limitAffected");
+        }
+        if (PERL_ENGINE.equals(engine) && (!"low".equalsIgnoreCase(failOnSeverity.trim())
+                || !"any".equalsIgnoreCase(failOnCompatibility.trim()))) {
+            getLog().warn("failOnSeverity and failOnCompatibility only apply to the " + JAVA_ENGINE
+                    + " engine, the check fails on any problem");
+        }
+        if (dumpStore != null && !dumpStore.isEmpty()) {
+            try {
+                DumpStore.open(dumpStore);
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+        }
+
+        if (PERL_ENGINE.equals(engine) && !canRun()) {
+            if (failOnError) {
+                throw new MojoExecutionException("Invalid execution environment, see log for details");
+            } else {
+                getLog().warn("Invalid execution environment, skipping execution");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    protected BaselineResolver getBaselineResolver() {
+        VersionCache versionCache = null;
+        if (versionCacheTtl > 0) {
+            boolean refresh = refreshVersions || session.getRequest().isUpdateSnapshots();
+            versionCache = new VersionCache(new File(cacheDirectory, "versions.properties"),
+                    versionCacheTtl * 60 * 1000, refresh, session.isOffline(), getLog());
+        }
+        return new BaselineResolver(repoSystem, repoSession, remoteRepos, versionCache, SessionResolver.of(session));
+    }
+
+    /**
+     * Major version of a project version, e.g. 2 for 2.1.0-SNAPSHOT.
+     */
+    protected static int majorVersion(String projectVersion) throws MojoExecutionException {
+        String[] versionSplit = projectVersion.split("\\.");
+        try {
+            return Integer.parseInt(versionSplit[0]);
+        } catch (NumberFormatException e) {
+            throw new MojoExecutionException("Unsupported version " + projectVersion, e);
+        }
+    }
+
+    /**
+     * The modules of the build checked by this plugin.
+     */
+    protected List<MavenProject> checkedModules() {
+        List<MavenProject> modules = new ArrayList<>();
+        for (MavenProject module : session.getProjects()) {
+            if ("jar".equals(module.getPackaging()) && module.getPlugin(plugin.getPluginLookupKey()) != null) {
+                modules.add(module);
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Resolve the previous artifacts a module is compared against: the configured versions or the latest releases
+     * of its major version line.
+     *
+     * @return the resolved artifacts, {@code null} if the check is skipped
+     */
+    protected List<Artifact> resolveBaselines(MavenProject module, BaselineConfiguration configuration,
+                                              CheckMetrics metrics, Log log) throws MojoExecutionException {
+        int majorVersion = majorVersion(module.getVersion());
+
+        if (majorVersion == 0) {
+            log.info("Skipping: Pre-release previousArtifact");
+            return null;
+        }
+
+        BaselineResolver resolver = getBaselineResolver();
+        List<String> versions = configuration.getVersions();
+        if (versions.isEmpty()) {
+            CheckMetrics.Phase resolveVersionPhase = metrics.phase("resolveVersion");
+            try {
+                versions = resolver.resolveLatestVersions(configuration.getGroupId(), configuration.getArtifactId(),
+                        majorVersion, configuration.getReleases());
+            } catch (VersionRangeResolutionException e) {
+                if (skipFirstInSeries) {
+                    log.debug("Failed to resolve previous artifact, assuming first in series, skipping");
+                    return null;
+                } else {
+                    throw new MojoExecutionException("Failed to resolve previous artifact", e);
+                }
+            } finally {
+                resolveVersionPhase.end();
+            }
+        }
+
+        if (versions.isEmpty()) {
+            if (skipFirstInSeries) {
+                log.debug("Failed to resolve previous artifact, assuming first in series, skipping");
+                return null;
+            } else {
+                throw new MojoExecutionException("Failed to resolve previous artifact");
+            }
+        }
+
+        List<Artifact> previousArtifacts = new ArrayList<>();
+        for (String previousVersion : versions) {
+            String previousArtifactStr = MessageFormat.format("{0}:{1}:{2}", configuration.getGroupId(),
+                    configuration.getArtifactId(), previousVersion);
+            try {
+                previousArtifacts.add(new DefaultArtifact(previousArtifactStr));
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException("Invalid previous artifact " + previousArtifactStr, e);
+            }
+        }
+
+        List<Artifact> resolvedArtifacts = new ArrayList<>();
+        if (resolver.getVersionCache() != null) {
+            metrics.count("versionCache.hits", resolver.getVersionCache().getHits());
+            metrics.count("versionCache.misses", resolver.getVersionCache().getMisses());
+        }
+        List<ArtifactResult> results;
+        CheckMetrics.Phase resolveArtifactPhase = metrics.phase("resolveArtifact");
+        try {
+            results = resolvePreviousArtifacts(previousArtifacts, configuration.isApiSnapshots());
+        } finally {
+            resolveArtifactPhase.end();
+        }
+        for (int i = 0; i < results.size(); i++) {
+            ArtifactResult result = results.get(i);
+            if (!result.isResolved()) {
+                throw new MojoExecutionException("Failed to resolve previous artifact " + previousArtifacts.get(i)
+                        + ": " + result.getExceptions());
+            }
+            log.debug("Resolved previousArtifact " + previousArtifacts.get(i) + " to " + result.getArtifact().getFile() + " from " + result.getRepository());
+            resolvedArtifacts.add(result.getArtifact());
+        }
+        return resolvedArtifacts;
+    }
+
+    /**
+     * Resolve the previous artifacts of several modules with a single request, every module selecting its baselines
+     * by the given configuration.  Modules looking up their baselines later or meanwhile join these lookups, failures
+     * are reported by the modules themselves.
+     */
+    protected void prefetchBaselines(Map<MavenProject, BaselineConfiguration> modules) {
+        BaselineResolver resolver = getBaselineResolver();
+        Map<MavenProject, BaselineConfiguration> configurations = new LinkedHashMap<>();
+        Map<MavenProject, CompletableFuture<List<String>>> lookups = new LinkedHashMap<>();
+        for (Map.Entry<MavenProject, BaselineConfiguration> entry : modules.entrySet()) {
+            MavenProject module = entry.getKey();
+            BaselineConfiguration configuration = entry.getValue();
+            if (configuration == null || configuration.isSkip()) {
+                continue;
+            }
+            int majorVersion;
+            try {
+                majorVersion = majorVersion(module.getVersion());
+            } catch (MojoExecutionException e) {
+                continue;
+            }
+            if (majorVersion == 0) {
+                continue;
+            }
+            configurations.put(module, configuration);
+            lookups.put(module, configuration.getVersions().isEmpty()
+                    ? resolver.resolveLatestVersionsAsync(configuration.getGroupId(), configuration.getArtifactId(),
+                    majorVersion, configuration.getReleases())
+                    : CompletableFuture.completedFuture(configuration.getVersions()));
+        }
+        List<Artifact> jars = new ArrayList<>();
+        List<Artifact> snapshots = new ArrayList<>();
+        for (Map.Entry<MavenProject, CompletableFuture<List<String>>> lookup : lookups.entrySet()) {
+            BaselineConfiguration configuration = configurations.get(lookup.getKey());
+            try {
+                for (String version : lookup.getValue().join()) {
+                    (configuration.isApiSnapshots() ? snapshots : jars).add(new DefaultArtifact(
+                            configuration.getGroupId(), configuration.getArtifactId(), "jar", version));
+                }
+            } catch (CompletionException e) {
+                // reported by the module when it looks its versions up
+            }
+        }
+        getLog().info("Resolving " + (jars.size() + snapshots.size()) + " previous artifacts of " + lookups.size()
+                + " modules");
+        if (!jars.isEmpty()) {
+            resolvePreviousArtifacts(jars, false);
+        }
+        if (!snapshots.isEmpty()) {
+            resolvePreviousArtifacts(snapshots, true);
+        }
+    }
+
+    /**
+     * Check a module's jar and the attached jars selected by its configuration against their previous versions.
+     *
+     * @return whether each jar is compatible, by classifier, the main jar first
+     */
+    protected Map<String, Boolean> checkAll(ModuleContext module, BaselineConfiguration configuration,
+                                            List<Artifact> resolvedArtifacts) throws MojoExecutionException {
+        Map<String, ModuleContext> checks = new LinkedHashMap<>();
+        Map<String, List<Artifact>> baselines = new LinkedHashMap<>();
+        checks.put(MAIN_JAR, module);
+        baselines.put(MAIN_JAR, resolvedArtifacts);
+        addClassifiers(module, configuration, resolvedArtifacts, checks, baselines);
+        if (checks.size() == 1) {
+            return Collections.singletonMap(MAIN_JAR, compareAll(module, resolvedArtifacts));
+        }
+        Map<String, Boolean> results = compareClassifiers(checks, baselines);
+        for (Map.Entry<String, Boolean> result : results.entrySet()) {
+            ModuleContext check = checks.get(result.getKey());
+            if (check != module) {
+                module.getMetrics().merge(check.getMetrics(), result.getKey() + ".");
+            }
+            File checkReport = resolvedArtifacts.size() == 1 ? check.getReportPath() : check.getReportPath().getParentFile();
+            String line = result.getKey() + ": " + (result.getValue() ? "Compatible" : "Incompatible")
+                    + ", report file://" + checkReport;
+            if (result.getValue()) {
+                module.getLog().info(line);
+            } else {
+                module.getLog().error(line);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Add a check of every attached jar to check, with the jars with the same classifier of the previous versions as
+     * baselines.  All baselines are resolved with a single request.
+     */
+    private void addClassifiers(ModuleContext module,
+                                BaselineConfiguration configuration,
+                                List<Artifact> resolvedArtifacts,
+                                Map<String, ModuleContext> checks,
+                                Map<String, List<Artifact>> baselines) throws MojoExecutionException {
+        Map<String, File> jars = classifierJars(module, configuration);
+        if (jars.isEmpty()) {
+            return;
+        }
+        List<Artifact> requests = new ArrayList<>();
+        for (String classifier : jars.keySet()) {
+            for (Artifact baseline : resolvedArtifacts) {
+                requests.add(new DefaultArtifact(baseline.getGroupId(), baseline.getArtifactId(), classifier, "jar",
+                        baseline.getVersion()));
+            }
+        }
+        List<ArtifactResult> results;
+        CheckMetrics.Phase resolveArtifactPhase = module.getMetrics().phase("resolveArtifact");
+        try {
+            results = getBaselineResolver().resolveAll(requests);
+        } finally {
+            resolveArtifactPhase.end();
+        }
+        int index = 0;
+        for (Map.Entry<String, File> jar : jars.entrySet()) {
+            List<Artifact> classifierBaselines = new ArrayList<>();
+            for (int i = 0; i < resolvedArtifacts.size(); i++, index++) {
+                ArtifactResult result = results.get(index);
+                if (result.isResolved()) {
+                    classifierBaselines.add(result.getArtifact());
+                } else if (skipFirstInSeries) {
+                    module.getLog().info("Previous artifact " + requests.get(index) + " not found, assuming new classifier");
+                } else {
+                    throw new MojoExecutionException("Failed to resolve previous artifact " + requests.get(index)
+                            + ": " + result.getExceptions());
+                }
+            }
+            if (!classifierBaselines.isEmpty()) {
+                checks.put(jar.getKey(), module.forClassifier(jar.getKey(), jar.getValue()));
+                baselines.put(jar.getKey(), classifierBaselines);
+            }
+        }
+    }
+
+    /**
+     * The attached jars of a module to check, by classifier.
+     */
+    private Map<String, File> classifierJars(ModuleContext module, BaselineConfiguration configuration) {
+        MavenProject project = module.getProject();
+        List<String> classifiers = configuration.getClassifiers();
+        Map<String, File> jars = new LinkedHashMap<>();
+        for (org.apache.maven.artifact.Artifact attached : project.getAttachedArtifacts()) {
+            if (attached.hasClassifier() && "jar".equals(attached.getType()) && attached.getFile() != null
+                    && attached.getFile().isFile()
+                    && (configuration.isCheckAttached() || classifiers.contains(attached.getClassifier()))) {
+                jars.put(attached.getClassifier(), attached.getFile());
+            }
+        }
+        for (String classifier : classifiers) {
+            if (jars.containsKey(classifier)) {
+                continue;
+            }
+            File jar = new File(project.getBuild().getDirectory(),
+                    project.getBuild().getFinalName() + "-" + classifier + ".jar");
+            if (jar.isFile()) {
+                jars.put(classifier, jar);
+            } else {
+                module.getLog().warn("No jar with classifier " + classifier + ", skipping");
+            }
+        }
+        return jars;
+    }
+
+    /**
+     * Check the main jar and the attached jars concurrently.
+     *
+     * @return whether each jar is compatible, by classifier
+     */
+    private Map<String, Boolean> compareClassifiers(Map<String, ModuleContext> checks,
+                                                    Map<String, List<Artifact>> baselines)
+            throws MojoExecutionException {
+        int poolSize = Math.min(checks.size(), Runtime.getRuntime().availableProcessors());
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "japicc-classifier-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, Future<Boolean>> comparisons = new LinkedHashMap<>();
+            for (Map.Entry<String, ModuleContext> check : checks.entrySet()) {
+                List<Artifact> checkBaselines = baselines.get(check.getKey());
+                comparisons.put(check.getKey(), executor.submit(() -> compareAll(check.getValue(), checkBaselines)));
+            }
+            Map<String, Boolean> results = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<Boolean>> comparison : comparisons.entrySet()) {
+                try {
+                    results.put(comparison.getKey(), comparison.getValue().get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof MojoExecutionException) {
+                        throw (MojoExecutionException) e.getCause();
+                    }
+                    throw new MojoExecutionException("Error while validating: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean runPerlEngine(ModuleContext module, File previousJarFile, String previousVersion,
+                                  NewJarAnalysis analysis) throws MojoExecutionException {
+        if (isApiSnapshot(module, previousJarFile)) {
+            throw new MojoExecutionException("The perl engine cannot compare with the API snapshot "
+                    + previousJarFile + ", use the java engine or set useApiSnapshots to false");
+        }
+        CheckMetrics metrics = module.getMetrics();
+        PerlEngine perlEngine;
+        CheckMetrics.Phase scriptExtractionPhase = metrics.phase("scriptExtraction");
+        try {
+            perlEngine = createPerlEngine();
+        } finally {
+            scriptExtractionPhase.end();
+        }
+        File previousInput = previousJarFile;
+        if (apiStubs) {
+            CheckMetrics.Phase stubsPhase = metrics.phase("stubs");
+            try {
+                previousInput = getBaselineStub(module, previousJarFile);
+            } finally {
+                stubsPhase.end();
+            }
+        }
+        File previousApi;
+        CheckMetrics.Phase baselineDumpPhase = metrics.phase("baselineDump");
+        try {
+            previousApi = dumpCache ? getPerlDump(module, perlEngine, previousInput) : previousInput;
+        } finally {
+            baselineDumpPhase.end();
+        }
+        File newApi;
+        CheckMetrics.Phase newJarAnalysisPhase = metrics.phase("newJarAnalysis");
+        try {
+            newApi = analysis.perlInput(module, perlEngine);
+        } finally {
+            newJarAnalysisPhase.end();
+        }
+        // japi-compliance-checker cannot skip a package without its subpackages, the pre-scan lists the classes
+        Set<String> exported = exportedPackages(module, previousJarFile);
+        PerlEngine.Prescan prescan = null;
+        if (annotationPrescan || shards > 1 || exported != null) {
+            CheckMetrics.Phase prescanPhase = metrics.phase("prescan");
+            try {
+                prescan = prescan(module, previousJarFile, analysis, exported);
+            } finally {
+                prescanPhase.end();
+            }
+            if (prescan != null && prescan.getIncluded().isEmpty()) {
+                module.getLog().info("No classes left to check after the pre-scan");
+                return perlEngine.finish(module, previousVersion, true);
+            }
+        }
+        if (prescan != null && shards > 1) {
+            return perlEngine.compareShards(module, previousApi, newApi, previousVersion, prescan);
+        }
+        File classes = null;
+        if (prescan != null && (annotationPrescan || exported != null)) {
+            classes = new File(module.getResultPath().getParentFile(), "japicc-classes-list");
+            try {
+                PerlEngine.writeClassesList(classes, prescan.getIncluded());
+            } catch (IOException e) {
+                if (exported != null) {
+                    throw new MojoExecutionException("Failed to write " + classes, e);
+                }
+                module.getLog().warn("Failed to write " + classes + ", checking all classes: " + e.getMessage());
+                classes = null;
+            }
+        }
+        return perlEngine.compare(module, previousApi, newApi, previousVersion, classes);
+    }
+
+    private PerlEngine createPerlEngine() throws MojoExecutionException {
+        PerlEngine perlEngine = new PerlEngine(perlExec, getScriptFromJar(), this::insertAdditionalArguments,
+                getLog());
+        if (daemon) {
+            perlEngine.setDaemon(daemonWorkers > 0 ? daemonWorkers : Runtime.getRuntime().availableProcessors(),
+                    daemonQueueSize, daemonIdleTimeout);
+        }
+        perlEngine.setLimits(timeout, maxMemory);
+        perlEngine.setShards(shards, shardBy);
+        return perlEngine;
+    }
+
+    /**
+     * Determine the classes japi-compliance-checker has to check by applying the class filters of the plugin
+     * configuration, most notably the skip and include annotations, to the class files of both jars.  The baseline
+     * is read on another thread while the new jar is read, using the cached API dump if available.
+     *
+     * @param exported the packages exported by the module descriptors, {@code null} for every package
+     * @return the models and the included classes, {@code null} if the pre-scan failed
+     * @throws MojoExecutionException if the pre-scan failed while only the exported packages may be checked
+     */
+    private PerlEngine.Prescan prescan(ModuleContext module, File previousJarFile, NewJarAnalysis analysis,
+                            Set<String> exported) throws MojoExecutionException {
+        ApiFilter filter = createApiFilter();
+        filter.setExportedPackages(exported);
+        CompletableFuture<ApiModel> baseline = CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadBaselineModel(module, previousJarFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            ApiModel newModel = analysis.model(module);
+            ApiModel oldModel = baseline.join();
+            Set<String> names = new TreeSet<>(oldModel.names());
+            names.addAll(newModel.names());
+            List<String> included = new ArrayList<>();
+            for (String name : names) {
+                if (filter.isClassIncluded(name) && filter.isClassIncluded(oldModel.get(name), newModel.get(name))) {
+                    included.add(name);
+                }
+            }
+            module.getMetrics().count("prescan.classes", names.size());
+            module.getMetrics().count("prescan.included", included.size());
+            module.getLog().info("Annotation pre-scan: checking " + included.size() + " of " + names.size() + " classes");
+            return new PerlEngine.Prescan(oldModel, newModel, included);
+        } catch (IOException | CompletionException | ClassFormatException e) {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (exported != null) {
+                // japi-compliance-checker has no other way to restrict the check to the exported packages
+                throw new MojoExecutionException("Pre-scan failed, can not restrict the check to the exported packages: "
+                        + cause.getMessage(), cause);
+            }
+            module.getLog().warn("Annotation pre-scan failed, checking all classes: " + cause.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Look up or create the japicc dump of the previous artifact.  Falls back to the jar itself if the dump can not
+     * be created.
+     */
+    private File getPerlDump(ModuleContext module, PerlEngine perlEngine, File previousJarFile) throws MojoExecutionException {
+        List<String> dumpArguments = new ArrayList<>();
+        insertDumpArguments(module, dumpArguments);
+        ContentCache cache = getDumpCache();
+        String name;
+        try {
+            name = dumpKey(previousJarFile, PERL_ENGINE, dumpArguments) + ".dump";
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to compute key of " + previousJarFile, e);
+        }
+        File cached = cache.get(name);
+        if (cached != null) {
+            module.getMetrics().increment("dumpCache.hits");
+            module.getLog().info("Using cached API dump " + cached);
+            return cached;
+        }
+        module.getMetrics().increment("dumpCache.misses");
+        module.getLog().info("Dumping API of " + previousJarFile);
+        try {
+            return cache.put(name, file -> perlEngine.dump(module, dumpArguments, previousJarFile, file));
+        } catch (IOException e) {
+            module.getLog().warn("Failed to cache API dump, comparing against " + previousJarFile + ": " + e.getMessage());
+            return previousJarFile;
+        }
+    }
+
+    /**
+     * Look up or create the API stub of the previous artifact.  Falls back to the jar itself if the stub can not be
+     * created.
+     */
+    private File getBaselineStub(ModuleContext module, File previousJarFile) {
+        ContentCache cache = getDumpCache();
+        try {
+            String name = dumpKey(previousJarFile, "stub", Collections.<String>emptyList()) + ".stub.jar";
+            File cached = cache.get(name);
+            if (cached != null) {
+                module.getMetrics().increment("stubCache.hits");
+                return cached;
+            }
+            module.getMetrics().increment("stubCache.misses");
+            return cache.put(name, file -> ClassStubs.writeJar(previousJarFile, file));
+        } catch (IOException | ClassFormatException e) {
+            module.getLog().warn("Failed to create API stub of " + previousJarFile + ", comparing the jar: " + e.getMessage());
+            return previousJarFile;
+        }
+    }
+
+    /**
+     * The analysis of a module's new jar, computed on first use and shared by the comparisons against all
+     * previous artifacts.
+     */
+    private final class NewJarAnalysis {
+        private final boolean shared;
+        private ApiModel model;
+        private String fingerprint;
+        private File perlInput;
+
+        /**
+         * @param shared whether several comparisons use the analysis, making an up front API dump worthwhile
+         */
+        private NewJarAnalysis(boolean shared) {
+            this.shared = shared;
+        }
+
+        synchronized ApiModel model(ModuleContext module) throws IOException {
+            if (model == null) {
+                model = ApiModel.load(module.getNewJar());
+                module.getMetrics().count("newJar.classes", model.size());
+            }
+            return model;
+        }
+
+        synchronized String fingerprint(ModuleContext module) throws IOException {
+            if (fingerprint == null) {
+                fingerprint = ApiFingerprint.of(model(module));
+            }
+            return fingerprint;
+        }
+
+        /**
+         * The new API as passed to japi-compliance-checker: a dump of the new jar or its stub when shared, the jar
+         * or its stub otherwise.
+         */
+        synchronized File perlInput(ModuleContext module, PerlEngine perlEngine) throws MojoExecutionException {
+            if (perlInput == null) {
+                File newJar = module.getNewJar();
+                perlInput = newJar;
+                String jarName = newJar.getName().replaceFirst("\\.jar$", "");
+                if (apiStubs) {
+                    File stub = new File(module.getTarget(), "japicc/" + jarName + "-api.jar");
+                    try {
+                        Files.createDirectories(stub.getParentFile().toPath());
+                        module.getMetrics().count("newJar.stubClasses", ClassStubs.writeJar(newJar, stub));
+                        module.getMetrics().count("newJar.stubBytes", stub.length());
+                        perlInput = stub;
+                    } catch (IOException | ClassFormatException e) {
+                        module.getLog().warn("Failed to create API stub of " + newJar + ": " + e.getMessage());
+                    }
+                }
+                if (perlInput.isDirectory()) {
+                    File jar = new File(module.getTarget(), "japicc/" + jarName + ".jar");
+                    try {
+                        Files.createDirectories(jar.getParentFile().toPath());
+                        PerlEngine.packClasses(newJar, jar);
+                        perlInput = jar;
+                    } catch (IOException e) {
+                        throw new MojoExecutionException("Failed to pack " + newJar, e);
+                    }
+                }
+                if (shared) {
+                    File dump = new File(module.getTarget(), "japicc/" + module.getNewJar().getName() + ".dump");
+                    List<String> dumpArguments = new ArrayList<>();
+                    insertDumpArguments(module, dumpArguments);
+                    module.getLog().info("Dumping API of " + perlInput);
+                    try {
+                        Files.createDirectories(dump.getParentFile().toPath());
+                        perlEngine.dump(module, dumpArguments, perlInput, dump);
+                        perlInput = dump;
+                    } catch (IOException e) {
+                        module.getLog().warn("Failed to dump the new API, comparing the jar: " + e.getMessage());
+                    }
+                }
+            }
+            return perlInput;
+        }
+    }
+
+    ApiModel loadBaselineModel(ModuleContext module, File previousJarFile) throws IOException {
+        if (ApiSnapshot.isSnapshot(previousJarFile)) {
+            module.getMetrics().increment("apiSnapshot.used");
+            module.getLog().info("Using API snapshot " + previousJarFile);
+            return ApiSnapshot.read(previousJarFile);
+        }
+        if (!dumpCache) {
+            return ApiModel.load(previousJarFile);
+        }
+        ContentCache cache = getDumpCache();
+        String name = dumpKey(previousJarFile, JAVA_ENGINE, Collections.<String>emptyList()) + ".api";
+        File cached = cache.get(name);
+        if (cached != null) {
+            try {
+                module.getLog().info("Using cached API dump " + cached);
+                ApiModel model = ApiDump.read(cached);
+                module.getMetrics().increment("dumpCache.hits");
+                return model;
+            } catch (IOException e) {
+                module.getLog().warn("Ignoring unreadable API dump " + cached + ": " + e.getMessage());
+            }
+        }
+        module.getMetrics().increment("dumpCache.misses");
+        ApiModel model = ApiModel.load(previousJarFile);
+        try {
+            cache.put(name, file -> ApiDump.write(model, file));
+        } catch (IOException e) {
+            module.getLog().warn("Failed to cache API dump of " + previousJarFile + ": " + e.getMessage());
+        }
+        return model;
+    }
+
+    /**
+     * Resolve the previous artifacts, preferring their API snapshots with the java engine.  Results are returned in
+     * request order, as by {@link BaselineResolver#resolveAll(Collection)}.
+     */
+    protected List<ArtifactResult> resolvePreviousArtifacts(List<Artifact> jars) {
+        return resolvePreviousArtifacts(jars, isUsingApiSnapshots());
+    }
+
+    /**
+     * Whether the API snapshots of the previous versions are compared instead of their jars, when available.
+     */
+    protected boolean isUsingApiSnapshots() {
+        return useApiSnapshots && JAVA_ENGINE.equals(engine);
+    }
+
+    private List<ArtifactResult> resolvePreviousArtifacts(List<Artifact> jars, boolean apiSnapshots) {
+        BaselineResolver resolver = getBaselineResolver();
+        if (!apiSnapshots) {
+            return resolver.resolveAll(jars);
+        }
+        List<Artifact> snapshots = new ArrayList<>();
+        for (Artifact jar : jars) {
+            snapshots.add(new DefaultArtifact(jar.getGroupId(), jar.getArtifactId(), SNAPSHOT_CLASSIFIER,
+                    SNAPSHOT_EXTENSION, jar.getVersion()));
+        }
+        List<ArtifactResult> results = new ArrayList<>(resolver.resolveAll(snapshots));
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).isResolved()) {
+                missing.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<ArtifactResult> jarResults = resolver.resolveAll(missing.stream().map(jars::get)
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < missing.size(); i++) {
+                results.set(missing.get(i), jarResults.get(i));
+            }
+        }
+        return results;
+    }
+
+    private ContentCache getDumpCache() {
+        DumpStore store = dumpStore == null || dumpStore.isEmpty() ? null : DumpStore.open(dumpStore);
+        return new ContentCache(new File(cacheDirectory, "dumps"), dumpCacheMaxSize * 1024 * 1024, getLog(), store,
+                ContentCache.inUse(session));
+    }
+
+    /**
+     * Key of a cached dump: the content of the artifact, the engine and plugin version and every option that
+     * influences the dump.
+     */
+    private String dumpKey(File jar, String engineName, List<String> options) throws IOException {
+        return Digests.sha256(Digests.sha256(jar) + '\n' + optionsKey(engineName, options));
+    }
+
+    /**
+     * Key of the effective configuration of a module's comparison.
+     */
+    private String configurationKey(ModuleContext module) throws MojoExecutionException {
+        List<String> arguments = new ArrayList<>();
+        insertAdditionalArguments(module, arguments);
+        arguments.add(String.valueOf(getThreshold()));
+        // a passing gating check writes no report
+        arguments.add(String.valueOf(gate && !fullReport));
+        // the exports are not part of the API fingerprint
+        arguments.add(String.valueOf(readExports(module, module.getNewJar())));
+        try {
+            return Digests.sha256(optionsKey(engine, arguments));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the configured files", e);
+        }
+    }
+
+    /**
+     * Options naming files contribute the file content rather than the path.
+     */
+    private String optionsKey(String engineName, List<String> options) throws IOException {
+        StringBuilder key = new StringBuilder();
+        key.append(engineName).append('\n');
+        key.append(plugin != null ? plugin.getVersion() : "unknown").append('\n');
+        for (String option : options) {
+            File file = new File(option);
+            key.append(file.isFile() ? Digests.sha256(file) : option).append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * The API fingerprint of the previous artifact, cached next to the dumps.
+     */
+    private String baselineFingerprint(ModuleContext module, File previousJarFile) throws IOException {
+        ContentCache cache = getDumpCache();
+        String name = dumpKey(previousJarFile, "fingerprint", Collections.<String>emptyList()) + ".fingerprint";
+        File cached = cache.get(name);
+        if (cached != null) {
+            module.getMetrics().increment("fingerprintCache.hits");
+            return new String(Files.readAllBytes(cached.toPath()), StandardCharsets.UTF_8).trim();
+        }
+        module.getMetrics().increment("fingerprintCache.misses");
+        ApiModel model = JAVA_ENGINE.equals(engine)
+                ? loadBaselineModel(module, previousJarFile)
+                : ApiModel.load(previousJarFile);
+        String fingerprint = ApiFingerprint.of(model);
+        cache.put(name, file -> Files.write(file.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8)));
+        return fingerprint;
+    }
+
+    private boolean runJavaEngine(ModuleContext module, File previousJarFile, String previousVersion,
+                                  NewJarAnalysis analysis) throws MojoExecutionException {
+        ApiFilter filter = createApiFilter();
+        filter.setExportedPackages(exportedPackages(module, previousJarFile));
+        JavaEngine javaEngine = new JavaEngine(getThreshold());
+        javaEngine.setGating(gate && !fullReport);
+        javaEngine.setPagedReport(pagedReport, pagedReportGzip);
+        try {
+            CheckMetrics metrics = module.getMetrics();
+            module.getLog().info("Checking API...");
+            ApiModel oldModel;
+            CheckMetrics.Phase baselineDumpPhase = metrics.phase("baselineDump");
+            try {
+                oldModel = loadBaselineModel(module, previousJarFile);
+            } finally {
+                baselineDumpPhase.end();
+            }
+            ApiModel newModel;
+            CheckMetrics.Phase newJarAnalysisPhase = metrics.phase("newJarAnalysis");
+            try {
+                newModel = analysis.model(module);
+            } finally {
+                newJarAnalysisPhase.end();
+            }
+            metrics.count("baselineJar.classes", oldModel.size());
+            return javaEngine.compare(module, filter, oldModel, newModel, previousVersion);
+        } catch (IOException | ClassFormatException e) {
+            throw new MojoExecutionException("Error while validating: " + e.getMessage(), e);
+        }
+    }
+
+    private JsonResult createResult(ModuleContext module, String previousVersion)
+            throws IOException, MojoExecutionException {
+        return new JsonResult(module.getResultPath(), module.getTitle(), previousVersion,
+                module.getProject().getVersion(), engine, JAVA_ENGINE.equals(engine) ? getThreshold() : null);
+    }
+
+    ProblemThreshold getThreshold() throws MojoExecutionException {
+        try {
+            return ProblemThreshold.parse(failOnSeverity, failOnCompatibility);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid failOnSeverity " + failOnSeverity + " or failOnCompatibility "
+                    + failOnCompatibility, e);
+        }
+    }
+
+    ApiFilter createApiFilter() throws MojoExecutionException {
+        ApiFilter filter = new ApiFilter();
+        filter.setKeepInternal(keepInternal);
+        filter.setSkipInternalPackages(StringUtils.isNotBlank(skipInternalPackages) ? skipInternalPackages : null);
+        filter.setSkipInternalTypes(StringUtils.isNotBlank(skipInternalTypes) ? skipInternalTypes : null);
+        filter.setSkipDeprecated(skipDeprecated);
+        filter.setAddedAnnotations(addedAnnotations);
+        filter.setRemovedAnnotations(removedAnnotations);
+        Set<String> skipAnnotations = new HashSet<>();
+        skipAnnotations.add(SkipComplianceCheck.class.getName());
+        if (skipAnnotationsList != null) {
+            skipAnnotations.addAll(skipAnnotationsList);
+        }
+        filter.setSkipAnnotations(skipAnnotations);
+        if (annotationsList != null) {
+            filter.setAnnotations(annotationsList);
+        }
+        try {
+            if (classesList != null) {
+                filter.setClasses(ApiFilter.readList(classesList));
+            }
+            if (skipClasses != null) {
+                filter.setSkipClasses(ApiFilter.readList(skipClasses));
+            }
+            if (skipPackages != null) {
+                filter.setSkipPackages(ApiFilter.readList(skipPackages));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read class or package list", e);
+        }
+        return filter;
+    }
+
+    /**
+     * The packages to check when module descriptors define the API: the packages exported by the versions that have
+     * a descriptor.  An API snapshot carries no descriptor, only the exports of the new version apply then.
+     *
+     * @return the exported packages, {@code null} to check every package
+     */
+    Set<String> exportedPackages(ModuleContext module, File previousJarFile) {
+        Set<String> previous = readExports(module, previousJarFile);
+        Set<String> current = readExports(module, module.getNewJar());
+        if (previous == null && current == null) {
+            return null;
+        }
+        Set<String> packages = new TreeSet<>();
+        if (previous != null) {
+            packages.addAll(previous);
+            if (current != null) {
+                for (String packageName : previous) {
+                    if (!current.contains(packageName)) {
+                        module.getLog().warn("Package " + packageName + " is no longer exported");
+                    }
+                }
+            }
+        }
+        if (current != null) {
+            packages.addAll(current);
+        }
+        module.getMetrics().count("exportedPackages", packages.size());
+        module.getLog().debug("Checking the " + packages.size() + " packages exported by the module descriptors");
+        return packages;
+    }
+
+    /**
+     * The packages exported by the module descriptor of a jar or classes directory, read once per execution: every
+     * comparison of a module and its configuration key need the exports of the new jar.
+     *
+     * @return the exported packages, {@code null} if there is no descriptor or exports are not checked
+     */
+    private Set<String> readExports(ModuleContext module, File file) {
+        if (!moduleExports || file == null || isApiSnapshot(module, file)) {
+            return null;
+        }
+        return exports.computeIfAbsent(file.getAbsolutePath(),
+                path -> Optional.ofNullable(readExportsOf(module, file))).orElse(null);
+    }
+
+    /**
+     * Whether a baseline is an API snapshot, told by its header rather than its name.
+     */
+    private static boolean isApiSnapshot(ModuleContext module, File file) {
+        try {
+            return ApiSnapshot.isSnapshot(file);
+        } catch (IOException e) {
+            module.getLog().warn("Failed to read " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Set<String> readExportsOf(ModuleContext module, File file) {
+        try {
+            ApiExports exports = ApiExports.read(file);
+            if (exports == null) {
+                return null;
+            }
+            Set<String> packages = exports.packages(qualifiedExports != null
+                    ? qualifiedExports : Collections.<String>emptyList());
+            module.getLog().info("Module " + exports.moduleName() + " of " + file.getName() + " exports "
+                    + packages.size() + " packages, checking those only");
+            return packages;
+        } catch (IOException | ClassFormatException e) {
+            module.getLog().warn("Failed to read the module descriptor of " + file + ", checking every package: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean canRun() {
+        File file = new File(perlExec);
+        if (file.exists() && file.canExecute()) {
+            return true;
+        } else {
+            getLog().error("Can NOT run JAPICC");
+            getLog().error(perlExec + " missing or not executable");
+            return false;
+        }
+    }
+
+    void insertAdditionalArguments(ModuleContext module, List<String> arguments) throws MojoExecutionException {
+        insertJdkPath(arguments);
+        insertTitle(module, arguments);
+        insertKeepInternal(arguments);
+        insertSkipInternalPackages(arguments);
+        insertSkipInternalTypes(arguments);
+        insertClassesList(arguments);
+        insertAnnotations(module, arguments);
+        insertSkipAnnotations(module, arguments);
+        insertSkipDeprecated(arguments);
+        insertSkipClasses(arguments);
+        insertSkipPackages(arguments);
+        insertReportPath(module, arguments);
+        insertBinReportPath(module, arguments);
+        insertSrcReportPath(module, arguments);
+        insertQuick(module, arguments);
+        insertSort(arguments);
+        insertShowAccess(arguments);
+        insertHideTemplates(arguments);
+        insertShowPackage(arguments);
+        insertLimitAffected(module, arguments);
+        insertCompact(arguments);
+        insertAddedAnnotations(arguments);
+        insertRemovedAnnotations(arguments);
+    }
+
+    /**
+     * The options that influence the content of an API dump.
+     */
+    private void insertDumpArguments(ModuleContext module, List<String> arguments) throws MojoExecutionException {
+        insertJdkPath(arguments);
+        insertKeepInternal(arguments);
+        insertSkipInternalPackages(arguments);
+        insertSkipInternalTypes(arguments);
+        insertClassesList(arguments);
+        insertAnnotations(module, arguments);
+        insertSkipAnnotations(module, arguments);
+        insertSkipDeprecated(arguments);
+        insertSkipClasses(arguments);
+        insertSkipPackages(arguments);
+        insertQuick(module, arguments);
+        insertSort(arguments);
+    }
+
+    private void insertTitle(ModuleContext module, List<String> arguments) {
+        if (StringUtils.isNotBlank(module.getTitle())) {
+            arguments.add("-title");
+            arguments.add(module.getTitle());
+        }
+    }
+
+    private void insertJdkPath(List<String> arguments) {
+        if (StringUtils.isNotBlank(jdkPath)) {
+            arguments.add("-jdk-path");
+            arguments.add(jdkPath);
+        }
+    }
+
+    private void insertSkipInternalTypes(List<String> arguments) {
+        if (StringUtils.isNotBlank(skipInternalTypes)) {
+            arguments.add("-skip-internal-types");
+            arguments.add(skipInternalTypes);
+        }
+    }
+
+    private void insertRemovedAnnotations(List<String> arguments) {
+        if (removedAnnotations) {
+            arguments.add("-removed-annotations");
+        }
+    }
+
+    private void insertAddedAnnotations(List<String> arguments) {
+        if (addedAnnotations) {
+            arguments.add("-added-annotations");
+        }
+    }
+
+    private void insertCompact(List<String> arguments) {
+        if (compact) {
+            arguments.add("-compact");
+        }
+    }
+
+    private void insertLimitAffected(ModuleContext module, List<String> arguments) {
+        if (limitAffected != null && limitAffected > 0) {
+            arguments.add("-limit-affected");
+            arguments.add(String.valueOf(limitAffected));
+        } else if (module.isReduced()) {
+            arguments.add("-limit-affected");
+            arguments.add(String.valueOf(REDUCED_LIMIT_AFFECTED));
+        }
+    }
+
+    private void insertShowPackage(List<String> arguments) {
+        if (showPackages) {
+            arguments.add("-show-packages");
+        }
+    }
+
+    private void insertHideTemplates(List<String> arguments) {
+        if (hideTemplates) {
+            arguments.add("-hide-templates");
+        }
+    }
+
+    private void insertShowAccess(List<String> arguments) {
+        if (showAccess) {
+            arguments.add("-show-access");
+        }
+    }
+
+    private void insertSort(List<String> arguments) {
+        if (sort) {
+            arguments.add("-sort");
+        }
+    }
+
+    private void insertQuick(ModuleContext module, List<String> arguments) {
+        if (quick || module.isReduced()) {
+            arguments.add("-quick");
+        }
+    }
+
+    private void insertSrcReportPath(ModuleContext module, List<String> arguments) {
+        if (module.getSrcReportPath() != null) {
+            arguments.add("-src-report-path");
+            arguments.add(module.getSrcReportPath().getAbsolutePath());
+        }
+    }
+
+    private void insertBinReportPath(ModuleContext module, List<String> arguments) {
+        if (module.getBinReportPath() != null) {
+            arguments.add("-bin-report-path");
+            arguments.add(module.getBinReportPath().getAbsolutePath());
+        }
+    }
+
+    private void insertReportPath(ModuleContext module, List<String> arguments) {
+        if (module.getReportPath() != null) {
+            arguments.add("-report-path");
+            arguments.add(module.getReportPath().getAbsolutePath());
+        }
+    }
+
+    private void insertSkipPackages(List<String> arguments) {
+        if (skipPackages != null) {
+            arguments.add("-skip-packages");
+            arguments.add(skipPackages.getAbsolutePath());
+        }
+    }
+
+    private void insertSkipClasses(List<String> arguments) {
+        if (skipClasses != null) {
+            arguments.add("-skip-classes");
+            arguments.add(skipClasses.getAbsolutePath());
+        }
+    }
+
+    private void insertSkipDeprecated(List<String> arguments) {
+        if (skipDeprecated) {
+            arguments.add("-skip-deprecated");
+        }
+    }
+
+    private void insertSkipAnnotations(ModuleContext module, List<String> arguments) throws MojoExecutionException {
+        Set<String> list = new TreeSet<>();
+        list.add(SkipComplianceCheck.class.getName());
+        if (skipAnnotationsList != null && !skipAnnotationsList.isEmpty()) {
+            list.addAll(skipAnnotationsList);
+        }
+        if (!list.isEmpty()) {
+            File file = writeList(new File(module.getTarget(), "japicc-skip-annotations-list"), list,
+                    "Failed to setup Skip Annotations list file");
+            arguments.add("-skip-annotations-list");
+            arguments.add(file.getAbsolutePath());
+        }
+    }
+
+    private void insertAnnotations(ModuleContext module, List<String> arguments) throws MojoExecutionException {
+        Set<String> list = new TreeSet<>();
+        if (annotationsList != null && !annotationsList.isEmpty()) {
+            list.addAll(annotationsList);
+        }
+        if (!list.isEmpty()) {
+            File file = writeList(new File(module.getTarget(), "japicc-annotations-list"), list,
+                    "Failed to setup Annotations list file");
+            arguments.add("-annotations-list");
+            arguments.add(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Write a list file once per execution.  The baseline, shard and classifier checks of a module share its target
+     * directory and run concurrently, the first one writes the file while the others wait for it.
+     */
+    private File writeList(File file, Set<String> list, String failure) throws MojoExecutionException {
+        try {
+            return listFiles.computeIfAbsent(file.getAbsolutePath(), path -> {
+                try {
+                    org.apache.commons.io.FileUtils.writeLines(file, list);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return file;
+            });
+        } catch (UncheckedIOException e) {
+            throw new MojoExecutionException(failure, e.getCause());
+        }
+    }
+
+    private void insertClassesList(List<String> arguments) {
+        if (classesList != null) {
+            arguments.add("-classes-list");
+            arguments.add(classesList.getAbsolutePath());
+        }
+    }
+
+    private void insertSkipInternalPackages(List<String> arguments) {
+        if (StringUtils.isNotBlank(skipInternalPackages)) {
+            arguments.add("-skip-internal-packages");
+            arguments.add(skipInternalPackages);
+        }
+    }
+
+    private void insertKeepInternal(List<String> arguments) {
+        if (keepInternal) {
+            arguments.add("-keep-internal");
+        }
+    }
+
+    /**
+     * Install the japicc script and its modules into the shared cache directory, once per plugin version.
+     */
+    protected File getScriptFromJar() throws MojoExecutionException {
+        String version = plugin != null ? plugin.getVersion() : "unknown";
+        try {
+            return new ScriptInstaller(new File(cacheDirectory, "scripts"), version, getLog()).install();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to load JAPICC script from jar", e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How a module selects the previous versions it is compared against.  The check goal passes its own parameters;
+ * goals working on other modules of the reactor read them from the module's plugin configuration and the build's
+ * properties, the way Maven would inject them into the module's check execution.  A goal comparing other modules
+ * itself replaces their preference for API snapshots by its own, see {@link #withApiSnapshots(boolean)}.
+ */
+final class BaselineConfiguration {
+    static final String CHECK_GOAL = "check";
+
+    private final boolean skip;
+    private final String groupId;
+    private final String artifactId;
+    private final List<String> versions;
+    private final int releases;
+    private final List<String> classifiers;
+    private final boolean checkAttached;
+    private final boolean apiSnapshots;
+
+    /**
+     * @param versions     the configured versions, empty to look up the latest releases
+     * @param releases     number of latest releases to look up
+     * @param apiSnapshots whether the API snapshots of the previous versions are preferred to their jars
+     */
+    BaselineConfiguration(boolean skip, String groupId, String artifactId, List<String> versions, int releases,
+                          List<String> classifiers, boolean checkAttached, boolean apiSnapshots) {
+        this.skip = skip;
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.versions = versions;
+        this.releases = Math.max(1, releases);
+        this.classifiers = classifiers;
+        this.checkAttached = checkAttached;
+        this.apiSnapshots = apiSnapshots;
+    }
+
+    /**
+     * The configuration of the check goal of a module, {@code null} if the module does not use the plugin.
+     *
+     * @param pluginKey {@code groupId:artifactId} of this plugin
+     */
+    static BaselineConfiguration of(MavenSession session, MavenProject project, String pluginKey) {
+        Plugin plugin = project.getPlugin(pluginKey);
+        if (plugin == null) {
+            return null;
+        }
+        // the model merges the plugin configuration into the configuration of each execution
+        Xpp3Dom configuration = (Xpp3Dom) plugin.getConfiguration();
+        for (PluginExecution execution : plugin.getExecutions()) {
+            if (execution.getGoals().contains(CHECK_GOAL) && execution.getConfiguration() != null) {
+                configuration = (Xpp3Dom) execution.getConfiguration();
+                break;
+            }
+        }
+        Reader reader = new Reader(session, project, configuration);
+        List<String> versions = new ArrayList<>();
+        String version = reader.value("previousVersion", "japicc.previousVersion", null);
+        if (StringUtils.isNotBlank(version)) {
+            versions.add(version);
+        } else {
+            versions.addAll(reader.values("previousVersions", "japicc.previousVersions"));
+        }
+        String releases = reader.value("previousReleases", "japicc.previousReleases", "1");
+        return new BaselineConfiguration(
+                Boolean.parseBoolean(reader.value("skip", "japicc.skip", "false")),
+                reader.value("previousGroupId", "japicc.previousGroupId", project.getGroupId()),
+                reader.value("previousArtifactId", "japicc.previousArtifactId", project.getArtifactId()),
+                versions,
+                StringUtils.isNumeric(releases) && !releases.isEmpty() ? Integer.parseInt(releases) : 1,
+                reader.values("classifiers", "japicc.classifiers"),
+                Boolean.parseBoolean(reader.value("checkAttached", "japicc.checkAttached", "false")),
+                AbstractJapiccMojo.JAVA_ENGINE.equals(reader.value("engine", "japicc.engine",
+                        AbstractJapiccMojo.PERL_ENGINE))
+                        && Boolean.parseBoolean(reader.value("useApiSnapshots", "japicc.useApiSnapshots", "true")));
+    }
+
+    boolean isSkip() {
+        return skip;
+    }
+
+    String getGroupId() {
+        return groupId;
+    }
+
+    String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * The configured previous versions, empty if the latest releases are looked up.
+     */
+    List<String> getVersions() {
+        return versions;
+    }
+
+    int getReleases() {
+        return releases;
+    }
+
+    List<String> getClassifiers() {
+        return classifiers;
+    }
+
+    boolean isCheckAttached() {
+        return checkAttached;
+    }
+
+    boolean isApiSnapshots() {
+        return apiSnapshots;
+    }
+
+    /**
+     * The same selection for a comparison with the given engine settings, rather than the module's.
+     *
+     * @param apiSnapshots whether the API snapshots of the previous versions are preferred to their jars
+     */
+    BaselineConfiguration withApiSnapshots(boolean apiSnapshots) {
+        return apiSnapshots == this.apiSnapshots ? this : new BaselineConfiguration(skip, groupId, artifactId,
+                versions, releases, classifiers, checkAttached, apiSnapshots);
+    }
+
+    /**
+     * Reads parameters from a configuration element, falling back to the user, system and project properties.
+     */
+    private static final class Reader {
+        private final MavenSession session;
+        private final MavenProject project;
+        private final Xpp3Dom configuration;
+
+        private Reader(MavenSession session, MavenProject project, Xpp3Dom configuration) {
+            this.session = session;
+            this.project = project;
+            this.configuration = configuration;
+        }
+
+        String value(String name, String property, String defaultValue) {
+            Xpp3Dom child = configuration == null ? null : configuration.getChild(name);
+            if (child != null && child.getValue() != null) {
+                return child.getValue().trim();
+            }
+            String value = property(property);
+            return value != null ? value.trim() : defaultValue;
+        }
+
+        List<String> values(String name, String property) {
+            Xpp3Dom child = configuration == null ? null : configuration.getChild(name);
+            List<String> values = new ArrayList<>();
+            if (child != null && child.getChildCount() > 0) {
+                for (Xpp3Dom item : child.getChildren()) {
+                    if (StringUtils.isNotBlank(item.getValue())) {
+                        values.add(item.getValue().trim());
+                    }
+                }
+                return values;
+            }
+            String value = child != null && child.getValue() != null ? child.getValue() : property(property);
+            if (value == null) {
+                return Collections.emptyList();
+            }
+            for (String item : value.split(",")) {
+                if (StringUtils.isNotBlank(item)) {
+                    values.add(item.trim());
+                }
+            }
+            return values;
+        }
+
+        private String property(String property) {
+            String value = session.getUserProperties().getProperty(property);
+            if (value == null) {
+                value = session.getSystemProperties().getProperty(property);
+            }
+            if (value == null) {
+                value = project.getProperties().getProperty(property);
+            }
+            return value;
+        }
+    }
+}
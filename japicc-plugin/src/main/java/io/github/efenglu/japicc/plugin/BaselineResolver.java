@@ -0,0 +1,158 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.version.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Finds and downloads the previous release an artifact is compared against.  Lookups are shared with the other
+ * modules of the build through the session resolver, if one is given.
+ */
+class BaselineResolver {
+    private final RepositorySystem repoSystem;
+    private final RepositorySystemSession repoSession;
+    private final List<RemoteRepository> remoteRepos;
+    private final VersionCache versionCache;
+    private final SessionResolver sessionResolver;
+
+    BaselineResolver(RepositorySystem repoSystem,
+                     RepositorySystemSession repoSession,
+                     List<RemoteRepository> remoteRepos,
+                     VersionCache versionCache) {
+        this(repoSystem, repoSession, remoteRepos, versionCache, null);
+    }
+
+    BaselineResolver(RepositorySystem repoSystem,
+                     RepositorySystemSession repoSession,
+                     List<RemoteRepository> remoteRepos,
+                     VersionCache versionCache,
+                     SessionResolver sessionResolver) {
+        this.repoSystem = repoSystem;
+        this.repoSession = repoSession;
+        this.remoteRepos = remoteRepos;
+        this.versionCache = versionCache;
+        this.sessionResolver = sessionResolver;
+    }
+
+    /**
+     * The latest release within a major version line, or {@code null} if there is none.  Served from the version
+     * cache if one is configured.
+     */
+    String resolveLatestVersion(String groupId, String artifactId, int majorVersion)
+            throws VersionRangeResolutionException {
+        List<String> versions = resolveLatestVersions(groupId, artifactId, majorVersion, 1);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    /**
+     * Up to {@code count} latest releases within a major version line, newest first.
+     */
+    List<String> resolveLatestVersions(String groupId, String artifactId, int majorVersion, int count)
+            throws VersionRangeResolutionException {
+        if (sessionResolver != null) {
+            return sessionResolver.versions(versionKey(groupId, artifactId, majorVersion, count),
+                    () -> resolveLatestVersionsCached(groupId, artifactId, majorVersion, count));
+        }
+        return resolveLatestVersionsCached(groupId, artifactId, majorVersion, count);
+    }
+
+    /**
+     * Start looking up the latest releases without waiting for the result, see
+     * {@link #resolveLatestVersions(String, String, int, int)}.  Requires a session resolver.
+     */
+    CompletableFuture<List<String>> resolveLatestVersionsAsync(String groupId, String artifactId, int majorVersion,
+                                                               int count) {
+        return sessionResolver.versionsAsync(versionKey(groupId, artifactId, majorVersion, count),
+                () -> resolveLatestVersionsCached(groupId, artifactId, majorVersion, count));
+    }
+
+    private static String versionKey(String groupId, String artifactId, int majorVersion, int count) {
+        return groupId + ":" + artifactId + ":" + majorVersion + ":" + count;
+    }
+
+    private List<String> resolveLatestVersionsCached(String groupId, String artifactId, int majorVersion, int count)
+            throws VersionRangeResolutionException {
+        if (versionCache == null) {
+            return resolveLatestVersionsRemote(groupId, artifactId, majorVersion, count);
+        }
+        String key = groupId + ":" + artifactId + ":" + majorVersion + (count > 1 ? ":" + count : "");
+        String cached = versionCache.get(key, () -> {
+            List<String> versions = resolveLatestVersionsRemote(groupId, artifactId, majorVersion, count);
+            return versions.isEmpty() ? null : String.join(",", versions);
+        });
+        return cached == null ? Collections.<String>emptyList() : Arrays.asList(cached.split(","));
+    }
+
+    private List<String> resolveLatestVersionsRemote(String groupId, String artifactId, int majorVersion, int count)
+            throws VersionRangeResolutionException {
+        Artifact rangeArtifact = new DefaultArtifact(String.format(
+                "%1$s:%2$s:[%3$s.0.0,%4$s.0.0)",
+                groupId,
+                artifactId,
+                majorVersion,
+                majorVersion + 1
+        ));
+        final VersionRangeRequest versionRangeRequest = new VersionRangeRequest(rangeArtifact, remoteRepos, null);
+        final VersionRangeResult versionRangeResult = repoSystem.resolveVersionRange(repoSession, versionRangeRequest);
+        List<String> releases = versionRangeResult.getVersions().stream()
+                .map(Version::toString)
+                .filter(v -> !v.contains("SNAPSHOT"))
+                .collect(Collectors.toList());
+        Collections.reverse(releases);
+        return new ArrayList<>(releases.subList(0, Math.min(count, releases.size())));
+    }
+
+    /**
+     * The version cache, {@code null} if versions are always resolved.
+     */
+    VersionCache getVersionCache() {
+        return versionCache;
+    }
+
+    ArtifactResult resolve(Artifact artifact) throws ArtifactResolutionException {
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact(artifact);
+        request.setRepositories(remoteRepos);
+        return repoSystem.resolveArtifact(repoSession, request);
+    }
+
+    /**
+     * Resolve several artifacts with a single request.  Results are returned in request order; artifacts that could
+     * not be resolved have a result without file and with the exceptions describing the failure.
+     */
+    List<ArtifactResult> resolveAll(Collection<Artifact> artifacts) {
+        if (sessionResolver != null) {
+            return sessionResolver.resolveAll(new ArrayList<>(artifacts), this::resolveAllRemote);
+        }
+        return resolveAllRemote(artifacts);
+    }
+
+    private List<ArtifactResult> resolveAllRemote(Collection<Artifact> artifacts) {
+        List<ArtifactRequest> requests = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            requests.add(new ArtifactRequest(artifact, remoteRepos, null));
+        }
+        try {
+            return repoSystem.resolveArtifacts(repoSession, requests);
+        } catch (ArtifactResolutionException e) {
+            return e.getResults();
+        }
+    }
+}
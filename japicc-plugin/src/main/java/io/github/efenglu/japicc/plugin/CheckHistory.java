@@ -0,0 +1,175 @@
+package io.github.efenglu.japicc.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only record of a module's checks, one tab separated line per check:
+ * <pre>
+ * time  millis  mode  engine  baseline  newClasses  baselineClasses  configuration
+ * </pre>
+ * Kept below the cache directory so it survives clean builds.  The history is advisory: malformed lines are
+ * ignored, and a check appended while the file is compacted by another build may be lost.
+ */
+class CheckHistory {
+    static final String FULL = "full";
+    static final String REDUCED = "reduced";
+    static final String SKIPPED = "skipped";
+
+    private static final int RECENT = 10;
+    static final int MIN_RUNS = 3;
+    private static final int MAX_LINES = 200;
+
+    /**
+     * One recorded check.
+     */
+    static final class Run {
+        private final long time;
+        private final long millis;
+        private final String mode;
+        private final String engine;
+        private final String baseline;
+        private final long newClasses;
+        private final long baselineClasses;
+        private final String configuration;
+
+        Run(long time, long millis, String mode, String engine, String baseline, long newClasses,
+            long baselineClasses, String configuration) {
+            this.time = time;
+            this.millis = millis;
+            this.mode = mode;
+            this.engine = engine;
+            this.baseline = baseline;
+            this.newClasses = newClasses;
+            this.baselineClasses = baselineClasses;
+            this.configuration = configuration;
+        }
+
+        private String format() {
+            return time + "\t" + millis + "\t" + mode + "\t" + engine + "\t" + baseline + "\t" + newClasses + "\t"
+                    + baselineClasses + "\t" + configuration;
+        }
+
+        private static Run parse(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 8) {
+                return null;
+            }
+            try {
+                return new Run(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2], fields[3], fields[4],
+                        Long.parseLong(fields[5]), Long.parseLong(fields[6]), fields[7]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final File file;
+
+    CheckHistory(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * The recorded checks, oldest first.
+     */
+    List<Run> read() throws IOException {
+        if (!file.isFile()) {
+            return Collections.emptyList();
+        }
+        List<Run> runs = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            Run run = Run.parse(line);
+            if (run != null) {
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Median duration of the most recent checks with the given configuration that were not skipped.
+     *
+     * @return milliseconds, -1 if too few checks were recorded
+     */
+    long typicalMillis(String configuration) throws IOException {
+        return typicalMillis(configuration, RECENT);
+    }
+
+    /**
+     * Median duration of the given number of most recent checks with the given configuration that were not skipped.
+     *
+     * @return milliseconds, -1 if too few checks were recorded
+     */
+    long typicalMillis(String configuration, int recent) throws IOException {
+        List<Long> durations = new ArrayList<>();
+        List<Run> runs = read();
+        for (int i = runs.size() - 1; i >= 0 && durations.size() < recent; i--) {
+            Run run = runs.get(i);
+            if (!SKIPPED.equals(run.mode) && run.configuration.equals(configuration)) {
+                durations.add(run.millis);
+            }
+        }
+        if (durations.size() < MIN_RUNS) {
+            return -1;
+        }
+        Collections.sort(durations);
+        return durations.get(durations.size() / 2);
+    }
+
+    /**
+     * Number of checks with the given configuration that were not skipped, recorded after the last check with another
+     * configuration.
+     */
+    int runsSince(String configuration, String since) throws IOException {
+        int count = 0;
+        List<Run> runs = read();
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            Run run = runs.get(i);
+            if (run.configuration.equals(since) && !SKIPPED.equals(run.mode)) {
+                break;
+            }
+            if (!SKIPPED.equals(run.mode) && run.configuration.equals(configuration)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Append a check, dropping the oldest half of the history once it grows beyond its limit.
+     */
+    void append(Run run) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), Collections.singletonList(run.format()), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if (lines.size() > MAX_LINES) {
+            File temp = new File(file.getParentFile(), ".tmp-" + UUID.randomUUID() + "-" + file.getName());
+            try {
+                Files.write(temp.toPath(), lines.subList(lines.size() - MAX_LINES / 2, lines.size()),
+                        StandardCharsets.UTF_8);
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+}
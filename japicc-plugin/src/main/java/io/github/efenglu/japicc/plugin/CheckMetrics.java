@@ -0,0 +1,140 @@
+package io.github.efenglu.japicc.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timings of the phases of a module's check and counters such as jar sizes, class counts and cache hits.  Phases
+ * are also emitted as JFR events when running on a JVM with Flight Recorder.
+ */
+class CheckMetrics {
+    private final String module;
+    private final long start = System.nanoTime();
+    private volatile long end = -1;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    /**
+     * A running phase, ending it records its duration.
+     */
+    final class Phase {
+        private final String name;
+        private final Object event;
+        private final long phaseStart;
+
+        private Phase(String name) {
+            this.name = name;
+            this.event = JfrEvents.beginPhase(module, name);
+            this.phaseStart = System.nanoTime();
+        }
+
+        void end() {
+            addTime(name, System.nanoTime() - phaseStart);
+            JfrEvents.endPhase(event);
+        }
+    }
+
+    CheckMetrics(String module) {
+        this.module = module;
+    }
+
+    String getModule() {
+        return module;
+    }
+
+    /**
+     * Start timing a phase, end it in a finally block.  Phases with the same name accumulate.
+     */
+    Phase phase(String name) {
+        return new Phase(name);
+    }
+
+    synchronized void addTime(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    synchronized void count(String counter, long value) {
+        counters.put(counter, value);
+        JfrEvents.metric(module, counter, value);
+    }
+
+    synchronized void increment(String counter) {
+        counters.merge(counter, 1L, Long::sum);
+    }
+
+    synchronized long getCounter(String counter, long defaultValue) {
+        return counters.getOrDefault(counter, defaultValue);
+    }
+
+    /**
+     * Add the phases of another check, e.g. of an attached jar, to this check's phases and its counters with the
+     * given prefix to this check's counters.
+     */
+    void merge(CheckMetrics other, String prefix) {
+        Map<String, Long> otherPhases;
+        Map<String, Long> otherCounters;
+        synchronized (other) {
+            otherPhases = new LinkedHashMap<>(other.phases);
+            otherCounters = new LinkedHashMap<>(other.counters);
+        }
+        synchronized (this) {
+            otherPhases.forEach((phase, nanos) -> phases.merge(phase, nanos, Long::sum));
+            otherCounters.forEach((counter, value) -> counters.put(prefix + counter, value));
+        }
+    }
+
+    /**
+     * Milliseconds spent per phase, in the order the phases were first entered.
+     */
+    synchronized Map<String, Long> getPhaseMillis() {
+        Map<String, Long> millis = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            millis.put(phase.getKey(), phase.getValue() / 1_000_000);
+        }
+        return millis;
+    }
+
+    /**
+     * Stop the total time of the check.
+     */
+    void stop() {
+        if (end < 0) {
+            end = System.nanoTime();
+        }
+    }
+
+    long getElapsedMillis() {
+        return ((end < 0 ? System.nanoTime() : end) - start) / 1_000_000;
+    }
+
+    synchronized void write(File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("{\"module\":\"" + module.replace("\\", "\\\\").replace("\"", "\\\"") + "\",\n");
+            writer.write("\"totalMillis\":" + getElapsedMillis() + ",\n");
+            writer.write("\"phaseMillis\":");
+            writeMap(writer, getPhaseMillis());
+            writer.write(",\n\"counters\":");
+            writeMap(writer, counters);
+            writer.write("}\n");
+        }
+    }
+
+    private static void writeMap(Writer writer, Map<String, Long> values) throws IOException {
+        writer.write('{');
+        boolean first = true;
+        for (Map.Entry<String, Long> value : values.entrySet()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write("\"" + value.getKey() + "\":" + value.getValue());
+        }
+        writer.write('}');
+    }
+}
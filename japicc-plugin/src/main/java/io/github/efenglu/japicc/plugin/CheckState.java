@@ -0,0 +1,81 @@
+package io.github.efenglu.japicc.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Inputs of the last successful check of a module, stored in its build directory to detect up-to-date checks.
+ */
+class CheckState {
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String BASELINE = "baseline";
+    private static final String CONFIGURATION = "configuration";
+
+    private final String fingerprint;
+    private final String baseline;
+    private final String configuration;
+
+    CheckState(String fingerprint, String baseline, String configuration) {
+        this.fingerprint = fingerprint;
+        this.baseline = baseline;
+        this.configuration = configuration;
+    }
+
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * The stored state, or {@code null} if there is none or it can not be read.
+     */
+    static CheckState read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        return new CheckState(
+                properties.getProperty(FINGERPRINT),
+                properties.getProperty(BASELINE),
+                properties.getProperty(CONFIGURATION));
+    }
+
+    void write(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(FINGERPRINT, fingerprint);
+        properties.setProperty(BASELINE, baseline);
+        properties.setProperty(CONFIGURATION, configuration);
+        Files.createDirectories(file.getParentFile().toPath());
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            properties.store(out, "JAPICC last successful check");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CheckState)) {
+            return false;
+        }
+        CheckState that = (CheckState) o;
+        return Objects.equals(fingerprint, that.fingerprint)
+                && Objects.equals(baseline, that.baseline)
+                && Objects.equals(configuration, that.configuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fingerprint, baseline, configuration);
+    }
+}
@@ -0,0 +1,315 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A long-lived japi-compliance-checker worker shared by the modules of a build.  The daemon script loads the Perl
+ * modules of the checker once and forks a child per job; jobs are submitted over its standard input and their
+ * output is read from files while they run.
+ * <p>
+ * The daemon exits by itself when idle and is started again on demand.  If it dies while jobs are running they are
+ * submitted once more to a new daemon.  The number of jobs running or waiting is bounded, further submitters block.
+ */
+class CheckerDaemon {
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    private static final int ATTEMPTS = 2;
+    private static final Map<String, CheckerDaemon> DAEMONS = new HashMap<>();
+
+    private final List<String> command;
+    private final Semaphore slots;
+    private final AtomicLong ids = new AtomicLong();
+    private final Log log;
+    private Worker worker;
+
+    private CheckerDaemon(List<String> command, int queueSize, Log log) {
+        this.command = command;
+        this.slots = new Semaphore(queueSize, true);
+        this.log = log;
+    }
+
+    /**
+     * The daemon for a script and configuration, shared by all modules of the build.
+     *
+     * @param workers            number of jobs run at the same time
+     * @param queueSize          number of jobs running or waiting, further submitters block
+     * @param idleSeconds        seconds without jobs after which the daemon exits
+     * @param maxMemoryMegabytes cap of the virtual memory of every job, 0 for no limit
+     */
+    static synchronized CheckerDaemon get(String perlExec, File daemonScript, int workers, int queueSize,
+                                          long idleSeconds, long maxMemoryMegabytes, Log log) {
+        List<String> command = CheckerProcess.wrap(Arrays.asList(perlExec, daemonScript.getAbsolutePath(),
+                "--workers", String.valueOf(workers), "--idle", String.valueOf(idleSeconds)), maxMemoryMegabytes);
+        String key = command + "|" + queueSize;
+        return DAEMONS.computeIfAbsent(key, k -> new CheckerDaemon(command, Math.max(queueSize, workers), log));
+    }
+
+    /**
+     * Run the checker with the given arguments, forwarding its output to the log.
+     *
+     * @return the exit code
+     * @throws IOException            if the daemon can not be started or keeps failing
+     * @throws MojoExecutionException if the job times out or the build is interrupted
+     */
+    int run(List<String> arguments, Log jobLog, long timeoutSeconds) throws IOException, MojoExecutionException {
+        for (String argument : arguments) {
+            if (argument.indexOf('\n') >= 0) {
+                throw new IOException("Argument with line break can not be passed to the daemon: " + argument);
+            }
+        }
+        try {
+            if (!slots.tryAcquire()) {
+                jobLog.info("Waiting for the JAPICC daemon...");
+                slots.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        }
+        try {
+            IOException failure = null;
+            for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                try {
+                    return runOnce(arguments, jobLog, timeoutSeconds);
+                } catch (DaemonExitedException e) {
+                    jobLog.warn("JAPICC daemon exited unexpectedly, restarting");
+                    failure = e;
+                }
+            }
+            throw failure;
+        } finally {
+            slots.release();
+        }
+    }
+
+    private int runOnce(List<String> arguments, Log jobLog, long timeoutSeconds)
+            throws IOException, MojoExecutionException {
+        File out = Files.createTempFile("japicc-", ".out").toFile();
+        File err = Files.createTempFile("japicc-", ".err").toFile();
+        try {
+            Job job = new Job(ids.incrementAndGet());
+            Worker current = worker();
+            List<String> lines = new ArrayList<>();
+            lines.add(out.getAbsolutePath());
+            lines.add(err.getAbsolutePath());
+            lines.addAll(arguments);
+            jobLog.debug("Submitting JAPICC job " + job.id + ": " + arguments);
+            current.submit(job, lines);
+
+            Tail outTail = new Tail(out, jobLog::info);
+            Tail errTail = new Tail(err, jobLog::warn);
+            boolean killed = false;
+            while (!job.exited.await(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                outTail.poll(false);
+                errTail.poll(false);
+                // the timeout starts once the daemon runs the job, not while it is queued
+                long started = job.started;
+                if (!killed && timeoutSeconds > 0 && started != 0
+                        && System.nanoTime() - started > TimeUnit.SECONDS.toNanos(timeoutSeconds)) {
+                    current.kill(job);
+                    killed = true;
+                }
+            }
+            outTail.poll(true);
+            errTail.poll(true);
+            if (job.exitCode == null) {
+                throw new DaemonExitedException();
+            }
+            if (killed) {
+                throw new MojoExecutionException("JAPICC did not finish within " + timeoutSeconds + " seconds");
+            }
+            jobLog.info(String.format("JAPICC exited with %d after %.1f s (daemon)", job.exitCode,
+                    (System.nanoTime() - job.started) / 1e9));
+            return job.exitCode;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        } finally {
+            Files.deleteIfExists(out.toPath());
+            Files.deleteIfExists(err.toPath());
+        }
+    }
+
+    /**
+     * The running daemon process, started if it exited.
+     */
+    private synchronized Worker worker() throws IOException {
+        if (worker == null || !worker.isAlive()) {
+            log.debug("Starting JAPICC daemon: " + command);
+            worker = new Worker(new ProcessBuilder(command).start());
+        }
+        return worker;
+    }
+
+    private static final class Job {
+        private final long id;
+        private final CountDownLatch exited = new CountDownLatch(1);
+        private volatile long started;
+        private volatile Integer exitCode;
+
+        private Job(long id) {
+            this.id = id;
+        }
+    }
+
+    private static final class DaemonExitedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private DaemonExitedException() {
+            super("JAPICC daemon exited");
+        }
+    }
+
+    /**
+     * One daemon process and the jobs submitted to it.
+     */
+    private final class Worker {
+        private final Process process;
+        private final Writer input;
+        private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+        private volatile boolean exited;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            Thread responses = new Thread(this::readResponses, "japicc-daemon");
+            responses.setDaemon(true);
+            responses.start();
+            Thread errors = new Thread(() -> forward(process.getErrorStream(), log::debug), "japicc-daemon-err");
+            errors.setDaemon(true);
+            errors.start();
+        }
+
+        boolean isAlive() {
+            return !exited && process.isAlive();
+        }
+
+        synchronized void submit(Job job, List<String> lines) throws IOException {
+            jobs.put(job.id, job);
+            StringBuilder request = new StringBuilder("JOB ").append(job.id).append(' ').append(lines.size()).append('\n');
+            for (String line : lines) {
+                request.append(line).append('\n');
+            }
+            try {
+                input.write(request.toString());
+                input.flush();
+            } catch (IOException e) {
+                jobs.remove(job.id);
+                throw new DaemonExitedException();
+            }
+            if (exited) {
+                // the daemon went away before the job was registered
+                exit(job, null);
+            }
+        }
+
+        synchronized void kill(Job job) {
+            try {
+                input.write("KILL " + job.id + "\n");
+                input.flush();
+            } catch (IOException e) {
+                process.destroyForcibly();
+            }
+        }
+
+        private void readResponses() {
+            forward(process.getInputStream(), line -> {
+                String[] fields = line.split(" ");
+                if ("START".equals(fields[0]) && fields.length == 3) {
+                    Job job = jobs.get(Long.parseLong(fields[1]));
+                    if (job != null) {
+                        job.started = System.nanoTime();
+                    }
+                } else if ("EXIT".equals(fields[0]) && fields.length == 3) {
+                    Job job = jobs.get(Long.parseLong(fields[1]));
+                    if (job != null) {
+                        exit(job, Integer.parseInt(fields[2]));
+                    }
+                } else {
+                    log.debug("JAPICC daemon: " + line);
+                }
+            });
+            exited = true;
+            for (Job job : jobs.values()) {
+                exit(job, null);
+            }
+        }
+
+        private void exit(Job job, Integer exitCode) {
+            jobs.remove(job.id);
+            job.exitCode = exitCode;
+            job.exited.countDown();
+        }
+    }
+
+    private static void forward(InputStream stream, Consumer<String> sink) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sink.accept(line);
+            }
+        } catch (IOException e) {
+            // stream closed when the daemon exits
+        }
+    }
+
+    /**
+     * Forwards the complete lines appended to a file.
+     */
+    private static final class Tail {
+        private final File file;
+        private final Consumer<String> sink;
+        private long position;
+        private final StringBuilder partial = new StringBuilder();
+
+        private Tail(File file, Consumer<String> sink) {
+            this.file = file;
+            this.sink = sink;
+        }
+
+        void poll(boolean last) throws IOException {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                long length = in.length();
+                if (length > position) {
+                    byte[] bytes = new byte[(int) Math.min(length - position, Integer.MAX_VALUE)];
+                    in.seek(position);
+                    in.readFully(bytes);
+                    position += bytes.length;
+                    partial.append(new String(bytes, Charset.defaultCharset()));
+                }
+            }
+            int newline;
+            while ((newline = partial.indexOf("\n")) >= 0) {
+                sink.accept(partial.substring(0, newline));
+                partial.delete(0, newline + 1);
+            }
+            if (last && partial.length() > 0) {
+                sink.accept(partial.toString());
+                partial.setLength(0);
+            }
+        }
+    }
+}
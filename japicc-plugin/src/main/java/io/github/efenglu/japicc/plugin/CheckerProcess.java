@@ -0,0 +1,285 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs a checker command under supervision: its output is forwarded line by line to the Maven log, the run is
+ * aborted after a timeout, the virtual memory can be capped and on Linux the CPU time of the process tree and the
+ * peak resident memory of the process are sampled from {@code /proc}.
+ */
+class CheckerProcess {
+    private static final long SAMPLE_INTERVAL_MILLIS = 200;
+    private static final long DEFAULT_CLOCK_TICKS_PER_SECOND = 100;
+    private static volatile long clockTicksPerSecond;
+
+    private final List<String> command;
+    private final Log log;
+    private final long timeoutSeconds;
+    private final long maxMemoryMegabytes;
+
+    private volatile long peakResidentKilobytes = -1;
+    private volatile long cpuTicks = -1;
+
+    /**
+     * @param timeoutSeconds     seconds after which the process is killed, 0 for no limit
+     * @param maxMemoryMegabytes cap of the virtual memory of the process, 0 for no limit
+     */
+    CheckerProcess(List<String> command, Log log, long timeoutSeconds, long maxMemoryMegabytes) {
+        this.command = command;
+        this.log = log;
+        this.timeoutSeconds = timeoutSeconds;
+        this.maxMemoryMegabytes = maxMemoryMegabytes;
+    }
+
+    /**
+     * Run the command to completion.
+     *
+     * @return the exit code
+     * @throws MojoExecutionException if the process can not be started, times out or the build is interrupted
+     */
+    int run() throws MojoExecutionException {
+        ProcessBuilder builder = new ProcessBuilder(wrap(command, maxMemoryMegabytes));
+        log.debug("Executing JAPICC: " + builder.command());
+
+        long start = System.nanoTime();
+        Process process = null;
+        try {
+            process = builder.start();
+            Thread out = forward(process.getInputStream(), "out", log::info);
+            Thread err = forward(process.getErrorStream(), "err", log::warn);
+            long pid = pid(process);
+            boolean finished = supervise(process, pid, start);
+            if (!finished) {
+                // the javap processes started by the script would keep running once it is gone
+                List<Object> descendants = descendants(process);
+                process.destroy();
+                destroy(descendants, false);
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+                destroy(descendants, true);
+                throw new MojoExecutionException("JAPICC did not finish within " + timeoutSeconds + " seconds");
+            }
+            out.join(TimeUnit.SECONDS.toMillis(5));
+            err.join(TimeUnit.SECONDS.toMillis(5));
+            int exitCode = process.exitValue();
+            log.info(summary(exitCode, System.nanoTime() - start));
+            return exitCode;
+        } catch (IOException e) {
+            throw new MojoExecutionException("IO Error while validating", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        } finally {
+            if (process != null && process.isAlive()) {
+                List<Object> descendants = descendants(process);
+                process.destroyForcibly();
+                destroy(descendants, true);
+            }
+        }
+    }
+
+    /**
+     * Wait for the process while sampling its resource usage.
+     *
+     * @return whether the process finished before the timeout
+     */
+    private boolean supervise(Process process, long pid, long start) throws InterruptedException {
+        long deadline = timeoutSeconds > 0 ? start + TimeUnit.SECONDS.toNanos(timeoutSeconds) : Long.MAX_VALUE;
+        while (!process.waitFor(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (pid > 0) {
+                sample(pid);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run the command through a shell that sets the memory limit and then replaces itself with the command, so the
+     * limit applies and the process id stays the same.
+     */
+    static List<String> wrap(List<String> command, long maxMemoryMegabytes) {
+        if (maxMemoryMegabytes <= 0) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add("/bin/sh");
+        wrapped.add("-c");
+        wrapped.add("ulimit -v " + maxMemoryMegabytes * 1024 + " && exec \"$0\" \"$@\"");
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    private static Thread forward(InputStream stream, String name, Consumer<String> sink) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    sink.accept(line);
+                }
+            } catch (IOException e) {
+                // stream closed when the process is killed
+            }
+        }, "japicc-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Record peak resident memory and CPU time from {@code /proc}, if available.
+     */
+    private void sample(long pid) {
+        File proc = new File("/proc/" + pid);
+        try {
+            for (String line : Files.readAllLines(new File(proc, "status").toPath(), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmHWM:")) {
+                    long kilobytes = Long.parseLong(line.substring(6).replace("kB", "").trim());
+                    peakResidentKilobytes = Math.max(peakResidentKilobytes, kilobytes);
+                }
+            }
+            cpuTicks = Math.max(cpuTicks, treeTicks(pid, 0));
+        } catch (IOException | RuntimeException e) {
+            // not Linux or the process already exited
+        }
+    }
+
+    /**
+     * CPU time of a process, its terminated children and, recursively, its running children.  A child's time moves
+     * into the parent's cutime and cstime when it is reaped, so nothing is counted twice.
+     */
+    private static long treeTicks(long pid, int depth) throws IOException {
+        File proc = new File("/proc/" + pid);
+        String stat = new String(Files.readAllBytes(new File(proc, "stat").toPath()), StandardCharsets.UTF_8);
+        // fields after the parenthesized command name: state is field 3, utime 14, stime 15, cutime 16 and cstime 17
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12])
+                + Long.parseLong(fields[13]) + Long.parseLong(fields[14]);
+        File[] tasks = new File(proc, "task").listFiles();
+        if (tasks == null || depth > 16) {
+            return ticks;
+        }
+        for (File task : tasks) {
+            File children = new File(task, "children");
+            if (!children.isFile()) {
+                continue;
+            }
+            String list = new String(Files.readAllBytes(children.toPath()), StandardCharsets.UTF_8).trim();
+            for (String child : list.isEmpty() ? new String[0] : list.split(" ")) {
+                try {
+                    ticks += treeTicks(Long.parseLong(child), depth + 1);
+                } catch (IOException e) {
+                    // the child exited meanwhile, its time is counted by the parent
+                }
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * Clock ticks per second of the CPU times in {@code /proc}, as reported by {@code getconf CLK_TCK}.
+     */
+    private static long clockTicksPerSecond() {
+        if (clockTicksPerSecond == 0) {
+            long ticks = DEFAULT_CLOCK_TICKS_PER_SECOND;
+            try {
+                Process getconf = new ProcessBuilder("getconf", "CLK_TCK").redirectErrorStream(true).start();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(getconf.getInputStream(),
+                        StandardCharsets.UTF_8))) {
+                    String line = reader.readLine();
+                    if (getconf.waitFor(5, TimeUnit.SECONDS) && getconf.exitValue() == 0 && line != null) {
+                        ticks = Long.parseLong(line.trim());
+                    }
+                } finally {
+                    getconf.destroyForcibly();
+                }
+            } catch (IOException | RuntimeException e) {
+                // keep the default of Linux
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            clockTicksPerSecond = ticks > 0 ? ticks : DEFAULT_CLOCK_TICKS_PER_SECOND;
+        }
+        return clockTicksPerSecond;
+    }
+
+    private String summary(int exitCode, long elapsedNanos) {
+        StringBuilder summary = new StringBuilder("JAPICC exited with ").append(exitCode)
+                .append(String.format(" after %.1f s", elapsedNanos / 1e9));
+        if (cpuTicks >= 0) {
+            summary.append(String.format(", CPU %.1f s", cpuTicks / (double) clockTicksPerSecond()));
+        }
+        if (peakResidentKilobytes >= 0) {
+            summary.append(", peak memory ").append(peakResidentKilobytes / 1024).append(" MB");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * The running descendants of a process as {@code ProcessHandle}s on Java 9 and later, none on Java 8.
+     */
+    private static List<Object> descendants(Process process) {
+        try {
+            Stream<?> descendants = (Stream<?>) Process.class.getMethod("descendants").invoke(process);
+            return descendants.collect(Collectors.toList());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static void destroy(List<Object> handles, boolean forcibly) {
+        if (handles.isEmpty()) {
+            return;
+        }
+        try {
+            Method destroy = Class.forName("java.lang.ProcessHandle").getMethod(forcibly ? "destroyForcibly" : "destroy");
+            for (Object handle : handles) {
+                destroy.invoke(handle);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the processes exited or can not be signalled
+        }
+    }
+
+    /**
+     * Process id through {@code Process.pid()} on Java 9 and later or the private field of the Java 8 Unix
+     * implementation, -1 if neither is available.
+     */
+    private static long pid(Process process) {
+        try {
+            Method pid = Process.class.getMethod("pid");
+            return (Long) pid.invoke(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+        }
+        try {
+            Field pid = process.getClass().getDeclaredField("pid");
+            pid.setAccessible(true);
+            return pid.getInt(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A directory of immutable, content-addressed entries bounded in size.  Entries are published with an atomic rename
+ * so concurrent builds never observe partial files, and the least recently used entries are evicted once the
+ * directory grows beyond its limit.
+ * <p>
+ * A cache may be backed by a {@link DumpStore} shared with other machines: entries missing locally are read from the
+ * store, new entries are published to it.  Failures of the store only cost the sharing, never the build.
+ * <p>
+ * Entries handed out are read later, possibly by another process, so they are not evicted during the build that
+ * uses them.
+ */
+class ContentCache {
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Map<Object, Set<File>> IN_USE = new WeakHashMap<>();
+
+    /**
+     * Produces the content of a new entry.
+     */
+    interface EntryWriter {
+        void write(File file) throws IOException;
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final Log log;
+    private final DumpStore store;
+    private final Set<File> inUse;
+
+    ContentCache(File directory, long maxBytes, Log log) {
+        this(directory, maxBytes, log, null, ConcurrentHashMap.<File>newKeySet());
+    }
+
+    /**
+     * @param inUse the entries handed out during the build, shared by the caches of the build
+     */
+    ContentCache(File directory, long maxBytes, Log log, DumpStore store, Set<File> inUse) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.log = log;
+        this.store = store;
+        this.inUse = inUse;
+    }
+
+    /**
+     * The entries handed out during a build.  Keyed by the execution request, which is shared by the per project
+     * copies of the session in parallel builds.
+     */
+    static synchronized Set<File> inUse(MavenSession session) {
+        return IN_USE.computeIfAbsent(session.getRequest(), request -> ConcurrentHashMap.newKeySet());
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Return the entry with the given name, marking it as recently used, or {@code null} if it is not cached.
+     */
+    File get(String name) {
+        File file = new File(directory, name);
+        if (!file.isFile()) {
+            return fetch(name);
+        }
+        inUse.add(file);
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            log.debug("Failed to update access time of " + file);
+        }
+        // evicted by a concurrent build before it was marked in use
+        return file.isFile() ? file : fetch(name);
+    }
+
+    /**
+     * Create an entry.  The writer fills a temporary file that is then renamed into place.  Entries are immutable,
+     * so a concurrent build publishing the same name simply replaces it with identical content.
+     */
+    File put(String name, EntryWriter writer) throws IOException {
+        Files.createDirectories(directory.toPath());
+        File temp = new File(directory, TEMP_PREFIX + UUID.randomUUID() + "-" + name);
+        File file = new File(directory, name);
+        try {
+            writer.write(temp);
+            move(temp, file);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        inUse.add(file);
+        evict(file);
+        if (store != null) {
+            try {
+                store.publish(name, file);
+            } catch (IOException e) {
+                log.warn("Failed to publish " + name + " to dump store " + store + ": " + e.getMessage());
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Copy an entry from the dump store into the cache.
+     */
+    private File fetch(String name) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory.toPath());
+            File temp = new File(directory, TEMP_PREFIX + UUID.randomUUID() + "-" + name);
+            File file = new File(directory, name);
+            try {
+                if (!store.fetch(name, temp)) {
+                    return null;
+                }
+                move(temp, file);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+            log.debug("Fetched " + name + " from dump store " + store);
+            inUse.add(file);
+            evict(file);
+            return file;
+        } catch (IOException e) {
+            log.warn("Failed to read " + name + " from dump store " + store + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void move(File temp, File file) throws IOException {
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Delete least recently used entries until the cache fits its limit.  The given entry and the entries handed out
+     * during the build are never evicted.
+     */
+    void evict(File keep) {
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        for (File file : files) {
+            // read once, concurrent reads of the cache update the access times while the entries are sorted
+            long lastModified = file.lastModified();
+            if (file.getName().startsWith(TEMP_PREFIX)) {
+                if (now - lastModified > STALE_TEMP_MILLIS && file.delete()) {
+                    log.debug("Deleted stale temporary cache file " + file);
+                }
+                continue;
+            }
+            Entry entry = new Entry(file, lastModified, file.length());
+            entries.add(entry);
+            total += entry.length;
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(e -> e.lastModified));
+        for (Entry entry : sorted) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (entry.file.equals(keep) || inUse.contains(entry.file)) {
+                continue;
+            }
+            if (entry.file.delete()) {
+                total -= entry.length;
+                log.debug("Evicted " + entry.file + " from cache");
+            }
+        }
+    }
+
+    /**
+     * An entry as seen when the eviction started.
+     */
+    private static final class Entry {
+        private final File file;
+        private final long lastModified;
+        private final long length;
+
+        private Entry(File file, long lastModified, long length) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.efenglu.japicc.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * A dump store in a shared directory, e.g. on NFS.  Entries are spread over subdirectories named after the first
+ * characters of their name and published by renaming a complete temporary file into place, which is atomic within a
+ * directory on local file systems and NFS alike.  Entries are never deleted by the plugin.
+ */
+class DirectoryDumpStore implements DumpStore {
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    private final File directory;
+
+    DirectoryDumpStore(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean fetch(String name, File file) throws IOException {
+        File entry = entry(name);
+        if (!entry.isFile()) {
+            return false;
+        }
+        Files.copy(entry.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    @Override
+    public void publish(String name, File file) throws IOException {
+        File entry = entry(name);
+        if (entry.isFile()) {
+            return;
+        }
+        Files.createDirectories(entry.getParentFile().toPath());
+        File temp = new File(entry.getParentFile(), TEMP_PREFIX + UUID.randomUUID() + "-" + name);
+        try {
+            Files.copy(file.toPath(), temp.toPath());
+            try {
+                Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), entry.toPath());
+            }
+        } catch (FileAlreadyExistsException e) {
+            // published concurrently by another build, entries are immutable
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private File entry(String name) {
+        return new File(new File(directory, name.substring(0, Math.min(2, name.length()))), name);
+    }
+
+    @Override
+    public String toString() {
+        return directory.toString();
+    }
+}
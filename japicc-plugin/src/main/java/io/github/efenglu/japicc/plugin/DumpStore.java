@@ -0,0 +1,38 @@
+package io.github.efenglu.japicc.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * A store of API dumps shared by several machines, backing the local dump cache.  Entries are immutable and named by
+ * the key of their content, so a published entry never changes and can be read without coordination.
+ */
+interface DumpStore {
+    /**
+     * Copy an entry into the given file.
+     *
+     * @return whether the store holds the entry
+     */
+    boolean fetch(String name, File file) throws IOException;
+
+    /**
+     * Publish an entry, unless the store already holds it.  Readers never observe a partially published entry.
+     */
+    void publish(String name, File file) throws IOException;
+
+    /**
+     * Open the store at a location: a directory path or a {@code file:} URI.
+     *
+     * @throws IllegalArgumentException if the location uses an unsupported scheme
+     */
+    static DumpStore open(String location) {
+        if (location.startsWith("file:")) {
+            return new DirectoryDumpStore(new File(URI.create(location)));
+        }
+        if (location.matches("[A-Za-z][A-Za-z0-9+.-]+:.*") && !new File(location).isAbsolute()) {
+            throw new IllegalArgumentException("Unsupported dump store " + location);
+        }
+        return new DirectoryDumpStore(new File(location));
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a module's checks with the analysis chosen from its {@link CheckHistory}, records them and warns about checks
+ * slower than usual.  A failing history never fails the check.
+ * <p>
+ * Under a time budget, snapshots of modules whose recent full analyses took longer run the reduced analysis.  The
+ * reduced checks are recorded under their own configuration, so every {@value #REDUCED_RUNS}th check runs the full
+ * analysis again to keep its duration current.
+ */
+class HistoryRecorder {
+    /**
+     * Quick analyses of a module exceeding the time budget after which the full analysis runs again.
+     */
+    static final int REDUCED_RUNS = 10;
+
+    /**
+     * A check of a module.
+     */
+    interface Check {
+        boolean run() throws MojoExecutionException;
+    }
+
+    /**
+     * The key of the effective configuration of a module's check, depending on whether it runs reduced.
+     */
+    interface ConfigurationKey {
+        String of(ModuleContext module) throws MojoExecutionException;
+    }
+
+    private final File directory;
+    private final String engine;
+    private final ConfigurationKey configurationKey;
+    private long timeBudget;
+    private int durationRegression = 50;
+
+    /**
+     * @param directory directory of the histories, by group id
+     */
+    HistoryRecorder(File directory, String engine, ConfigurationKey configurationKey) {
+        this.directory = directory;
+        this.engine = engine;
+        this.configurationKey = configurationKey;
+    }
+
+    /**
+     * Seconds a check of a snapshot may usually take before it runs the reduced analysis, 0 for no limit.
+     */
+    void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Percentage by which a check may exceed the median duration of the recent checks before a warning is logged.
+     */
+    void setDurationRegression(int durationRegression) {
+        this.durationRegression = durationRegression;
+    }
+
+    /**
+     * The history of a module's checks.  Attached jars have their own history, their checks differ from the main
+     * jar's and run concurrently.
+     */
+    CheckHistory history(ModuleContext module) {
+        MavenProject project = module.getProject();
+        String name = module.getClassifier() == null
+                ? project.getArtifactId()
+                : project.getArtifactId() + "-" + module.getClassifier();
+        return new CheckHistory(new File(directory, project.getGroupId() + "/" + name + ".tsv"));
+    }
+
+    /**
+     * Run and record a module's check.
+     *
+     * @param baseline    the compared versions, as recorded
+     * @param comparisons number of comparisons of the check, all of them skipped marks the check as skipped
+     * @return whether the new jar is compatible
+     */
+    boolean run(ModuleContext module, String baseline, int comparisons, Check check) throws MojoExecutionException {
+        CheckHistory checkHistory = history(module);
+        String configuration;
+        try {
+            configuration = chooseAnalysis(module, checkHistory);
+        } catch (IOException e) {
+            module.getLog().warn("Failed to read check history " + checkHistory.getFile() + ": " + e.getMessage());
+            return check.run();
+        }
+
+        long start = System.nanoTime();
+        boolean compatible = check.run();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        CheckMetrics metrics = module.getMetrics();
+        boolean skipped = metrics.getCounter("upToDate.skipped", 0) + metrics.getCounter("upToDate.identical", 0)
+                >= comparisons;
+        String mode = skipped ? CheckHistory.SKIPPED : module.isReduced() ? CheckHistory.REDUCED : CheckHistory.FULL;
+        try {
+            long typical = skipped ? -1 : checkHistory.typicalMillis(configuration);
+            // differences of less than a second are noise of the build machine
+            if (typical >= 0 && millis > typical * (100 + durationRegression) / 100 && millis - typical >= 1000) {
+                module.getLog().warn("Check took " + millis + " ms, usually " + typical + " ms, see "
+                        + checkHistory.getFile());
+            }
+            checkHistory.append(new CheckHistory.Run(System.currentTimeMillis(), millis, mode, engine, baseline,
+                    metrics.getCounter("newJar.classes", -1), metrics.getCounter("baselineJar.classes", -1),
+                    configuration));
+        } catch (IOException e) {
+            module.getLog().warn("Failed to record check history " + checkHistory.getFile() + ": " + e.getMessage());
+        }
+        return compatible;
+    }
+
+    /**
+     * Mark the module reduced if its checks exceed the time budget.
+     *
+     * @return the key of the configuration the module is checked with
+     */
+    private String chooseAnalysis(ModuleContext module, CheckHistory checkHistory)
+            throws IOException, MojoExecutionException {
+        String configuration = configurationKey.of(module);
+        if (timeBudget <= 0) {
+            return configuration;
+        }
+        // the full analyses only are recorded under the full configuration, decide by the latest of them
+        long typical = checkHistory.typicalMillis(configuration, CheckHistory.MIN_RUNS);
+        module.setReduced(true);
+        String reducedConfiguration = configurationKey.of(module);
+        module.setReduced(false);
+        if (!module.getProject().getVersion().endsWith("-SNAPSHOT")) {
+            module.getLog().debug("Release version, running the full analysis");
+        } else if (typical > TimeUnit.SECONDS.toMillis(timeBudget)) {
+            if (checkHistory.runsSince(reducedConfiguration, configuration) >= REDUCED_RUNS) {
+                module.getLog().info("Checks usually take " + typical / 1000 + " s, more than the time budget of "
+                        + timeBudget + " s, running the full analysis to update its duration");
+            } else {
+                module.setReduced(true);
+                module.getLog().info("Checks usually take " + typical / 1000 + " s, more than the time budget of "
+                        + timeBudget + " s, running the quick analysis");
+                return reducedConfiguration;
+            }
+        }
+        return configuration;
+    }
+}
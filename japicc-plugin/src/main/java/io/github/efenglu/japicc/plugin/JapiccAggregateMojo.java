@@ -0,0 +1,195 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks every module of the reactor using the plugin in one execution.  Each module is compared against the previous
+ * versions selected by its own configuration of the plugin, unless it skips the check.  Everything else affecting the
+ * comparison, the engine, API snapshots, filters and reports, is configured on this goal for all modules.  Baselines of all modules are
+ * resolved up front and the comparisons run on a bounded worker pool, followed by a single summary of all modules; a
+ * module whose check can not run is reported as an error without stopping the others.
+ * <p>
+ * The goal has no default phase, bound to a phase it would run before the modules are packaged.  Run it from the
+ * command line after the modules have been packaged, e.g. {@code mvn package japicc:check-aggregate}.
+ */
+@Mojo(name = "check-aggregate",
+        aggregator = true,
+        threadSafe = true)
+public class JapiccAggregateMojo extends AbstractJapiccMojo {
+
+    /**
+     * Number of modules checked concurrently, 0 uses the number of available processors
+     */
+    @Parameter(defaultValue = "0", property = "japicc.threads")
+    private int threads;
+
+    private enum Status {
+        PASSED, FAILED, SKIPPED, ERROR
+    }
+
+    private static final class ModuleResult {
+        private final Status status;
+        private final String message;
+
+        private ModuleResult(Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping");
+            return;
+        }
+
+        if (!checkEnvironment()) {
+            return;
+        }
+
+        Map<MavenProject, ModuleResult> results = new LinkedHashMap<>();
+        Map<ModuleContext, BaselineConfiguration> modules = new LinkedHashMap<>();
+        Map<MavenProject, BaselineConfiguration> checked = new LinkedHashMap<>();
+        for (MavenProject module : checkedModules()) {
+            BaselineConfiguration configuration = BaselineConfiguration.of(session, module, plugin.getPluginLookupKey())
+                    .withApiSnapshots(isUsingApiSnapshots());
+            File newApi = getNewApi(module);
+            if (configuration.isSkip()) {
+                results.put(module, new ModuleResult(Status.SKIPPED, "skip"));
+            } else if (newApi == null) {
+                results.put(module, new ModuleResult(Status.SKIPPED, "no jar"));
+            } else {
+                results.put(module, null);
+                checked.put(module, configuration);
+                modules.put(ModuleContext.of(module, new PrefixedLog(getLog(), "[" + module.getArtifactId() + "] "), newApi),
+                        configuration);
+            }
+        }
+
+        long resolveStart = System.nanoTime();
+        prefetchBaselines(checked);
+        getLog().debug("Resolved previous artifacts in " + (System.nanoTime() - resolveStart) / 1_000_000 + " ms");
+
+        int poolSize = Math.max(1, Math.min(modules.size(),
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, workerFactory());
+        try {
+            Map<ModuleContext, Future<ModuleResult>> checks = new LinkedHashMap<>();
+            for (Map.Entry<ModuleContext, BaselineConfiguration> entry : modules.entrySet()) {
+                checks.put(entry.getKey(), executor.submit(() -> check(entry.getKey(), entry.getValue())));
+            }
+            for (Map.Entry<ModuleContext, Future<ModuleResult>> entry : checks.entrySet()) {
+                ModuleContext module = entry.getKey();
+                try {
+                    results.put(module.getProject(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    module.getLog().error("Check failed", e.getCause());
+                    results.put(module.getProject(), new ModuleResult(Status.ERROR, e.getCause().getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeMetrics(new ArrayList<>(modules.keySet()));
+        report(results);
+    }
+
+    /**
+     * Check a module against the previous versions selected by its configuration, the way its check goal would.
+     */
+    private ModuleResult check(ModuleContext module, BaselineConfiguration configuration) {
+        try {
+            if (majorVersion(module.getProject().getVersion()) == 0) {
+                return new ModuleResult(Status.SKIPPED, "pre-release");
+            }
+            List<Artifact> baselines = resolveBaselines(module.getProject(), configuration, module.getMetrics(),
+                    module.getLog());
+            if (baselines == null) {
+                return new ModuleResult(Status.SKIPPED, "first in series");
+            }
+            Map<String, Boolean> results = checkAll(module, configuration, baselines);
+            String report = baselines.size() == 1 && results.size() == 1
+                    ? module.getReportPath().toString()
+                    : module.getReportPath().getParentFile().toString();
+            return new ModuleResult(results.containsValue(false) ? Status.FAILED : Status.PASSED, report);
+        } catch (MojoExecutionException | RuntimeException e) {
+            module.getLog().error("Check failed", e);
+            return new ModuleResult(Status.ERROR, e.getMessage());
+        }
+    }
+
+    private void writeMetrics(List<ModuleContext> modules) {
+        List<CheckMetrics> metrics = new ArrayList<>();
+        for (ModuleContext module : modules) {
+            module.getMetrics().stop();
+            metrics.add(module.getMetrics());
+            try {
+                module.getMetrics().write(module.getMetricsPath());
+            } catch (IOException e) {
+                module.getLog().warn("Failed to write " + module.getMetricsPath() + ": " + e.getMessage());
+            }
+        }
+        SessionMetrics.logSummary(getLog(), metrics);
+    }
+
+    private void report(Map<MavenProject, ModuleResult> results) throws MojoFailureException {
+        int failed = 0;
+        int errors = 0;
+        getLog().info("JAPICC Summary:");
+        for (Map.Entry<MavenProject, ModuleResult> entry : results.entrySet()) {
+            ModuleResult result = entry.getValue();
+            String line = String.format("  %-40s %-8s %s", entry.getKey().getArtifactId(), result.status, result.message);
+            switch (result.status) {
+                case FAILED:
+                    failed++;
+                    getLog().error(line);
+                    break;
+                case ERROR:
+                    errors++;
+                    getLog().error(line);
+                    break;
+                default:
+                    getLog().info(line);
+            }
+        }
+        if (failed + errors > 0) {
+            String message = "JAPICC Validation FAILED for " + failed + " module(s), " + errors + " error(s)";
+            if (failOnError) {
+                throw new MojoFailureException(message);
+            } else {
+                getLog().warn(message + ", failOnError: " + failOnError);
+            }
+        }
+    }
+
+    private static ThreadFactory workerFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "japicc-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
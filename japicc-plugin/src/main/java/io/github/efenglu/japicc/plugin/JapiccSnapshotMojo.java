@@ -0,0 +1,57 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiSnapshot;
+import io.github.efenglu.japicc.plugin.classfile.ClassFormatException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.project.MavenProjectHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Attaches the API of the module's jar as a compact binary snapshot with the classifier {@code api-snapshot}.  Once
+ * deployed with a release, later checks with the java engine download the snapshot instead of the jar and skip
+ * analyzing it.
+ */
+@Mojo(name = "snapshot",
+        defaultPhase = LifecyclePhase.PACKAGE,
+        threadSafe = true)
+public class JapiccSnapshotMojo extends AbstractJapiccMojo {
+    @Component
+    private MavenProjectHelper projectHelper;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping");
+            return;
+        }
+        if (!"jar".equals(project.getPackaging())) {
+            getLog().info("Does not support packaging type: " + project.getPackaging() + ", skipping");
+            return;
+        }
+        File jar = getNewApi(project);
+        if (jar == null) {
+            getLog().warn("No jar, skipping");
+            return;
+        }
+        File snapshot = new File(project.getBuild().getDirectory(),
+                project.getBuild().getFinalName() + "-" + SNAPSHOT_CLASSIFIER + "." + SNAPSHOT_EXTENSION);
+        try {
+            long start = System.nanoTime();
+            ApiModel model = ApiModel.load(jar);
+            Files.createDirectories(snapshot.getParentFile().toPath());
+            ApiSnapshot.write(model, snapshot);
+            getLog().info("API snapshot of " + model.size() + " classes written to " + snapshot + " ("
+                    + snapshot.length() / 1024 + " KB) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException | ClassFormatException e) {
+            throw new MojoExecutionException("Failed to write API snapshot of " + jar, e);
+        }
+        projectHelper.attachArtifact(project, SNAPSHOT_EXTENSION, SNAPSHOT_CLASSIFIER, snapshot);
+    }
+}
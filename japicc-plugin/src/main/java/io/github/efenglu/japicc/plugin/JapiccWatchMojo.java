@@ -0,0 +1,361 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.api.ApiClass;
+import io.github.efenglu.japicc.plugin.api.ApiDiff;
+import io.github.efenglu.japicc.plugin.api.ApiFilter;
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+import io.github.efenglu.japicc.plugin.classfile.ClassFormatException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the API of the previous version in memory and re-checks the compiled classes whenever they change, printing
+ * the incompatibilities that appeared or were resolved.  Only the changed types and the types inheriting from or
+ * nested in them are compared again.  Runs until interrupted, compile from the IDE or another terminal:
+ * <pre>
+ * mvn compile japicc:watch
+ * </pre>
+ * Always uses the java engine, and compares against the first of the configured previous versions only.
+ */
+@Mojo(name = "watch",
+        requiresDependencyResolution = ResolutionScope.TEST,
+        threadSafe = true)
+public class JapiccWatchMojo extends JapiccMojo {
+    /**
+     * Milliseconds to wait for further class file changes before checking, so a compilation is checked once
+     */
+    @Parameter(defaultValue = "300", property = "japicc.watchDelay")
+    private long watchDelay = 300;
+
+    private final Map<String, ApiClass> classes = new HashMap<>();
+    private final Map<String, String> digests = new HashMap<>();
+    private final Map<String, List<ApiProblem>> problems = new TreeMap<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping");
+            return;
+        }
+        if (!"jar".equals(project.getPackaging())) {
+            getLog().info("Does not support packaging type: " + project.getPackaging() + ", skipping");
+            return;
+        }
+        if (!JAVA_ENGINE.equals(engine)) {
+            getLog().warn("The watch goal always uses the java engine, ignoring engine " + engine);
+        }
+        // a single module is watched, the baselines of the other modules are not needed
+        List<Artifact> baselines = resolveBaselines(project, baselineConfiguration(),
+                new CheckMetrics(project.getArtifactId()), getLog());
+        if (baselines == null) {
+            return;
+        }
+        Artifact baseline = baselines.get(0);
+        if (baselines.size() > 1) {
+            getLog().warn("Watching against " + baseline + " only, the other " + (baselines.size() - 1)
+                    + " previous versions are checked by the check goal");
+        }
+        Path root = new File(project.getBuild().getOutputDirectory()).toPath();
+        ModuleContext module = ModuleContext.of(project, getLog(), root.toFile());
+        // the exports are read once, restart the goal after changing module-info
+        ApiFilter filter = createApiFilter();
+        filter.setExportedPackages(exportedPackages(module, baseline.getFile()));
+        ApiDiff diff = new ApiDiff(filter);
+        ProblemThreshold threshold = getThreshold();
+        ApiModel oldModel;
+        try {
+            oldModel = loadBaselineModel(module, baseline.getFile());
+        } catch (IOException | ClassFormatException e) {
+            throw new MojoExecutionException("Failed to read " + baseline, e);
+        }
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            Files.createDirectories(root);
+            register(watcher, root);
+            Set<Path> initial = classFiles(root);
+            long start = System.nanoTime();
+            update(root, initial);
+            check(diff, oldModel, oldModel.names(), threshold, false);
+            getLog().info("Watching " + root + " against " + baseline + ": " + count() + " incompatibilities, checked "
+                    + classes.size() + " classes in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean lost = !collect(watcher, watcher.take(), changed);
+                WatchKey next;
+                while ((next = watcher.poll(watchDelay, TimeUnit.MILLISECONDS)) != null) {
+                    lost |= !collect(watcher, next, changed);
+                }
+                if (lost) {
+                    getLog().info("Change events lost, reading all classes");
+                    register(watcher, root);
+                    changed = classFiles(root);
+                }
+                start = System.nanoTime();
+                Set<String> checked = recheck(diff, oldModel, root, changed, threshold, lost);
+                if (checked.isEmpty()) {
+                    continue;
+                }
+                getLog().info(count() + " incompatibilities, checked " + checked.size() + " of " + classes.size()
+                        + " classes in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+            getLog().info("Stopped watching");
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to watch " + root, e);
+        }
+    }
+
+    /**
+     * Read the changed class files and compare the affected classes again.
+     *
+     * @param lost whether change events were lost: the files are all class files, and every class of the previous
+     *             version is compared again since deleted classes left no event
+     * @return the names of the compared classes, empty if no class changed
+     */
+    Set<String> recheck(ApiDiff diff, ApiModel oldModel, Path root, Set<Path> files, ProblemThreshold threshold,
+                        boolean lost) {
+        if (lost) {
+            classes.clear();
+            digests.clear();
+        }
+        Set<String> types = update(root, files);
+        Set<String> names;
+        if (lost) {
+            names = new LinkedHashSet<>(oldModel.names());
+        } else if (types.isEmpty()) {
+            return Collections.emptySet();
+        } else {
+            names = affected(oldModel, types);
+        }
+        check(diff, oldModel, names, threshold, true);
+        return names;
+    }
+
+    /**
+     * The current problems by class name.
+     */
+    Map<String, List<ApiProblem>> getProblems() {
+        return Collections.unmodifiableMap(problems);
+    }
+
+    /**
+     * Compare the given classes again and report how their problems changed.
+     */
+    private void check(ApiDiff diff, ApiModel oldModel, Iterable<String> names, ProblemThreshold threshold,
+                       boolean report) {
+        ApiModel newModel = new ApiModel(classes);
+        for (String name : names) {
+            List<ApiProblem> current = new ArrayList<>();
+            diff.compareClass(oldModel, newModel, name, current::add);
+            List<ApiProblem> previous = problems.getOrDefault(name, new ArrayList<>());
+            if (report) {
+                for (ApiProblem problem : current) {
+                    if (!previous.contains(problem)) {
+                        if (threshold.matches(problem)) {
+                            getLog().warn("NEW " + problem);
+                        } else {
+                            getLog().info("NEW " + problem);
+                        }
+                    }
+                }
+                for (ApiProblem problem : previous) {
+                    if (!current.contains(problem)) {
+                        getLog().info("RESOLVED " + problem);
+                    }
+                }
+            } else {
+                for (ApiProblem problem : current) {
+                    getLog().warn(problem.toString());
+                }
+            }
+            if (current.isEmpty()) {
+                problems.remove(name);
+            } else {
+                problems.put(name, current);
+            }
+        }
+    }
+
+    /**
+     * The changed classes and every class of the previous version whose result depends on them: subclasses,
+     * implementations and nested classes.
+     */
+    private Set<String> affected(ApiModel oldModel, Set<String> changed) {
+        ApiModel newModel = new ApiModel(classes);
+        Set<String> affected = new LinkedHashSet<>(changed);
+        for (ApiClass oldClass : oldModel.classes().values()) {
+            if (dependsOn(oldModel, oldClass, changed)) {
+                affected.add(oldClass.name());
+                continue;
+            }
+            ApiClass newClass = newModel.get(oldClass.name());
+            if (newClass != null && dependsOn(newModel, newClass, changed)) {
+                affected.add(oldClass.name());
+            }
+        }
+        return affected;
+    }
+
+    private static boolean dependsOn(ApiModel model, ApiClass apiClass, Set<String> changed) {
+        for (String superName : model.superClasses(apiClass)) {
+            if (changed.contains(superName)) {
+                return true;
+            }
+        }
+        for (String interfaceName : model.allInterfaces(apiClass)) {
+            if (changed.contains(interfaceName)) {
+                return true;
+            }
+        }
+        for (String outer = apiClass.outerName(); outer != null; ) {
+            if (changed.contains(outer)) {
+                return true;
+            }
+            ApiClass outerClass = model.get(outer);
+            outer = outerClass == null ? null : outerClass.outerName();
+        }
+        return false;
+    }
+
+    /**
+     * Read the changed class files into the model.
+     *
+     * @return the names of the classes that changed
+     */
+    private Set<String> update(Path root, Set<Path> files) {
+        Set<String> names = new HashSet<>();
+        for (Path file : files) {
+            String relative = root.relativize(file).toString().replace(File.separatorChar, '/');
+            if (!ApiModel.isClassEntry(relative)) {
+                continue;
+            }
+            String name = relative.substring(0, relative.length() - ".class".length()).replace('/', '.');
+            try {
+                byte[] bytes = Files.readAllBytes(file);
+                // a rebuild rewrites unchanged classes with the same content
+                String digest = Digests.hex(Digests.sha256().digest(bytes));
+                if (!digest.equals(digests.get(name))) {
+                    ApiClass apiClass = ApiClass.of(ClassFile.parse(bytes));
+                    classes.put(apiClass.name(), apiClass);
+                    digests.put(name, digest);
+                    names.add(apiClass.name());
+                }
+            } catch (NoSuchFileException e) {
+                digests.remove(name);
+                if (classes.remove(name) != null) {
+                    names.add(name);
+                }
+            } catch (IOException | ClassFormatException e) {
+                // the compiler may still be writing the file, a later event reads it again
+                getLog().debug("Failed to read " + file + ": " + e.getMessage());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Add the class files named by the events of a key to the changed files, registering new directories.
+     *
+     * @return false if events were lost
+     */
+    private boolean collect(WatchService watcher, WatchKey key, Set<Path> changed) throws IOException {
+        Path directory = directories.get(key);
+        boolean complete = true;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                complete = false;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                register(watcher, path);
+                changed.addAll(classFiles(path));
+            } else if (path.toString().endsWith(".class")) {
+                changed.add(path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // a deleted package directory, its classes are gone
+                String prefix = path.toString() + File.separator;
+                for (Path known : knownFiles(directory)) {
+                    if (known.toString().startsWith(prefix)) {
+                        changed.add(known);
+                    }
+                }
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return complete;
+    }
+
+    /**
+     * Class files of the model below a directory, used when the directory was deleted.
+     */
+    private Set<Path> knownFiles(Path directory) {
+        Path root = new File(project.getBuild().getOutputDirectory()).toPath();
+        Set<Path> files = new HashSet<>();
+        for (String name : classes.keySet()) {
+            Path file = root.resolve(name.replace('.', File.separatorChar) + ".class");
+            if (file.startsWith(directory)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private void register(WatchService watcher, Path directory) throws IOException {
+        List<Path> tree;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            tree = walk.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (Path path : tree) {
+            WatchKey key = path.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            directories.put(key, path);
+        }
+    }
+
+    private static Set<Path> classFiles(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+
+    private int count() {
+        return problems.values().stream().mapToInt(List::size).sum();
+    }
+}
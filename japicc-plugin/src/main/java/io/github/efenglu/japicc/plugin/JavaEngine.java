@@ -0,0 +1,172 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.api.ApiDiff;
+import io.github.efenglu.japicc.plugin.api.ApiFilter;
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import io.github.efenglu.japicc.plugin.report.HtmlReport;
+import io.github.efenglu.japicc.plugin.report.JsonResult;
+import io.github.efenglu.japicc.plugin.report.PagedHtmlReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Compares two API models inside the Maven JVM and writes the result and the reports of a module's comparison.
+ */
+class JavaEngine {
+    static final String NAME = "java";
+
+    private final ProblemThreshold threshold;
+    private boolean gating;
+    private boolean pagedReport;
+    private boolean pagedReportGzip;
+
+    JavaEngine(ProblemThreshold threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Stop after the first class with a problem at the threshold and report the failing classes only.
+     */
+    void setGating(boolean gating) {
+        this.gating = gating;
+    }
+
+    /**
+     * Stream the problems into a report paged by package instead of keeping them.  Does not apply to gating
+     * checks.
+     */
+    void setPagedReport(boolean pagedReport, boolean gzip) {
+        this.pagedReport = pagedReport;
+        this.pagedReportGzip = gzip;
+    }
+
+    /**
+     * Compare the models and write the result and the reports of the comparison.
+     *
+     * @return whether the new API is compatible
+     */
+    boolean compare(ModuleContext module, ApiFilter filter, ApiModel oldModel, ApiModel newModel,
+                    String previousVersion) throws IOException {
+        CheckMetrics metrics = module.getMetrics();
+        // the paged report streams the problems, they are not kept
+        List<ApiProblem> problems = pagedReport && !gating ? null : new ArrayList<>();
+        Set<String> failingTypes = new TreeSet<>();
+        int[] count = new int[1];
+        boolean compatible;
+        CheckMetrics.Phase analysisPhase = metrics.phase("analysis");
+        try (JsonResult result = createResult(module, previousVersion);
+             PagedHtmlReport pages = problems == null ? createPagedReport(module, previousVersion) : null) {
+            ApiDiff diff = new ApiDiff(filter);
+            ApiDiff.ProblemListener listener = problem -> {
+                count[0]++;
+                result.problem(problem);
+                if (threshold.matches(problem)) {
+                    failingTypes.add(problem.type());
+                }
+                if (pages != null) {
+                    module.getLog().warn(problem.toString());
+                    pages.problem(problem);
+                } else {
+                    problems.add(problem);
+                }
+            };
+            if (gating) {
+                // stop after the first class with a failing problem, its problems are complete
+                for (String name : oldModel.names()) {
+                    diff.compareClass(oldModel, newModel, name, listener);
+                    if (!failingTypes.isEmpty()) {
+                        break;
+                    }
+                }
+            } else {
+                diff.compare(oldModel, newModel, listener);
+            }
+            compatible = result.finish();
+            if (pages != null) {
+                CheckMetrics.Phase reportPhase = metrics.phase("report");
+                try {
+                    pages.write(Arrays.asList(module.getReportPath(), module.getBinReportPath(),
+                            module.getSrcReportPath()), compatible);
+                } finally {
+                    reportPhase.end();
+                }
+            }
+        } finally {
+            analysisPhase.end();
+        }
+        module.getLog().info("DONE API Check");
+        metrics.count("problems", count[0]);
+        if (problems != null) {
+            for (ApiProblem problem : problems) {
+                module.getLog().warn(problem.toString());
+            }
+            if (gating) {
+                writeGatingReports(module, previousVersion, problems, failingTypes);
+            } else {
+                CheckMetrics.Phase reportPhase = metrics.phase("report");
+                try {
+                    HtmlReport report = new HtmlReport(module.getTitle(), previousVersion, module.getProject().getVersion());
+                    report.writeCombined(module.getReportPath(), problems);
+                    report.writeBinary(module.getBinReportPath(), problems);
+                    report.writeSource(module.getSrcReportPath(), problems);
+                } finally {
+                    reportPhase.end();
+                }
+            }
+        }
+        if (compatible && count[0] > 0) {
+            module.getLog().info(count[0] + " problem(s) below the threshold " + threshold);
+        }
+        return compatible;
+    }
+
+    /**
+     * Write the reports of a gating check: none if it passed, otherwise the problems of the failing types.  Reports
+     * of earlier checks are deleted so they are not mistaken for the result of this one.
+     */
+    private void writeGatingReports(ModuleContext module, String previousVersion, List<ApiProblem> problems,
+                                    Set<String> failingTypes) throws IOException {
+        List<File> reports = Arrays.asList(module.getReportPath(), module.getBinReportPath(), module.getSrcReportPath());
+        if (failingTypes.isEmpty()) {
+            for (File report : reports) {
+                Files.deleteIfExists(report.toPath());
+            }
+            module.getLog().info("Gating check passed, no report written");
+            return;
+        }
+        List<ApiProblem> offending = problems.stream()
+                .filter(p -> failingTypes.contains(p.type()))
+                .collect(Collectors.toList());
+        CheckMetrics.Phase reportPhase = module.getMetrics().phase("report");
+        try {
+            HtmlReport report = new HtmlReport(module.getTitle(), previousVersion, module.getProject().getVersion());
+            report.writeCombined(module.getReportPath(), offending);
+            report.writeBinary(module.getBinReportPath(), offending);
+            report.writeSource(module.getSrcReportPath(), offending);
+        } finally {
+            reportPhase.end();
+        }
+        module.getLog().warn("Gating check stopped at " + String.join(", ", failingTypes)
+                + ", run with -Djapicc.fullReport for the complete report");
+    }
+
+    private PagedHtmlReport createPagedReport(ModuleContext module, String previousVersion) throws IOException {
+        return new PagedHtmlReport(new File(module.getReportPath().getParentFile(), "packages"), pagedReportGzip,
+                module.getTitle(), previousVersion, module.getProject().getVersion());
+    }
+
+    private JsonResult createResult(ModuleContext module, String previousVersion) throws IOException {
+        return new JsonResult(module.getResultPath(), module.getTitle(), previousVersion,
+                module.getProject().getVersion(), NAME, threshold);
+    }
+}
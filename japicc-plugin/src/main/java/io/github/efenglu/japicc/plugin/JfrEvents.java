@@ -0,0 +1,126 @@
+package io.github.efenglu.japicc.plugin;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Emits the check metrics as JFR events, {@code io.github.efenglu.japicc.Phase} with the duration of each phase
+ * and {@code io.github.efenglu.japicc.Metric} with each counter.  The event types are defined through
+ * {@code jdk.jfr.EventFactory} by reflection, so nothing happens on a JVM without Flight Recorder.
+ */
+final class JfrEvents {
+    private static final Object PHASE_FACTORY;
+    private static final Object METRIC_FACTORY;
+    private static final Method NEW_EVENT;
+    private static final Method SET;
+    private static final Method BEGIN;
+    private static final Method END;
+    private static final Method COMMIT;
+
+    static {
+        Object phaseFactory = null;
+        Object metricFactory = null;
+        Method newEvent = null;
+        Method set = null;
+        Method begin = null;
+        Method end = null;
+        Method commit = null;
+        try {
+            Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+            Class<?> event = Class.forName("jdk.jfr.Event");
+            Method create = factory.getMethod("create", List.class, List.class);
+            phaseFactory = create.invoke(null,
+                    annotations("io.github.efenglu.japicc.Phase", "JAPICC Phase"),
+                    Arrays.asList(field(String.class, "module"), field(String.class, "phase")));
+            metricFactory = create.invoke(null,
+                    annotations("io.github.efenglu.japicc.Metric", "JAPICC Metric"),
+                    Arrays.asList(field(String.class, "module"), field(String.class, "name"), field(long.class, "value")));
+            newEvent = factory.getMethod("newEvent");
+            set = event.getMethod("set", int.class, Object.class);
+            begin = event.getMethod("begin");
+            end = event.getMethod("end");
+            commit = event.getMethod("commit");
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            phaseFactory = null;
+            metricFactory = null;
+        }
+        PHASE_FACTORY = phaseFactory;
+        METRIC_FACTORY = metricFactory;
+        NEW_EVENT = newEvent;
+        SET = set;
+        BEGIN = begin;
+        END = end;
+        COMMIT = commit;
+    }
+
+    private JfrEvents() {
+    }
+
+    /**
+     * Start a phase event.
+     *
+     * @return the event to pass to {@link #endPhase(Object)}, {@code null} without Flight Recorder
+     */
+    static Object beginPhase(String module, String phase) {
+        if (PHASE_FACTORY == null) {
+            return null;
+        }
+        try {
+            Object event = NEW_EVENT.invoke(PHASE_FACTORY);
+            SET.invoke(event, 0, module);
+            SET.invoke(event, 1, phase);
+            BEGIN.invoke(event);
+            return event;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void endPhase(Object event) {
+        if (event == null) {
+            return;
+        }
+        try {
+            END.invoke(event);
+            COMMIT.invoke(event);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // metrics are best effort
+        }
+    }
+
+    static void metric(String module, String name, long value) {
+        if (METRIC_FACTORY == null) {
+            return;
+        }
+        try {
+            Object event = NEW_EVENT.invoke(METRIC_FACTORY);
+            SET.invoke(event, 0, module);
+            SET.invoke(event, 1, name);
+            SET.invoke(event, 2, value);
+            COMMIT.invoke(event);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // metrics are best effort
+        }
+    }
+
+    private static List<Object> annotations(String name, String label) throws ReflectiveOperationException {
+        return Arrays.asList(
+                annotation("jdk.jfr.Name", name),
+                annotation("jdk.jfr.Label", label),
+                annotation("jdk.jfr.Category", new String[]{"Maven", "JAPICC"}));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object annotation(String type, Object value) throws ReflectiveOperationException {
+        Class<? extends Annotation> annotationType = (Class<? extends Annotation>) Class.forName(type);
+        Constructor<?> constructor = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+        return constructor.newInstance(annotationType, value);
+    }
+
+    private static Object field(Class<?> type, String name) throws ReflectiveOperationException {
+        return Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class).newInstance(type, name);
+    }
+}
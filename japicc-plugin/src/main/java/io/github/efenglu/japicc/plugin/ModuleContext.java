@@ -0,0 +1,179 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+
+/**
+ * The module specific inputs and outputs of a single comparison.
+ */
+class ModuleContext {
+    private final MavenProject project;
+    private final Log log;
+    private final File target;
+    private final File newJar;
+    private final File reportPath;
+    private final File binReportPath;
+    private final File srcReportPath;
+    private final File resultPath;
+    private final String title;
+    private final CheckMetrics metrics;
+    private String classifier;
+    private volatile boolean reduced;
+
+    ModuleContext(MavenProject project,
+                  Log log,
+                  File target,
+                  File newJar,
+                  File reportPath,
+                  File binReportPath,
+                  File srcReportPath,
+                  File resultPath,
+                  String title,
+                  CheckMetrics metrics) {
+        this.project = project;
+        this.log = log;
+        this.target = target;
+        this.newJar = newJar;
+        this.reportPath = reportPath;
+        this.binReportPath = binReportPath;
+        this.srcReportPath = srcReportPath;
+        this.resultPath = resultPath;
+        this.title = title;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Context with the default report locations below the module's build directory.
+     *
+     * @param newJar the module's jar or classes directory
+     */
+    static ModuleContext of(MavenProject project, Log log, File newJar) {
+        File target = new File(project.getBuild().getDirectory());
+        File reportDirectory = new File(target, "site/japicc");
+        return new ModuleContext(
+                project,
+                log,
+                target,
+                newJar,
+                new File(reportDirectory, "compat_report.html"),
+                new File(reportDirectory, "bin_compat_report.html"),
+                new File(reportDirectory, "src_compat_report.html"),
+                new File(target, "japicc/compat_result.json"),
+                project.getName(),
+                new CheckMetrics(project.getArtifactId()));
+    }
+
+    /**
+     * Context writing its reports and result into a subdirectory named after a baseline version, so comparisons
+     * against several baselines do not overwrite each other.
+     */
+    ModuleContext forBaseline(String version) {
+        return inSubdirectory(version, "[" + version + "] ", newJar, metrics);
+    }
+
+    /**
+     * Context of an attached jar, writing its reports and result into a subdirectory named after its classifier.
+     * The jar has its own metrics and history, merge its metrics into the module's once checked.
+     */
+    ModuleContext forClassifier(String classifier, File jar) {
+        ModuleContext context = inSubdirectory(classifier, "[" + classifier + "] ", jar,
+                new CheckMetrics(project.getArtifactId() + "-" + classifier));
+        context.classifier = classifier;
+        return context;
+    }
+
+    /**
+     * Context of one shard of a sharded comparison, writing its reports and result into a subdirectory.
+     */
+    ModuleContext forShard(int shard, int shards) {
+        return inSubdirectory("shard-" + shard, "[shard " + shard + "/" + shards + "] ", newJar, metrics);
+    }
+
+    private ModuleContext inSubdirectory(String directory, String logPrefix, File jar, CheckMetrics metrics) {
+        ModuleContext context = new ModuleContext(
+                project,
+                new PrefixedLog(log, logPrefix),
+                target,
+                jar,
+                inDirectory(reportPath, directory),
+                inDirectory(binReportPath, directory),
+                inDirectory(srcReportPath, directory),
+                inDirectory(resultPath, directory),
+                title,
+                metrics);
+        context.classifier = classifier;
+        context.reduced = reduced;
+        return context;
+    }
+
+    private static File inDirectory(File file, String directory) {
+        return new File(new File(file.getParentFile(), directory), file.getName());
+    }
+
+    MavenProject getProject() {
+        return project;
+    }
+
+    Log getLog() {
+        return log;
+    }
+
+    File getTarget() {
+        return target;
+    }
+
+    /**
+     * The new jar, or the classes directory when comparing compiled classes.
+     */
+    File getNewJar() {
+        return newJar;
+    }
+
+    File getReportPath() {
+        return reportPath;
+    }
+
+    File getBinReportPath() {
+        return binReportPath;
+    }
+
+    File getSrcReportPath() {
+        return srcReportPath;
+    }
+
+    File getResultPath() {
+        return resultPath;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Classifier of the checked attached jar, {@code null} for the main jar.
+     */
+    String getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Whether the module runs the quick analysis because its checks exceed the time budget.
+     */
+    boolean isReduced() {
+        return reduced;
+    }
+
+    void setReduced(boolean reduced) {
+        this.reduced = reduced;
+    }
+
+    CheckMetrics getMetrics() {
+        return metrics;
+    }
+
+    File getMetricsPath() {
+        return new File(target, "japicc/metrics.json");
+    }
+}
@@ -0,0 +1,339 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiShards;
+import io.github.efenglu.japicc.plugin.api.Descriptors;
+import io.github.efenglu.japicc.plugin.report.JsonResult;
+import io.github.efenglu.japicc.plugin.report.ShardIndex;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Runs japi-compliance-checker, in a new process or in the daemon shared by the modules of the build, and writes
+ * the result of a module's comparison.
+ */
+class PerlEngine {
+    static final String NAME = "perl";
+
+    /**
+     * Adds the options of japi-compliance-checker configured for a comparison.
+     */
+    interface Options {
+        void insert(ModuleContext module, List<String> arguments) throws MojoExecutionException;
+    }
+
+    /**
+     * The result of the pre-scan: both API models and the binary names of the classes to check.
+     */
+    static final class Prescan {
+        private final ApiModel oldModel;
+        private final ApiModel newModel;
+        private final List<String> included;
+
+        Prescan(ApiModel oldModel, ApiModel newModel, List<String> included) {
+            this.oldModel = oldModel;
+            this.newModel = newModel;
+            this.included = included;
+        }
+
+        List<String> getIncluded() {
+            return included;
+        }
+    }
+
+    private final String perlExec;
+    private final File script;
+    private final Options options;
+    private final Log log;
+    private boolean daemon;
+    private int daemonWorkers;
+    private int daemonQueueSize;
+    private long daemonIdleTimeout;
+    private long timeout;
+    private long maxMemory;
+    private int shards = 1;
+    private String shardBy = "package";
+
+    /**
+     * @param script the installed japi-compliance-checker script
+     * @param log    log of the daemon, shared by the modules of the build
+     */
+    PerlEngine(String perlExec, File script, Options options, Log log) {
+        this.perlExec = perlExec;
+        this.script = script;
+        this.options = options;
+        this.log = log;
+    }
+
+    /**
+     * Run the checks in the daemon instead of a new process per check.
+     *
+     * @param idleTimeout seconds without checks after which the daemon exits
+     */
+    void setDaemon(int workers, int queueSize, long idleTimeout) {
+        this.daemon = true;
+        this.daemonWorkers = workers;
+        this.daemonQueueSize = queueSize;
+        this.daemonIdleTimeout = idleTimeout;
+    }
+
+    /**
+     * @param timeout   seconds after which a run is killed, 0 for no limit
+     * @param maxMemory virtual memory limit of a run in megabytes, 0 for no limit
+     */
+    void setLimits(long timeout, long maxMemory) {
+        this.timeout = timeout;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * @param shardBy {@code package} or {@code classes}
+     */
+    void setShards(int shards, String shardBy) {
+        this.shards = shards;
+        this.shardBy = shardBy;
+    }
+
+    /**
+     * Compare the APIs, each a jar or an API dump.
+     *
+     * @param classes list of the classes to check, {@code null} for every class
+     * @return whether the new API is compatible
+     */
+    boolean compare(ModuleContext module, File previousApi, File newApi, String previousVersion, File classes)
+            throws MojoExecutionException {
+        List<String> arguments = arguments(module);
+        if (classes != null) {
+            setClassesList(arguments, classes);
+        }
+        arguments.add(previousApi.getAbsolutePath());
+        arguments.add(newApi.getAbsolutePath());
+
+        module.getLog().info("Checking API...");
+        int pResult;
+        CheckMetrics.Phase analysisPhase = module.getMetrics().phase("analysis");
+        try {
+            pResult = run(module, arguments);
+        } finally {
+            analysisPhase.end();
+        }
+        module.getLog().info("DONE API Check");
+        module.getLog().debug("JAPICC Return value: " + pResult);
+        return finish(module, previousVersion, pResult == 0);
+    }
+
+    /**
+     * Check the classes in shards running in parallel.  Each shard gets a classes list with its share of the
+     * classes plus their super types, and writes its reports into a subdirectory; the module's reports link to the
+     * shard reports.
+     */
+    boolean compareShards(ModuleContext module, File previousApi, File newApi, String previousVersion,
+                          Prescan prescan) throws MojoExecutionException {
+        List<Set<String>> partition = "classes".equals(shardBy)
+                ? ApiShards.byClassCount(prescan.included, shards)
+                : ApiShards.byPackage(prescan.included, shards);
+        module.getMetrics().count("shards", partition.size());
+        module.getLog().info("Checking " + prescan.included.size() + " classes in " + partition.size() + " shards");
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(partition.size(), runnable -> {
+            Thread thread = new Thread(runnable, "japicc-shard-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<ModuleContext> contexts = new ArrayList<>();
+            List<Future<Integer>> runs = new ArrayList<>();
+            for (int i = 0; i < partition.size(); i++) {
+                ModuleContext shard = module.forShard(i + 1, partition.size());
+                Set<String> classes = ApiShards.withSupertypes(partition.get(i), prescan.oldModel, prescan.newModel);
+                File classesFile = new File(shard.getResultPath().getParentFile(), "japicc-classes-list");
+                List<String> arguments = arguments(shard);
+                try {
+                    FileUtils.forceMkdir(shard.getReportPath().getParentFile());
+                    writeClassesList(classesFile, classes);
+                } catch (IOException e) {
+                    throw new MojoExecutionException("Failed to write " + classesFile, e);
+                }
+                setClassesList(arguments, classesFile);
+                arguments.add(previousApi.getAbsolutePath());
+                arguments.add(newApi.getAbsolutePath());
+                shard.getLog().info("Checking " + partition.get(i).size() + " classes (" + classes.size()
+                        + " with super types)");
+                contexts.add(shard);
+                runs.add(executor.submit(() -> run(shard, arguments)));
+            }
+            List<ShardIndex.Shard> outcomes = new ArrayList<>();
+            boolean compatible = true;
+            CheckMetrics.Phase analysisPhase = module.getMetrics().phase("analysis");
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    ModuleContext shard = contexts.get(i);
+                    int exitCode = runs.get(i).get();
+                    shard.getLog().debug("JAPICC Return value: " + exitCode);
+                    compatible &= exitCode == 0;
+                    outcomes.add(new ShardIndex.Shard("Shard " + (i + 1), partition.get(i).size(), exitCode == 0,
+                            shard.getReportPath(), shard.getBinReportPath(), shard.getSrcReportPath()));
+                }
+            } finally {
+                analysisPhase.end();
+            }
+            module.getLog().info("DONE API Check");
+            try (JsonResult result = createResult(module, previousVersion)) {
+                ShardIndex index = new ShardIndex(module.getTitle(), previousVersion, module.getProject().getVersion());
+                index.write(module.getReportPath(), outcomes);
+                index.write(module.getBinReportPath(), outcomes);
+                index.write(module.getSrcReportPath(), outcomes);
+                return result.finish(compatible);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to write the report of " + module.getTitle(), e);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Error while validating: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupt", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write the result of a comparison japi-compliance-checker did not report problems for.
+     *
+     * @return whether the new API is compatible
+     */
+    boolean finish(ModuleContext module, String previousVersion, boolean compatible) throws MojoExecutionException {
+        try (JsonResult result = createResult(module, previousVersion)) {
+            return result.finish(compatible);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write " + module.getResultPath(), e);
+        }
+    }
+
+    /**
+     * Dump the API of a jar.
+     *
+     * @param dumpArguments the options influencing the dump
+     */
+    void dump(ModuleContext module, List<String> dumpArguments, File jar, File dump) throws IOException {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(perlExec);
+        arguments.add(script.getAbsolutePath());
+        arguments.addAll(dumpArguments);
+        arguments.add("-dump");
+        arguments.add(jar.getAbsolutePath());
+        arguments.add("-dump-path");
+        arguments.add(dump.getAbsolutePath());
+        int result;
+        try {
+            result = run(module, arguments);
+        } catch (MojoExecutionException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (result != 0 || !dump.isFile()) {
+            throw new IOException("JAPICC dump returned " + result);
+        }
+    }
+
+    private List<String> arguments(ModuleContext module) throws MojoExecutionException {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(perlExec);
+        arguments.add(script.getAbsolutePath());
+        options.insert(module, arguments);
+        return arguments;
+    }
+
+    /**
+     * Run japi-compliance-checker, arguments start with the Perl executable and the script.  Falls back to a new
+     * process if the daemon is not available.
+     */
+    private int run(ModuleContext module, List<String> arguments) throws MojoExecutionException {
+        if (daemon) {
+            File daemonScript = new File(script.getParentFile(), ScriptInstaller.DAEMON);
+            try {
+                return CheckerDaemon.get(perlExec, daemonScript, daemonWorkers, daemonQueueSize, daemonIdleTimeout,
+                        maxMemory, log).run(arguments.subList(2, arguments.size()), module.getLog(), timeout);
+            } catch (IOException e) {
+                module.getLog().warn("JAPICC daemon not available, starting a new process: " + e.getMessage());
+            }
+        }
+        return new CheckerProcess(arguments, module.getLog(), timeout, maxMemory).run();
+    }
+
+    /**
+     * The result carries the verdict of japi-compliance-checker only, it reports no problems to a threshold.
+     */
+    private JsonResult createResult(ModuleContext module, String previousVersion) throws IOException {
+        return new JsonResult(module.getResultPath(), module.getTitle(), previousVersion,
+                module.getProject().getVersion(), NAME, null);
+    }
+
+    /**
+     * Write a classes list for {@code -classes-list}, one source name per line.
+     */
+    static void writeClassesList(File file, Collection<String> binaryNames) throws IOException {
+        List<String> lines = new ArrayList<>(binaryNames.size());
+        for (String name : binaryNames) {
+            lines.add(Descriptors.sourceName(name));
+        }
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    private static void setClassesList(List<String> arguments, File classes) {
+        int option = arguments.indexOf("-classes-list");
+        if (option >= 0) {
+            arguments.set(option + 1, classes.getAbsolutePath());
+        } else {
+            arguments.add("-classes-list");
+            arguments.add(classes.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Pack the class files of a directory into a jar for japi-compliance-checker, without compression since the jar
+     * is only read once.
+     */
+    static void packClasses(File directory, File jar) throws IOException {
+        Path root = directory.toPath();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            out.setLevel(Deflater.NO_COMPRESSION);
+            for (Path file : files) {
+                out.putNextEntry(new ZipEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Prefixes every message, so output of modules checked in parallel can be told apart.
+ */
+class PrefixedLog implements Log {
+    private final Log delegate;
+    private final String prefix;
+
+    PrefixedLog(Log delegate, String prefix) {
+        this.delegate = delegate;
+        this.prefix = prefix;
+    }
+
+    private CharSequence prefixed(CharSequence content) {
+        return prefix + content;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        delegate.debug(prefixed(content));
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        delegate.debug(prefixed(content), error);
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        delegate.debug(prefix, error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        delegate.info(prefixed(content));
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        delegate.info(prefixed(content), error);
+    }
+
+    @Override
+    public void info(Throwable error) {
+        delegate.info(prefix, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        delegate.warn(prefixed(content));
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        delegate.warn(prefixed(content), error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        delegate.warn(prefix, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        delegate.error(prefixed(content));
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        delegate.error(prefixed(content), error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+        delegate.error(prefix, error);
+    }
+}
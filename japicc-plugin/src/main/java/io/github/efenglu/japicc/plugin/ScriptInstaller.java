@@ -0,0 +1,244 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Installs the japi-compliance-checker script and its Perl modules into a shared directory.
+ * <p>
+ * Each distinct set of resources is extracted once into a directory named after the plugin version and a digest
+ * of the resources.  Extraction happens in a temporary directory that is renamed into place, guarded by a file lock
+ * against other builds and by a per-key lock against other threads.  A manifest with the digest of every file is
+ * written last and verified before an existing installation is used, so a damaged installation is replaced.
+ */
+class ScriptInstaller {
+    static final String SCRIPT = "japi-compliance-checker.pl";
+    static final String DAEMON = "japicc-daemon.pl";
+    private static final String MODULES = "modules/";
+    private static final String MANIFEST = "MANIFEST.sha256";
+
+    private static final ConcurrentMap<String, File> INSTALLED = new ConcurrentHashMap<>();
+    private static Map<String, byte[]> cachedResources;
+    private static String cachedDigest;
+
+    private final File directory;
+    private final String version;
+    private final Log log;
+
+    ScriptInstaller(File directory, String version, Log log) {
+        this.directory = directory;
+        this.version = version;
+        this.log = log;
+    }
+
+    /**
+     * Install the script unless a verified installation exists and return the script file.
+     */
+    File install() throws IOException {
+        Map<String, byte[]> resources;
+        String digest;
+        synchronized (ScriptInstaller.class) {
+            if (cachedResources == null) {
+                cachedResources = readResources();
+                cachedDigest = digest(cachedResources);
+            }
+            resources = cachedResources;
+            digest = cachedDigest;
+        }
+        String key = version.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + digest.substring(0, 16);
+        String installation = new File(directory, key).getAbsolutePath();
+        File installed = INSTALLED.get(installation);
+        if (installed != null) {
+            return installed;
+        }
+        try {
+            return INSTALLED.computeIfAbsent(installation, k -> {
+                try {
+                    return installLocked(key, resources);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("try") // the file lock is held for the block
+    private File installLocked(String key, Map<String, byte[]> resources) throws IOException {
+        File installation = new File(directory, key);
+        if (verify(installation, resources)) {
+            log.debug("Using JAPICC script installed in " + installation);
+            return new File(installation, SCRIPT);
+        }
+        Files.createDirectories(directory.toPath());
+        Path lockFile = new File(directory, key + ".lock").toPath();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            if (verify(installation, resources)) {
+                log.debug("Using JAPICC script installed in " + installation);
+                return new File(installation, SCRIPT);
+            }
+            if (installation.exists()) {
+                log.warn("Replacing damaged JAPICC installation " + installation);
+                File stale = new File(directory, ".stale-" + UUID.randomUUID());
+                Files.move(installation.toPath(), stale.toPath());
+                deleteRecursively(stale.toPath());
+            }
+            File temp = new File(directory, ".tmp-" + UUID.randomUUID());
+            try {
+                StringBuilder manifest = new StringBuilder();
+                for (Map.Entry<String, byte[]> resource : resources.entrySet()) {
+                    Path file = new File(temp, resource.getKey()).toPath();
+                    Files.createDirectories(file.getParent());
+                    Files.write(file, resource.getValue());
+                    manifest.append(Digests.hex(Digests.sha256().digest(resource.getValue())))
+                            .append("  ").append(resource.getKey()).append('\n');
+                }
+                Files.write(new File(temp, MANIFEST).toPath(), manifest.toString().getBytes(StandardCharsets.UTF_8));
+                try {
+                    Files.move(temp.toPath(), installation.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), installation.toPath());
+                }
+            } finally {
+                if (temp.exists()) {
+                    deleteRecursively(temp.toPath());
+                }
+            }
+            log.info("Installed JAPICC script (" + resources.size() + " files) to " + installation);
+            return new File(installation, SCRIPT);
+        }
+    }
+
+    /**
+     * Whether the installation contains exactly the expected resources, as recorded by its manifest.
+     */
+    private boolean verify(File installation, Map<String, byte[]> resources) throws IOException {
+        File manifest = new File(installation, MANIFEST);
+        if (!manifest.isFile()) {
+            return false;
+        }
+        List<String> lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+        if (lines.size() != resources.size()) {
+            return false;
+        }
+        for (String line : lines) {
+            int separator = line.indexOf("  ");
+            if (separator < 0) {
+                return false;
+            }
+            String name = line.substring(separator + 2);
+            byte[] expected = resources.get(name);
+            File file = new File(installation, name);
+            if (expected == null || !file.isFile() || file.length() != expected.length
+                    || !line.substring(0, separator).equals(Digests.sha256(file))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String digest(Map<String, byte[]> resources) {
+        MessageDigest digest = Digests.sha256();
+        for (Map.Entry<String, byte[]> resource : resources.entrySet()) {
+            digest.update(resource.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(resource.getValue());
+        }
+        return Digests.hex(digest.digest());
+    }
+
+    /**
+     * Read the script, the daemon and the module tree from the plugin's code source, either a jar or a classes directory.
+     */
+    private static Map<String, byte[]> readResources() throws IOException {
+        URL location = ScriptInstaller.class.getProtectionDomain().getCodeSource().getLocation();
+        File source;
+        try {
+            source = new File(location.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid plugin location " + location, e);
+        }
+        Map<String, byte[]> resources = new TreeMap<>();
+        if (source.isDirectory()) {
+            Path root = source.toPath();
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root.resolve(MODULES))) {
+                files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            files.add(root.resolve(SCRIPT));
+            files.add(root.resolve(DAEMON));
+            for (Path file : files) {
+                resources.put(root.relativize(file).toString().replace(File.separatorChar, '/'), Files.readAllBytes(file));
+            }
+        } else {
+            try (JarFile jar = new JarFile(source)) {
+                List<JarEntry> entries = new ArrayList<>();
+                for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+                    JarEntry entry = e.nextElement();
+                    if (!entry.isDirectory() && (entry.getName().equals(SCRIPT) || entry.getName().equals(DAEMON)
+                            || entry.getName().startsWith(MODULES))) {
+                        entries.add(entry);
+                    }
+                }
+                for (JarEntry entry : entries) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        resources.put(entry.getName(), readFully(in));
+                    }
+                }
+            }
+        }
+        if (!resources.containsKey(SCRIPT)) {
+            throw new IOException("No such resource " + SCRIPT + " in " + source);
+        }
+        return resources;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
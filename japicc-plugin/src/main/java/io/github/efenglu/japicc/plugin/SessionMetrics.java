@@ -0,0 +1,77 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Collects the metrics of every check execution in a build, so a summary can be logged once the last execution is
+ * done.  Executions are counted as they complete, including those that were skipped or failed.
+ */
+final class SessionMetrics {
+    private static final Map<Object, SessionMetrics> SESSIONS = new WeakHashMap<>();
+
+    private final List<CheckMetrics> modules = new ArrayList<>();
+    private int completed;
+
+    private SessionMetrics() {
+    }
+
+    /**
+     * The metrics of a build.  Keyed by the execution request, which is shared by the per project copies of the
+     * session in parallel builds.
+     */
+    static synchronized SessionMetrics of(MavenSession session) {
+        return SESSIONS.computeIfAbsent(session.getRequest(), request -> new SessionMetrics());
+    }
+
+    /**
+     * Record a completed check execution.
+     *
+     * @return the number of executions completed so far
+     */
+    synchronized int complete(CheckMetrics metrics) {
+        modules.add(metrics);
+        return ++completed;
+    }
+
+    synchronized void logSummary(Log log) {
+        logSummary(log, modules);
+    }
+
+    /**
+     * Log a table with the time spent per phase of each module.
+     */
+    static void logSummary(Log log, Collection<CheckMetrics> modules) {
+        Set<String> phases = new LinkedHashSet<>();
+        int nameWidth = "Module".length();
+        for (CheckMetrics module : modules) {
+            phases.addAll(module.getPhaseMillis().keySet());
+            nameWidth = Math.max(nameWidth, module.getModule().length());
+        }
+        StringBuilder header = new StringBuilder(String.format("  %-" + nameWidth + "s", "Module"));
+        for (String phase : phases) {
+            header.append(String.format(" %" + Math.max(8, phase.length()) + "s", phase));
+        }
+        header.append(String.format(" %8s", "total"));
+        log.info("JAPICC Timings (ms):");
+        log.info(header.toString());
+        for (CheckMetrics module : modules) {
+            Map<String, Long> millis = module.getPhaseMillis();
+            StringBuilder line = new StringBuilder(String.format("  %-" + nameWidth + "s", module.getModule()));
+            for (String phase : phases) {
+                Long value = millis.get(phase);
+                line.append(String.format(" %" + Math.max(8, phase.length()) + "s", value == null ? "-" : value));
+            }
+            line.append(String.format(" %8d", module.getElapsedMillis()));
+            log.info(line.toString());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Baseline lookups shared by all modules of a build.  Every version range query and every artifact is resolved once
+ * per build; modules asking for a lookup another module has started wait for its result instead of contacting the
+ * repositories themselves.  Version range queries run concurrently, on virtual threads when the JDK provides them.
+ */
+final class SessionResolver {
+    private static final Map<Object, SessionResolver> SESSIONS = new WeakHashMap<>();
+    private static final int PLATFORM_THREADS = 8;
+
+    private final Map<String, CompletableFuture<List<String>>> versions = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<ArtifactResult>> artifacts = new ConcurrentHashMap<>();
+    private final ExecutorService executor = newExecutor();
+    private boolean prefetched;
+
+    /**
+     * Loads versions that were not looked up yet.
+     */
+    interface VersionLoader {
+        List<String> load() throws VersionRangeResolutionException;
+    }
+
+    private SessionResolver() {
+    }
+
+    /**
+     * The resolver of a build.  Keyed by the execution request, which is shared by the per project copies of the
+     * session in parallel builds.
+     */
+    static synchronized SessionResolver of(MavenSession session) {
+        return SESSIONS.computeIfAbsent(session.getRequest(), request -> new SessionResolver());
+    }
+
+    /**
+     * Run the prefetch of the build's baselines in the background, once per build.
+     *
+     * @return whether this call started the prefetch
+     */
+    synchronized boolean prefetch(Runnable task) {
+        if (prefetched) {
+            return false;
+        }
+        prefetched = true;
+        executor.execute(task);
+        return true;
+    }
+
+    /**
+     * Start a version range query, or join the one already started with the same key.
+     */
+    CompletableFuture<List<String>> versionsAsync(String key, VersionLoader loader) {
+        return versions.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load();
+            } catch (VersionRangeResolutionException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+
+    List<String> versions(String key, VersionLoader loader) throws VersionRangeResolutionException {
+        try {
+            return versionsAsync(key, loader).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof VersionRangeResolutionException) {
+                throw (VersionRangeResolutionException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolve artifacts, joining the resolutions already started by other modules and resolving the others with a
+     * single call of the loader.  Results are returned in request order.
+     */
+    List<ArtifactResult> resolveAll(List<Artifact> requested, Function<List<Artifact>, List<ArtifactResult>> loader) {
+        List<CompletableFuture<ArtifactResult>> futures = new ArrayList<>();
+        List<Artifact> batch = new ArrayList<>();
+        List<CompletableFuture<ArtifactResult>> owned = new ArrayList<>();
+        for (Artifact artifact : requested) {
+            CompletableFuture<ArtifactResult> future = new CompletableFuture<>();
+            CompletableFuture<ArtifactResult> existing = artifacts.putIfAbsent(artifact.toString(), future);
+            if (existing == null) {
+                batch.add(artifact);
+                owned.add(future);
+                futures.add(future);
+            } else {
+                futures.add(existing);
+            }
+        }
+        if (!batch.isEmpty()) {
+            try {
+                List<ArtifactResult> results = loader.apply(batch);
+                for (int i = 0; i < owned.size(); i++) {
+                    owned.get(i).complete(results.get(i));
+                }
+            } catch (RuntimeException | Error e) {
+                for (int i = 0; i < owned.size(); i++) {
+                    artifacts.remove(batch.get(i).toString(), owned.get(i));
+                    owned.get(i).completeExceptionally(e);
+                }
+                throw e;
+            }
+        }
+        List<ArtifactResult> results = new ArrayList<>();
+        for (CompletableFuture<ArtifactResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Virtual threads where available, otherwise a small pool of daemon threads that time out when idle.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // before Java 21
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "japicc-resolver-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the latest releases of each major version line, so the version range does not have to be resolved
+ * against the remote repositories on every build.  Entries are shared by all modules of a build through memory and
+ * by all builds through a properties file in the cache directory.
+ */
+class VersionCache {
+    private static final ConcurrentMap<String, Entry> MEMORY = new ConcurrentHashMap<>();
+    /**
+     * File locks are held by the JVM, threads of the same build are serialized per file by these locks.
+     */
+    private static final ConcurrentMap<String, ReentrantLock> FILE_LOCKS = new ConcurrentHashMap<>();
+    private static final String NONE = "";
+
+    /**
+     * Looks up a version that is not cached.
+     */
+    interface Loader<E extends Exception> {
+        String load() throws E;
+    }
+
+    private static final class Entry {
+        private final String version;
+        private final long resolved;
+
+        private Entry(String version, long resolved) {
+            this.version = version;
+            this.resolved = resolved;
+        }
+
+        private static Entry parse(String value) {
+            int separator = value.lastIndexOf('|');
+            if (separator < 0) {
+                return null;
+            }
+            try {
+                return new Entry(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String format() {
+            return version + "|" + resolved;
+        }
+    }
+
+    private final File file;
+    private final long ttlMillis;
+    private final boolean refresh;
+    private final boolean offline;
+    private final Log log;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    VersionCache(File file, long ttlMillis, boolean refresh, boolean offline, Log log) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+        this.refresh = refresh;
+        this.offline = offline;
+        this.log = log;
+    }
+
+    /**
+     * The cached value of a key such as {@code groupId:artifactId:major}, loading and storing it if the entry is
+     * missing, expired or a refresh is forced.  A stale entry is used when the build is offline or the lookup fails.
+     *
+     * @return the value or {@code null} if there is no release in the line
+     */
+    <E extends Exception> String get(String key, Loader<E> loader) throws E {
+        Entry entry = MEMORY.get(key);
+        if (entry == null) {
+            entry = readEntry(key);
+            if (entry != null) {
+                MEMORY.putIfAbsent(key, entry);
+            }
+        }
+        long now = System.currentTimeMillis();
+        boolean fresh = entry != null && !refresh && now - entry.resolved < ttlMillis;
+        if (fresh || (entry != null && offline)) {
+            hits.incrementAndGet();
+            log.debug("Using cached previous version of " + key + ": " + entry.version);
+            return NONE.equals(entry.version) ? null : entry.version;
+        }
+        misses.incrementAndGet();
+        String version;
+        try {
+            version = loader.load();
+        } catch (Exception e) {
+            if (entry != null) {
+                log.warn("Failed to resolve previous version of " + key + ", using cached " + entry.version
+                        + ": " + e.getMessage());
+                return NONE.equals(entry.version) ? null : entry.version;
+            }
+            throw e;
+        }
+        Entry updated = new Entry(version == null ? NONE : version, now);
+        MEMORY.put(key, updated);
+        writeEntry(key, updated);
+        return version;
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    private Entry readEntry(String key) {
+        Properties properties = load();
+        String value = properties.getProperty(key);
+        return value == null ? null : Entry.parse(value);
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                properties.load(in);
+            } catch (IOException e) {
+                log.debug("Ignoring unreadable version cache " + file + ": " + e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Merge the entry into the file under a lock shared with other threads and builds.  Failing to update the file
+     * only costs a lookup in a later build.
+     */
+    @SuppressWarnings("try") // the file lock is held for the block
+    private void writeEntry(String key, Entry entry) {
+        ReentrantLock threadLock = FILE_LOCKS.computeIfAbsent(file.getAbsolutePath(), path -> new ReentrantLock());
+        threadLock.lock();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            File lockFile = new File(file.getParentFile(), file.getName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Properties properties = load();
+                properties.setProperty(key, entry.format());
+                for (Map.Entry<String, Entry> memory : MEMORY.entrySet()) {
+                    Entry stored = Entry.parse(properties.getProperty(memory.getKey(), "|0"));
+                    if (stored == null || stored.resolved < memory.getValue().resolved) {
+                        properties.setProperty(memory.getKey(), memory.getValue().format());
+                    }
+                }
+                File temp = new File(file.getParentFile(), ".tmp-" + UUID.randomUUID() + "-" + file.getName());
+                try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+                    properties.store(out, "JAPICC previous version cache");
+                }
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // e.g. OverlappingFileLockException if another class loader of this JVM holds the lock
+            log.warn("Failed to update version cache " + file + ": " + e.getMessage());
+        } finally {
+            threadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.classfile.Attribute;
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The API relevant parts of a single class: its header and its non-private, non-synthetic members.
+ */
+public final class ApiClass {
+    private static final String DEPRECATED = "java.lang.Deprecated";
+
+    private final String name;
+    private final int access;
+    private final String superName;
+    private final List<String> interfaces;
+    private final String outerName;
+    private final boolean local;
+    private final String signature;
+    private final boolean deprecated;
+    private final Set<String> annotations;
+    private final Map<String, ApiMember> fields;
+    private final Map<String, ApiMember> methods;
+
+    public ApiClass(String name,
+                    int access,
+                    String superName,
+                    List<String> interfaces,
+                    String outerName,
+                    boolean local,
+                    String signature,
+                    boolean deprecated,
+                    Set<String> annotations,
+                    Map<String, ApiMember> fields,
+                    Map<String, ApiMember> methods) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.access = access;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.outerName = outerName;
+        this.local = local;
+        this.signature = signature;
+        this.deprecated = deprecated;
+        this.annotations = annotations;
+        this.fields = fields;
+        this.methods = methods;
+    }
+
+    /**
+     * Build the API view of a parsed class file.
+     */
+    public static ApiClass of(ClassFile classFile) {
+        String internalName = classFile.name();
+        int access = classFile.access();
+        String outerName = null;
+        boolean local = false;
+        Attribute innerClasses = classFile.attribute("InnerClasses");
+        if (innerClasses != null) {
+            for (Attribute.InnerClass inner : innerClasses.innerClasses()) {
+                if (inner.innerName().equals(internalName)) {
+                    access = inner.access();
+                    outerName = Descriptors.binaryName(inner.outerName());
+                    local = inner.outerName() == null || inner.simpleName() == null;
+                    break;
+                }
+            }
+        }
+        Set<String> annotations = annotations(classFile.attributes());
+        boolean deprecated = classFile.attribute("Deprecated") != null || annotations.contains(DEPRECATED);
+        Attribute signature = classFile.attribute("Signature");
+
+        Map<String, ApiMember> fields = new LinkedHashMap<>();
+        for (ClassFile.Member field : classFile.fields()) {
+            if (isApiMember(field)) {
+                ApiMember member = member(field, false);
+                fields.put(member.key(), member);
+            }
+        }
+        Map<String, ApiMember> methods = new LinkedHashMap<>();
+        for (ClassFile.Member method : classFile.methods()) {
+            if (isApiMember(method) && !"<clinit>".equals(method.name())) {
+                ApiMember member = member(method, true);
+                methods.put(member.key(), member);
+            }
+        }
+        List<String> interfaces = new ArrayList<>();
+        for (String interfaceName : classFile.interfaceNames()) {
+            interfaces.add(Descriptors.binaryName(interfaceName));
+        }
+        return new ApiClass(
+                Descriptors.binaryName(internalName),
+                access,
+                Descriptors.binaryName(classFile.superName()),
+                Collections.unmodifiableList(interfaces),
+                outerName,
+                local,
+                signature == null ? null : signature.signature(),
+                deprecated,
+                annotations,
+                Collections.unmodifiableMap(fields),
+                Collections.unmodifiableMap(methods));
+    }
+
+    private static boolean isApiMember(ClassFile.Member member) {
+        return (member.access() & (ClassFile.ACC_PRIVATE | ClassFile.ACC_SYNTHETIC | ClassFile.ACC_BRIDGE)) == 0;
+    }
+
+    private static ApiMember member(ClassFile.Member member, boolean method) {
+        Set<String> annotations = annotations(member.attributes());
+        boolean deprecated = member.attribute("Deprecated") != null || annotations.contains(DEPRECATED);
+        Attribute signature = member.attribute("Signature");
+        List<String> exceptions = null;
+        Object constantValue = null;
+        if (method) {
+            Attribute exceptionsAttribute = member.attribute("Exceptions");
+            if (exceptionsAttribute != null) {
+                exceptions = new ArrayList<>();
+                for (String exception : exceptionsAttribute.exceptions()) {
+                    exceptions.add(Descriptors.binaryName(exception));
+                }
+            }
+        } else {
+            Attribute constant = member.attribute("ConstantValue");
+            if (constant != null) {
+                constantValue = constant.constantValue();
+            }
+        }
+        return new ApiMember(
+                method,
+                member.name(),
+                member.descriptor(),
+                member.access(),
+                signature == null ? null : signature.signature(),
+                deprecated,
+                annotations,
+                exceptions,
+                constantValue);
+    }
+
+    private static Set<String> annotations(List<Attribute> attributes) {
+        Set<String> annotations = null;
+        for (Attribute attribute : attributes) {
+            if ("RuntimeVisibleAnnotations".equals(attribute.name())
+                    || "RuntimeInvisibleAnnotations".equals(attribute.name())) {
+                for (String descriptor : attribute.annotationTypes()) {
+                    if (annotations == null) {
+                        annotations = new HashSet<>();
+                    }
+                    annotations.add(Descriptors.typeName(descriptor));
+                }
+            }
+        }
+        return annotations == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(annotations);
+    }
+
+    /**
+     * Binary name, e.g. {@code a.b.Outer$Inner}.
+     */
+    public String name() {
+        return name;
+    }
+
+    public String packageName() {
+        return Descriptors.packageName(name);
+    }
+
+    /**
+     * Access flags; for nested classes these are the flags from the InnerClasses attribute.
+     */
+    public int access() {
+        return access;
+    }
+
+    public String superName() {
+        return superName;
+    }
+
+    public List<String> interfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Binary name of the enclosing class of a member class, otherwise {@code null}.
+     */
+    public String outerName() {
+        return outerName;
+    }
+
+    /**
+     * Whether this is a local or anonymous class.
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    public String signature() {
+        return signature;
+    }
+
+    public boolean isDeprecated() {
+        return deprecated;
+    }
+
+    public Set<String> annotations() {
+        return annotations;
+    }
+
+    public Map<String, ApiMember> fields() {
+        return fields;
+    }
+
+    public Map<String, ApiMember> methods() {
+        return methods;
+    }
+
+    public boolean isPublic() {
+        return (access & ClassFile.ACC_PUBLIC) != 0;
+    }
+
+    public boolean isProtected() {
+        return (access & ClassFile.ACC_PROTECTED) != 0;
+    }
+
+    public boolean isInterface() {
+        return (access & ClassFile.ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (access & ClassFile.ACC_ABSTRACT) != 0;
+    }
+
+    public boolean isFinal() {
+        return (access & ClassFile.ACC_FINAL) != 0;
+    }
+
+    public boolean isStatic() {
+        return (access & ClassFile.ACC_STATIC) != 0;
+    }
+}
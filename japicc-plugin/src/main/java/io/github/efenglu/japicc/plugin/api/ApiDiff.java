@@ -0,0 +1,296 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary and source compatibility rules applied to two {@link ApiModel}s.  Problems are reported in class name
+ * order.
+ */
+public class ApiDiff {
+    /**
+     * Loads the classes of the JDK but not those of the plugin's own class path.
+     */
+    private static final ClassLoader JDK_CLASSES = ClassLoader.getSystemClassLoader().getParent();
+
+    private static final String OBJECT_CLONE = "clone()Ljava/lang/Object;";
+
+    /**
+     * Public methods of {@code Object}, which every class implements even where an interface redeclares them.
+     */
+    private static final Set<String> OBJECT_METHODS = new HashSet<>(Arrays.asList(
+            "equals(Ljava/lang/Object;)Z",
+            "hashCode()I",
+            "toString()Ljava/lang/String;"));
+
+    private final ApiFilter filter;
+
+    public ApiDiff(ApiFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Receives problems as they are found.
+     */
+    public interface ProblemListener {
+        void problem(ApiProblem problem);
+    }
+
+    public List<ApiProblem> compare(ApiModel oldModel, ApiModel newModel) {
+        List<ApiProblem> problems = new ArrayList<>();
+        compare(oldModel, newModel, problems::add);
+        return problems;
+    }
+
+    public void compare(ApiModel oldModel, ApiModel newModel, ProblemListener listener) {
+        for (ApiClass oldClass : oldModel.classes().values()) {
+            compareClass(oldModel, newModel, oldClass.name(), listener);
+        }
+    }
+
+    /**
+     * Apply the rules to the class with the given name.  Classes that are filtered or not accessible in the old
+     * version are ignored.
+     */
+    public void compareClass(ApiModel oldModel, ApiModel newModel, String className, ProblemListener listener) {
+        ApiClass oldClass = oldModel.get(className);
+        if (oldClass == null || !oldModel.isAccessible(oldClass) || !filter.isClassIncluded(className)) {
+            return;
+        }
+        ApiClass newClass = newModel.get(className);
+        if (!filter.isClassIncluded(oldClass, newClass)) {
+            return;
+        }
+        if (newClass == null) {
+            listener.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, className, null, null));
+            return;
+        }
+        if (!newModel.isAccessible(newClass) || (oldClass.isPublic() && !newClass.isPublic())) {
+            listener.problem(new ApiProblem(ProblemKind.CLASS_LESS_ACCESSIBLE, className, null, null));
+            return;
+        }
+        if (oldClass.isInterface() != newClass.isInterface()) {
+            listener.problem(new ApiProblem(ProblemKind.CHANGED_CLASS_KIND, className, null,
+                    oldClass.isInterface() ? "interface became class" : "class became interface"));
+            return;
+        }
+        if (!oldClass.isInterface()) {
+            if (!oldClass.isFinal() && newClass.isFinal()) {
+                listener.problem(new ApiProblem(ProblemKind.CLASS_BECAME_FINAL, className, null, null));
+            }
+            if (!oldClass.isAbstract() && newClass.isAbstract()) {
+                listener.problem(new ApiProblem(ProblemKind.CLASS_BECAME_ABSTRACT, className, null, null));
+            }
+            List<String> newSupers = newModel.superClasses(newClass);
+            for (String oldSuper : oldModel.superClasses(oldClass)) {
+                if (!newSupers.contains(oldSuper)) {
+                    listener.problem(new ApiProblem(ProblemKind.REMOVED_SUPERCLASS, className, null, oldSuper));
+                }
+            }
+        }
+        Set<String> newInterfaces = newModel.allInterfaces(newClass);
+        for (String oldInterface : oldModel.allInterfaces(oldClass)) {
+            if (!newInterfaces.contains(oldInterface)) {
+                listener.problem(new ApiProblem(ProblemKind.REMOVED_INTERFACE, className, null, oldInterface));
+            }
+        }
+        compareFields(oldModel, newModel, oldClass, newClass, listener);
+        compareMethods(oldModel, newModel, oldClass, newClass, listener);
+    }
+
+    private void compareFields(ApiModel oldModel, ApiModel newModel, ApiClass oldClass, ApiClass newClass,
+                               ProblemListener listener) {
+        String className = oldClass.name();
+        for (ApiMember oldField : oldClass.fields().values()) {
+            if (!isVisible(oldClass, oldField)) {
+                continue;
+            }
+            ApiMember newField = newModel.findField(newClass, oldField.name());
+            if (!filter.isMemberIncluded(oldField, newField)) {
+                continue;
+            }
+            String member = oldField.display(className);
+            if (newField == null) {
+                listener.problem(new ApiProblem(ProblemKind.REMOVED_FIELD, className, member, null));
+                continue;
+            }
+            if (!newField.isVisible() || (oldField.isPublic() && !newField.isPublic())) {
+                listener.problem(new ApiProblem(ProblemKind.FIELD_LESS_ACCESSIBLE, className, member, null));
+                continue;
+            }
+            if (!oldField.descriptor().equals(newField.descriptor())) {
+                listener.problem(new ApiProblem(ProblemKind.CHANGED_FIELD_TYPE, className, member,
+                        Descriptors.typeName(oldField.descriptor()) + " -> " + Descriptors.typeName(newField.descriptor())));
+            }
+            if (oldField.isStatic() != newField.isStatic()) {
+                listener.problem(new ApiProblem(oldField.isStatic()
+                        ? ProblemKind.FIELD_BECAME_NON_STATIC
+                        : ProblemKind.FIELD_BECAME_STATIC, className, member, null));
+            }
+            if (!oldField.isFinal() && newField.isFinal()) {
+                listener.problem(new ApiProblem(ProblemKind.FIELD_BECAME_FINAL, className, member, null));
+            }
+            if (oldField.constantValue() != null && newField.constantValue() != null
+                    && !oldField.constantValue().equals(newField.constantValue())) {
+                listener.problem(new ApiProblem(ProblemKind.CHANGED_CONSTANT_VALUE, className, member,
+                        oldField.constantValue() + " -> " + newField.constantValue()));
+            }
+        }
+    }
+
+    private void compareMethods(ApiModel oldModel, ApiModel newModel, ApiClass oldClass, ApiClass newClass,
+                                ProblemListener listener) {
+        String className = oldClass.name();
+        for (ApiMember oldMethod : oldClass.methods().values()) {
+            if (!isVisible(oldClass, oldMethod)) {
+                continue;
+            }
+            ApiMember newMethod = oldMethod.isConstructor()
+                    ? newClass.methods().get(oldMethod.key())
+                    : newModel.findMethod(newClass, oldMethod.key());
+            if (!filter.isMemberIncluded(oldMethod, newMethod)) {
+                continue;
+            }
+            String member = oldMethod.display(className);
+            if (newMethod == null) {
+                listener.problem(new ApiProblem(ProblemKind.REMOVED_METHOD, className, member, null));
+                continue;
+            }
+            if (!newMethod.isVisible() || (oldMethod.isPublic() && !newMethod.isPublic())) {
+                listener.problem(new ApiProblem(ProblemKind.METHOD_LESS_ACCESSIBLE, className, member, null));
+                continue;
+            }
+            String oldReturn = Descriptors.returnType(oldMethod.descriptor());
+            String newReturn = Descriptors.returnType(newMethod.descriptor());
+            if (!oldReturn.equals(newReturn) && !isBridged(newModel, newClass, oldMethod)) {
+                listener.problem(new ApiProblem(ProblemKind.CHANGED_RETURN_TYPE, className, member,
+                        oldReturn + " -> " + newReturn));
+            }
+            if (oldMethod.isStatic() != newMethod.isStatic()) {
+                listener.problem(new ApiProblem(oldMethod.isStatic()
+                        ? ProblemKind.METHOD_BECAME_NON_STATIC
+                        : ProblemKind.METHOD_BECAME_STATIC, className, member, null));
+            }
+            if (!oldMethod.isStatic() && !oldMethod.isConstructor() && !newClass.isFinal()
+                    && !oldMethod.isFinal() && newMethod.isFinal()) {
+                listener.problem(new ApiProblem(ProblemKind.METHOD_BECAME_FINAL, className, member, null));
+            }
+            if (!oldMethod.isAbstract() && newMethod.isAbstract()) {
+                listener.problem(new ApiProblem(ProblemKind.METHOD_BECAME_ABSTRACT, className, member, null));
+            }
+            for (String exception : newMethod.exceptions()) {
+                if (oldMethod.exceptions().contains(exception)) {
+                    continue;
+                }
+                Boolean checked = isChecked(newModel, exception);
+                if (checked == null) {
+                    listener.problem(new ApiProblem(ProblemKind.ADDED_UNKNOWN_EXCEPTION, className, member, exception));
+                } else if (checked) {
+                    listener.problem(new ApiProblem(ProblemKind.ADDED_CHECKED_EXCEPTION, className, member, exception));
+                }
+            }
+        }
+        if (oldClass.isFinal()) {
+            return;
+        }
+        Set<String> seen = new HashSet<>();
+        for (ApiClass type : withSuperTypes(newModel, newClass)) {
+            for (ApiMember newMethod : type.methods().values()) {
+                String key = newMethod.key();
+                if (!newMethod.isAbstract() || !newMethod.isVisible() || !seen.add(key)
+                        || oldClass.methods().containsKey(key)
+                        || OBJECT_METHODS.contains(newMethod.name() + newMethod.descriptor())) {
+                    continue;
+                }
+                ApiMember implementation = newModel.findMethod(newClass, key);
+                if (implementation != null && !implementation.isAbstract()) {
+                    continue;
+                }
+                ApiMember inherited = oldModel.findMethod(oldClass, key);
+                if (inherited != null && inherited.isAbstract()) {
+                    continue;
+                }
+                if (!filter.isMemberIncluded(null, newMethod)) {
+                    continue;
+                }
+                listener.problem(new ApiProblem(ProblemKind.ADDED_ABSTRACT_METHOD, className,
+                        newMethod.display(className), null));
+            }
+        }
+    }
+
+    /**
+     * A class followed by its super classes and interfaces known to the model, the order of
+     * {@link ApiModel#findMethod(ApiClass, String)}.
+     */
+    private static List<ApiClass> withSuperTypes(ApiModel model, ApiClass apiClass) {
+        List<ApiClass> types = new ArrayList<>();
+        types.add(apiClass);
+        List<String> superNames = new ArrayList<>(model.superClasses(apiClass));
+        superNames.addAll(model.allInterfaces(apiClass));
+        for (String superName : superNames) {
+            ApiClass superType = model.get(superName);
+            if (superType != null) {
+                types.add(superType);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Whether calls compiled against a method whose return type became narrower still link: a super type declares
+     * the method with the old return type, so the compiler generated a bridge method overriding it.  Bridge methods
+     * are not part of the model; of the super types outside the model only {@code Object.clone()} is known.
+     */
+    private static boolean isBridged(ApiModel model, ApiClass apiClass, ApiMember oldMethod) {
+        if (oldMethod.isStatic() || oldMethod.isConstructor()) {
+            return false;
+        }
+        if (OBJECT_CLONE.equals(oldMethod.name() + oldMethod.descriptor())) {
+            return true;
+        }
+        List<String> superTypes = new ArrayList<>(model.superClasses(apiClass));
+        superTypes.addAll(model.allInterfaces(apiClass));
+        for (String superName : superTypes) {
+            ApiClass superType = model.get(superName);
+            ApiMember method = superType == null ? null : superType.methods().get(oldMethod.key());
+            if (method != null && !method.isStatic() && method.descriptor().equals(oldMethod.descriptor())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVisible(ApiClass owner, ApiMember member) {
+        return member.isPublic() || (member.isProtected() && !owner.isFinal());
+    }
+
+    /**
+     * Whether an exception is checked.  A hierarchy leaving the model is resolved against the classes of the JDK.
+     *
+     * @return {@code null} if the hierarchy leads to a class neither the model nor the JDK know
+     */
+    private static Boolean isChecked(ApiModel model, String exception) {
+        String outside = exception;
+        ApiClass exceptionClass = model.get(exception);
+        if (exceptionClass != null) {
+            List<String> superClasses = model.superClasses(exceptionClass);
+            outside = superClasses.isEmpty() ? null : superClasses.get(superClasses.size() - 1);
+            if (outside == null || model.get(outside) != null) {
+                return null;
+            }
+        }
+        try {
+            Class<?> type = Class.forName(outside, false, JDK_CLASSES);
+            if (!Throwable.class.isAssignableFrom(type)) {
+                return null;
+            }
+            return !RuntimeException.class.isAssignableFrom(type) && !Error.class.isAssignableFrom(type);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+}
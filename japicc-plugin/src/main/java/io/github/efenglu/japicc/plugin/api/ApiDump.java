@@ -0,0 +1,220 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized form of an {@link ApiModel}, used to cache the analysis of baseline artifacts.
+ */
+public final class ApiDump {
+    private static final int MAGIC = 0x4A415049;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int NONE = 0;
+    private static final int INTEGER = 1;
+    private static final int LONG = 2;
+    private static final int FLOAT = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+
+    private ApiDump() {
+    }
+
+    public static void write(ApiModel model, File file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            write(model, out);
+        }
+    }
+
+    public static ApiModel read(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return read(in);
+        }
+    }
+
+    public static void write(ApiModel model, OutputStream stream) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(stream);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(model.size());
+        for (ApiClass apiClass : model.classes().values()) {
+            writeString(out, apiClass.name());
+            out.writeInt(apiClass.access());
+            writeNullable(out, apiClass.superName());
+            writeStrings(out, apiClass.interfaces());
+            writeNullable(out, apiClass.outerName());
+            out.writeBoolean(apiClass.isLocal());
+            writeNullable(out, apiClass.signature());
+            out.writeBoolean(apiClass.isDeprecated());
+            writeStrings(out, apiClass.annotations());
+            writeMembers(out, apiClass.fields().values());
+            writeMembers(out, apiClass.methods().values());
+        }
+        out.flush();
+        gzip.finish();
+    }
+
+    public static ApiModel read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an API dump");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported API dump version " + version);
+        }
+        int count = in.readInt();
+        Map<String, ApiClass> classes = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            int access = in.readInt();
+            String superName = readNullable(in);
+            List<String> interfaces = Collections.unmodifiableList(readStrings(in, new ArrayList<>()));
+            String outerName = readNullable(in);
+            boolean local = in.readBoolean();
+            String signature = readNullable(in);
+            boolean deprecated = in.readBoolean();
+            Set<String> annotations = Collections.unmodifiableSet(readStrings(in, new HashSet<>()));
+            Map<String, ApiMember> fields = readMembers(in);
+            Map<String, ApiMember> methods = readMembers(in);
+            classes.put(name, new ApiClass(name, access, superName, interfaces, outerName, local, signature,
+                    deprecated, annotations, fields, methods));
+        }
+        return new ApiModel(classes);
+    }
+
+    private static void writeMembers(DataOutputStream out, Collection<ApiMember> members) throws IOException {
+        out.writeInt(members.size());
+        for (ApiMember member : members) {
+            out.writeBoolean(member.isMethod());
+            writeString(out, member.name());
+            writeString(out, member.descriptor());
+            out.writeInt(member.access());
+            writeNullable(out, member.signature());
+            out.writeBoolean(member.isDeprecated());
+            writeStrings(out, member.annotations());
+            writeStrings(out, member.exceptions());
+            writeConstant(out, member.constantValue());
+        }
+    }
+
+    private static Map<String, ApiMember> readMembers(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, ApiMember> members = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            boolean method = in.readBoolean();
+            String name = readString(in);
+            String descriptor = readString(in);
+            int access = in.readInt();
+            String signature = readNullable(in);
+            boolean deprecated = in.readBoolean();
+            Set<String> annotations = Collections.unmodifiableSet(readStrings(in, new HashSet<>()));
+            List<String> exceptions = Collections.unmodifiableList(readStrings(in, new ArrayList<>()));
+            Object constant = readConstant(in);
+            ApiMember member = new ApiMember(method, name, descriptor, access, signature, deprecated, annotations,
+                    exceptions, constant);
+            members.put(member.key(), member);
+        }
+        return Collections.unmodifiableMap(members);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static <C extends Collection<String>> C readStrings(DataInputStream in, C target)
+            throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            target.add(readString(in));
+        }
+        return target;
+    }
+
+    private static void writeConstant(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NONE);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readConstant(DataInputStream in) throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case NONE:
+                return null;
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            default:
+                throw new IOException("Invalid constant tag " + tag);
+        }
+    }
+}
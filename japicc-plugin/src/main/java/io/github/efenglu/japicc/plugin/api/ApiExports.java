@@ -0,0 +1,112 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.classfile.Attribute;
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+import io.github.efenglu.japicc.plugin.classfile.ClassFormatException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The packages a module descriptor exports.  Read from the {@code module-info.class} of a jar or classes directory;
+ * in a multi-release jar the descriptor of the highest version wins, as it does on the most recent runtime.
+ */
+public final class ApiExports {
+    /**
+     * Target of {@code qualifiedExports} accepting every qualified export.
+     */
+    public static final String ALL_MODULES = "*";
+
+    private static final String MODULE_INFO = "module-info.class";
+    private static final Pattern VERSIONED = Pattern.compile("META-INF/versions/(\\d+)/" + Pattern.quote(MODULE_INFO));
+
+    private final String moduleName;
+    private final Map<String, List<String>> exports;
+
+    private ApiExports(String moduleName, Map<String, List<String>> exports) {
+        this.moduleName = moduleName;
+        this.exports = exports;
+    }
+
+    /**
+     * Read the module descriptor of a jar file or classes directory.
+     *
+     * @return the exports, {@code null} if there is no module descriptor
+     */
+    public static ApiExports read(File file) throws IOException {
+        if (file.isDirectory()) {
+            File descriptor = new File(file, MODULE_INFO);
+            return descriptor.isFile() ? parse(ClassFile.parse(Files.readAllBytes(descriptor.toPath()))) : null;
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry descriptor = zip.getEntry(MODULE_INFO);
+            int version = 0;
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                ZipEntry entry = entries.nextElement();
+                Matcher matcher = VERSIONED.matcher(entry.getName());
+                if (matcher.matches() && Integer.parseInt(matcher.group(1)) > version) {
+                    version = Integer.parseInt(matcher.group(1));
+                    descriptor = entry;
+                }
+            }
+            if (descriptor == null) {
+                return null;
+            }
+            try (InputStream in = zip.getInputStream(descriptor)) {
+                return parse(ClassFile.parse(in));
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid versioned module descriptor in " + file, e);
+        }
+    }
+
+    private static ApiExports parse(ClassFile classFile) {
+        Attribute module = classFile.attribute("Module");
+        if (!classFile.isModuleInfo() || module == null) {
+            throw new ClassFormatException("Not a module descriptor");
+        }
+        Map<String, List<String>> exports = new LinkedHashMap<>();
+        for (Attribute.Export export : module.exports()) {
+            exports.put(export.packageName().replace('/', '.'), export.targets());
+        }
+        return new ApiExports(classFile.className(classFile.u2(module.offset())), exports);
+    }
+
+    public String moduleName() {
+        return moduleName;
+    }
+
+    /**
+     * The exported packages: unqualified exports and the qualified exports to one of the given modules.
+     *
+     * @param friends modules whose qualified exports count as API, {@link #ALL_MODULES} for every module
+     */
+    public Set<String> packages(Collection<String> friends) {
+        boolean all = friends.contains(ALL_MODULES);
+        Set<String> packages = new TreeSet<>();
+        for (Map.Entry<String, List<String>> export : exports.entrySet()) {
+            List<String> targets = export.getValue();
+            if (targets.isEmpty() || all || !Collections.disjoint(targets, friends)) {
+                packages.add(export.getKey());
+            }
+        }
+        return packages;
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which classes and members take part in a comparison.  Mirrors the filtering options of the
+ * japi-compliance-checker script so both engines honour the same plugin configuration.
+ */
+public class ApiFilter {
+    /**
+     * Packages skipped unless {@code -keep-internal} is given.
+     */
+    private static final Pattern INTERNAL_PACKAGES = Pattern.compile("(\\A|\\.)(impl|internal|examples)(\\.|\\Z)");
+
+    private boolean keepInternal;
+    private Pattern skipInternalPackages;
+    private Pattern skipInternalTypes;
+    private Set<String> classes;
+    private Set<String> skipClasses = new HashSet<>();
+    private Set<String> skipPackages = new HashSet<>();
+    private Set<String> exportedPackages;
+    private Set<String> annotations = new HashSet<>();
+    private Set<String> skipAnnotations = new HashSet<>();
+    private boolean skipDeprecated;
+    private boolean addedAnnotations;
+    private boolean removedAnnotations;
+
+    public void setKeepInternal(boolean keepInternal) {
+        this.keepInternal = keepInternal;
+    }
+
+    public void setSkipInternalPackages(String pattern) {
+        this.skipInternalPackages = pattern == null ? null : Pattern.compile(pattern);
+    }
+
+    public void setSkipInternalTypes(String pattern) {
+        this.skipInternalTypes = pattern == null ? null : Pattern.compile(pattern);
+    }
+
+    /**
+     * Restrict the comparison to these classes; {@code null} checks every class.
+     */
+    public void setClasses(Collection<String> classes) {
+        this.classes = classes == null ? null : normalize(classes);
+    }
+
+    public void setSkipClasses(Collection<String> skipClasses) {
+        this.skipClasses = normalize(skipClasses);
+    }
+
+    public void setSkipPackages(Collection<String> skipPackages) {
+        this.skipPackages = new HashSet<>(skipPackages);
+    }
+
+    /**
+     * Restrict the comparison to classes of these packages, as exported by module descriptors; {@code null} checks
+     * every package.  Unlike skipped packages, an exported package does not include its subpackages.
+     */
+    public void setExportedPackages(Collection<String> exportedPackages) {
+        this.exportedPackages = exportedPackages == null ? null : new HashSet<>(exportedPackages);
+    }
+
+    public void setAnnotations(Collection<String> annotations) {
+        this.annotations = normalize(annotations);
+    }
+
+    public void setSkipAnnotations(Collection<String> skipAnnotations) {
+        this.skipAnnotations = normalize(skipAnnotations);
+    }
+
+    public void setSkipDeprecated(boolean skipDeprecated) {
+        this.skipDeprecated = skipDeprecated;
+    }
+
+    public void setAddedAnnotations(boolean addedAnnotations) {
+        this.addedAnnotations = addedAnnotations;
+    }
+
+    public void setRemovedAnnotations(boolean removedAnnotations) {
+        this.removedAnnotations = removedAnnotations;
+    }
+
+    public boolean isSkipDeprecated() {
+        return skipDeprecated;
+    }
+
+    /**
+     * Read a list file as accepted by the {@code -classes-list}, {@code -skip-classes} and {@code -skip-packages}
+     * options: one entry per line, blank lines ignored.
+     */
+    public static Set<String> readList(File file) throws IOException {
+        Set<String> entries = new HashSet<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String entry = line.trim();
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static Set<String> normalize(Collection<String> names) {
+        Set<String> normalized = new HashSet<>();
+        for (String name : names) {
+            normalized.add(Descriptors.sourceName(name.trim()));
+        }
+        return normalized;
+    }
+
+    /**
+     * Name based filtering: exported and internal packages, type patterns, class and package lists.
+     */
+    public boolean isClassIncluded(String className) {
+        String packageName = Descriptors.packageName(className);
+        if (exportedPackages != null && !exportedPackages.contains(packageName)) {
+            return false;
+        }
+        if (!keepInternal && INTERNAL_PACKAGES.matcher(packageName).find()) {
+            return false;
+        }
+        if (skipInternalPackages != null && skipInternalPackages.matcher(packageName).find()) {
+            return false;
+        }
+        if (skipInternalTypes != null && skipInternalTypes.matcher(className).find()) {
+            return false;
+        }
+        for (String skipPackage : skipPackages) {
+            if (packageName.equals(skipPackage) || packageName.startsWith(skipPackage + ".")) {
+                return false;
+            }
+        }
+        String sourceName = Descriptors.sourceName(className);
+        if (skipClasses.contains(sourceName)) {
+            return false;
+        }
+        return classes == null || classes.contains(sourceName);
+    }
+
+    /**
+     * Annotation and deprecation based filtering of a class present in at least one of the versions.  A class is
+     * excluded as soon as one of the versions the annotation filters apply to excludes it.
+     */
+    public boolean isClassIncluded(ApiClass oldClass, ApiClass newClass) {
+        if (skipDeprecated && ((oldClass != null && oldClass.isDeprecated())
+                || (newClass != null && newClass.isDeprecated()))) {
+            return false;
+        }
+        if (oldClass != null && !addedAnnotations && !matchesAnnotations(oldClass.annotations(), true)) {
+            return false;
+        }
+        return newClass == null || removedAnnotations || matchesAnnotations(newClass.annotations(), true);
+    }
+
+    /**
+     * Annotation and deprecation based filtering of a member whose class is included.
+     */
+    public boolean isMemberIncluded(ApiMember oldMember, ApiMember newMember) {
+        if (skipDeprecated && ((oldMember != null && oldMember.isDeprecated())
+                || (newMember != null && newMember.isDeprecated()))) {
+            return false;
+        }
+        if (oldMember != null && !addedAnnotations && !matchesAnnotations(oldMember.annotations(), false)) {
+            return false;
+        }
+        return newMember == null || removedAnnotations || matchesAnnotations(newMember.annotations(), false);
+    }
+
+    private boolean matchesAnnotations(Set<String> present, boolean requireIncluded) {
+        boolean included = annotations.isEmpty() || !requireIncluded;
+        for (String annotation : present) {
+            String name = Descriptors.sourceName(annotation);
+            if (skipAnnotations.contains(name)) {
+                return false;
+            }
+            if (annotations.contains(name)) {
+                included = true;
+            }
+        }
+        return included;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A stable digest of the accessible API of a model: types, their hierarchy, signatures, modifiers, annotations and
+ * constants of public and protected members.  Method bodies and private members do not contribute, so the
+ * fingerprint only changes when the API does.
+ */
+public final class ApiFingerprint {
+    private static final int CLASS_FLAGS = ClassFile.ACC_PUBLIC | ClassFile.ACC_PROTECTED | ClassFile.ACC_STATIC
+            | ClassFile.ACC_FINAL | ClassFile.ACC_INTERFACE | ClassFile.ACC_ABSTRACT | ClassFile.ACC_ANNOTATION
+            | ClassFile.ACC_ENUM;
+    private static final int MEMBER_FLAGS = ClassFile.ACC_PUBLIC | ClassFile.ACC_PROTECTED | ClassFile.ACC_STATIC
+            | ClassFile.ACC_FINAL | ClassFile.ACC_ABSTRACT | ClassFile.ACC_VARARGS;
+
+    private ApiFingerprint() {
+    }
+
+    /**
+     * Hex encoded SHA-256 fingerprint of the model.
+     */
+    public static String of(ApiModel model) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        StringBuilder line = new StringBuilder();
+        for (ApiClass apiClass : model.classes().values()) {
+            if (!model.isAccessible(apiClass)) {
+                continue;
+            }
+            line.setLength(0);
+            line.append("C ").append(apiClass.name())
+                    .append(' ').append(apiClass.access() & CLASS_FLAGS)
+                    .append(' ').append(apiClass.superName())
+                    .append(' ').append(sorted(apiClass.interfaces()))
+                    .append(' ').append(apiClass.signature())
+                    .append(' ').append(apiClass.isDeprecated())
+                    .append(' ').append(sorted(apiClass.annotations()))
+                    .append('\n');
+            update(digest, line);
+            appendMembers(digest, line, apiClass.fields().values());
+            appendMembers(digest, line, apiClass.methods().values());
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void appendMembers(MessageDigest digest, StringBuilder line, Collection<ApiMember> members) {
+        List<ApiMember> visible = new ArrayList<>();
+        for (ApiMember member : members) {
+            if (member.isVisible()) {
+                visible.add(member);
+            }
+        }
+        visible.sort((a, b) -> a.key().compareTo(b.key()));
+        for (ApiMember member : visible) {
+            line.setLength(0);
+            line.append(member.isMethod() ? "M " : "F ")
+                    .append(member.name())
+                    .append(' ').append(member.descriptor())
+                    .append(' ').append(member.access() & MEMBER_FLAGS)
+                    .append(' ').append(member.signature())
+                    .append(' ').append(member.isDeprecated())
+                    .append(' ').append(sorted(member.annotations()))
+                    .append(' ').append(sorted(member.exceptions()))
+                    .append(' ').append(member.constantValue() == null
+                            ? "null"
+                            : member.constantValue().getClass().getSimpleName() + ":" + member.constantValue())
+                    .append('\n');
+            update(digest, line);
+        }
+    }
+
+    private static List<String> sorted(Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        Collections.sort(list);
+        return list;
+    }
+
+    private static void update(MessageDigest digest, CharSequence line) {
+        digest.update(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
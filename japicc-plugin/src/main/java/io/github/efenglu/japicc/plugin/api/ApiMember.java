@@ -0,0 +1,133 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A field or method of an {@link ApiClass}.
+ */
+public final class ApiMember {
+    private final boolean method;
+    private final String name;
+    private final String descriptor;
+    private final int access;
+    private final String signature;
+    private final boolean deprecated;
+    private final Set<String> annotations;
+    private final List<String> exceptions;
+    private final Object constantValue;
+
+    public ApiMember(boolean method,
+                     String name,
+                     String descriptor,
+                     int access,
+                     String signature,
+                     boolean deprecated,
+                     Set<String> annotations,
+                     List<String> exceptions,
+                     Object constantValue) {
+        this.method = method;
+        this.name = Objects.requireNonNull(name, "name");
+        this.descriptor = Objects.requireNonNull(descriptor, "descriptor");
+        this.access = access;
+        this.signature = signature;
+        this.deprecated = deprecated;
+        this.annotations = annotations == null ? Collections.<String>emptySet() : annotations;
+        this.exceptions = exceptions == null ? Collections.<String>emptyList() : exceptions;
+        this.constantValue = constantValue;
+    }
+
+    public boolean isMethod() {
+        return method;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String descriptor() {
+        return descriptor;
+    }
+
+    public int access() {
+        return access;
+    }
+
+    /**
+     * Generic signature or {@code null}.
+     */
+    public String signature() {
+        return signature;
+    }
+
+    public boolean isDeprecated() {
+        return deprecated;
+    }
+
+    /**
+     * Binary names of the annotations present on this member.
+     */
+    public Set<String> annotations() {
+        return annotations;
+    }
+
+    /**
+     * Binary names of the declared exceptions of a method.
+     */
+    public List<String> exceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Compile-time constant of a field or {@code null}.
+     */
+    public Object constantValue() {
+        return constantValue;
+    }
+
+    /**
+     * Lookup key unique within the declaring class: the name for fields, the name and parameter types for methods.
+     */
+    public String key() {
+        return method ? name + Descriptors.parameters(descriptor) : name;
+    }
+
+    public boolean isPublic() {
+        return (access & ClassFile.ACC_PUBLIC) != 0;
+    }
+
+    public boolean isProtected() {
+        return (access & ClassFile.ACC_PROTECTED) != 0;
+    }
+
+    public boolean isVisible() {
+        return isPublic() || isProtected();
+    }
+
+    public boolean isStatic() {
+        return (access & ClassFile.ACC_STATIC) != 0;
+    }
+
+    public boolean isFinal() {
+        return (access & ClassFile.ACC_FINAL) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (access & ClassFile.ACC_ABSTRACT) != 0;
+    }
+
+    public boolean isConstructor() {
+        return method && "<init>".equals(name);
+    }
+
+    /**
+     * Display form used in reports.
+     */
+    public String display(String ownerName) {
+        return method ? Descriptors.methodDisplay(ownerName, name, descriptor) : name;
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.classfile.ClassFile;
+import io.github.efenglu.japicc.plugin.classfile.ClassFormatException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * All classes of one version of a library, keyed by binary name.
+ */
+public final class ApiModel {
+    private final SortedMap<String, ApiClass> classes;
+
+    public ApiModel(Map<String, ApiClass> classes) {
+        this.classes = Collections.unmodifiableSortedMap(new TreeMap<>(classes));
+    }
+
+    /**
+     * Read every class of a jar file or a classes directory.  Class files are parsed in parallel.
+     */
+    public static ApiModel load(File file) throws IOException {
+        Map<String, ApiClass> classes = new ConcurrentHashMap<>();
+        try {
+            if (file.isDirectory()) {
+                Path root = file.toPath();
+                List<Path> paths;
+                try (Stream<Path> walk = Files.walk(root)) {
+                    paths = walk.filter(p -> isClassEntry(root.relativize(p).toString().replace(File.separatorChar, '/')))
+                            .filter(Files::isRegularFile)
+                            .collect(Collectors.toList());
+                }
+                paths.parallelStream().forEach(path -> {
+                    try {
+                        add(classes, ClassFile.parse(Files.readAllBytes(path)), path.toString());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } else {
+                try (ZipFile zip = new ZipFile(file)) {
+                    List<? extends ZipEntry> entries = zip.stream()
+                            .filter(e -> !e.isDirectory() && isClassEntry(e.getName()))
+                            .collect(Collectors.toList());
+                    entries.parallelStream().forEach(entry -> {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            add(classes, ClassFile.parse(in), entry.getName());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new ApiModel(classes);
+    }
+
+    /**
+     * Whether a jar entry or relative path names a regular class of the base version of the archive.
+     */
+    public static boolean isClassEntry(String name) {
+        return name.endsWith(".class")
+                && !name.startsWith("META-INF/")
+                && !name.endsWith("module-info.class")
+                && !name.endsWith("package-info.class");
+    }
+
+    private static void add(Map<String, ApiClass> classes, ClassFile classFile, String location) {
+        try {
+            ApiClass apiClass = ApiClass.of(classFile);
+            classes.put(apiClass.name(), apiClass);
+        } catch (ClassFormatException e) {
+            throw new ClassFormatException("Failed to read " + location + ": " + e.getMessage(), e);
+        }
+    }
+
+    public SortedMap<String, ApiClass> classes() {
+        return classes;
+    }
+
+    public Collection<String> names() {
+        return classes.keySet();
+    }
+
+    public ApiClass get(String name) {
+        return classes.get(name);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Whether a class can be referenced from outside its package: it is public or protected, is not local or
+     * anonymous, and every enclosing class is accessible too.
+     */
+    public boolean isAccessible(ApiClass apiClass) {
+        ApiClass current = apiClass;
+        while (current != null) {
+            if (current.isLocal() || !(current.isPublic() || current.isProtected())) {
+                return false;
+            }
+            current = current.outerName() == null ? null : classes.get(current.outerName());
+        }
+        return true;
+    }
+
+    /**
+     * Super classes of a class, nearest first.  The chain stops at the first class not contained in this model,
+     * which is still included.
+     */
+    public List<String> superClasses(ApiClass apiClass) {
+        List<String> supers = new ArrayList<>();
+        String superName = apiClass.superName();
+        while (superName != null && !supers.contains(superName)) {
+            supers.add(superName);
+            ApiClass superClass = classes.get(superName);
+            superName = superClass == null ? null : superClass.superName();
+        }
+        return supers;
+    }
+
+    /**
+     * All interfaces implemented by a class, directly or through super classes and super interfaces known to this
+     * model.
+     */
+    public Set<String> allInterfaces(ApiClass apiClass) {
+        Set<String> result = new LinkedHashSet<>();
+        collectInterfaces(apiClass, result);
+        for (String superName : superClasses(apiClass)) {
+            ApiClass superClass = classes.get(superName);
+            if (superClass != null) {
+                collectInterfaces(superClass, result);
+            }
+        }
+        return result;
+    }
+
+    private void collectInterfaces(ApiClass apiClass, Set<String> result) {
+        for (String interfaceName : apiClass.interfaces()) {
+            if (result.add(interfaceName)) {
+                ApiClass interfaceClass = classes.get(interfaceName);
+                if (interfaceClass != null) {
+                    collectInterfaces(interfaceClass, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find a method by key in a class or its super types known to this model.
+     */
+    public ApiMember findMethod(ApiClass apiClass, String key) {
+        ApiMember member = apiClass.methods().get(key);
+        if (member != null) {
+            return member;
+        }
+        for (String superName : superClasses(apiClass)) {
+            ApiClass superClass = classes.get(superName);
+            if (superClass != null && (member = superClass.methods().get(key)) != null) {
+                return member;
+            }
+        }
+        for (String interfaceName : allInterfaces(apiClass)) {
+            ApiClass interfaceClass = classes.get(interfaceName);
+            if (interfaceClass != null && (member = interfaceClass.methods().get(key)) != null) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find a field by name in a class or its super types known to this model.
+     */
+    public ApiMember findField(ApiClass apiClass, String name) {
+        ApiMember member = apiClass.fields().get(name);
+        if (member != null) {
+            return member;
+        }
+        for (String superName : superClasses(apiClass)) {
+            ApiClass superClass = classes.get(superName);
+            if (superClass != null && (member = superClass.fields().get(name)) != null) {
+                return member;
+            }
+        }
+        for (String interfaceName : allInterfaces(apiClass)) {
+            ApiClass interfaceClass = classes.get(interfaceName);
+            if (interfaceClass != null && (member = interfaceClass.fields().get(name)) != null) {
+                return member;
+            }
+        }
+        return null;
+    }
+}
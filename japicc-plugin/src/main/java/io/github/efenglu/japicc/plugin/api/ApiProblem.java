@@ -0,0 +1,87 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.util.Objects;
+
+/**
+ * A single incompatibility between two versions of an API.
+ */
+public final class ApiProblem {
+    private final ProblemKind kind;
+    private final String type;
+    private final String member;
+    private final String detail;
+
+    public ApiProblem(ProblemKind kind, String type, String member, String detail) {
+        this.kind = Objects.requireNonNull(kind, "kind");
+        this.type = Objects.requireNonNull(type, "type");
+        this.member = member;
+        this.detail = detail;
+    }
+
+    public ProblemKind kind() {
+        return kind;
+    }
+
+    public Severity severity() {
+        return kind.severity();
+    }
+
+    /**
+     * Binary name of the affected type.
+     */
+    public String type() {
+        return type;
+    }
+
+    /**
+     * Display form of the affected member or {@code null} if the problem concerns the type itself.
+     */
+    public String member() {
+        return member;
+    }
+
+    public String detail() {
+        return detail;
+    }
+
+    public boolean isBinary() {
+        return kind.binarySeverity() != null;
+    }
+
+    public boolean isSource() {
+        return kind.sourceSeverity() != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ApiProblem)) {
+            return false;
+        }
+        ApiProblem that = (ApiProblem) o;
+        return kind == that.kind
+                && type.equals(that.type)
+                && Objects.equals(member, that.member)
+                && Objects.equals(detail, that.detail);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, type, member, detail);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append('[').append(severity()).append("] ").append(kind.description()).append(": ").append(type);
+        if (member != null) {
+            builder.append('.').append(member);
+        }
+        if (detail != null) {
+            builder.append(" (").append(detail).append(')');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Splits the classes of a comparison into shards that can be checked independently.
+ */
+public final class ApiShards {
+    private ApiShards() {
+    }
+
+    /**
+     * Partition classes by package: whole packages are assigned to the shard with the fewest classes so far, largest
+     * package first.
+     *
+     * @return at most {@code count} non-empty shards of binary names
+     */
+    public static List<Set<String>> byPackage(Collection<String> names, int count) {
+        Map<String, Set<String>> packages = new TreeMap<>();
+        for (String name : names) {
+            packages.computeIfAbsent(Descriptors.packageName(name), p -> new TreeSet<>()).add(name);
+        }
+        List<Set<String>> sorted = new ArrayList<>(packages.values());
+        sorted.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        List<Set<String>> shards = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, sorted.size()); i++) {
+            shards.add(new TreeSet<>());
+        }
+        for (Set<String> classes : sorted) {
+            Set<String> smallest = shards.get(0);
+            for (Set<String> shard : shards) {
+                if (shard.size() < smallest.size()) {
+                    smallest = shard;
+                }
+            }
+            smallest.addAll(classes);
+        }
+        return shards;
+    }
+
+    /**
+     * Partition classes into shards of nearly equal size, keeping classes that sort next to each other, and thus
+     * most of a package, together.
+     *
+     * @return at most {@code count} non-empty shards of binary names
+     */
+    public static List<Set<String>> byClassCount(Collection<String> names, int count) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(names));
+        int shardCount = Math.min(count, sorted.size());
+        List<Set<String>> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            int from = (int) ((long) sorted.size() * i / shardCount);
+            int to = (int) ((long) sorted.size() * (i + 1) / shardCount);
+            shards.add(new TreeSet<>(sorted.subList(from, to)));
+        }
+        return shards;
+    }
+
+    /**
+     * The classes of a shard together with their super classes, interfaces and enclosing classes found in either
+     * version, so inherited members and nesting are resolved as in a complete comparison.
+     */
+    public static Set<String> withSupertypes(Set<String> shard, ApiModel oldModel, ApiModel newModel) {
+        Set<String> closure = new TreeSet<>(shard);
+        Deque<String> pending = new ArrayDeque<>(shard);
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            for (ApiModel model : new ApiModel[]{oldModel, newModel}) {
+                ApiClass apiClass = model.get(name);
+                if (apiClass == null) {
+                    continue;
+                }
+                List<String> related = new ArrayList<>(apiClass.interfaces());
+                related.add(apiClass.superName());
+                related.add(apiClass.outerName());
+                for (String type : related) {
+                    if (type != null && (oldModel.get(type) != null || newModel.get(type) != null) && closure.add(type)) {
+                        pending.push(type);
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+}
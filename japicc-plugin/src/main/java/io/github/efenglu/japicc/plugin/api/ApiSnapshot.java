@@ -0,0 +1,331 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uncompressed binary form of an {@link ApiModel}, published with a release as the baseline of later checks.  Every
+ * string is stored once in a table and referenced by index, and the file is read through a memory mapping, decoding
+ * each string of the table at most once:
+ * <pre>
+ * int magic, int version
+ * int stringCount, int[stringCount + 1] offsets, byte[] UTF-8 string data
+ * int classCount, int[classCount] record offsets in name order, class records
+ * </pre>
+ * Within the records, counts, access flags and string references are variable-length integers; a reference is the
+ * index in the table plus one, zero for {@code null}.
+ */
+public final class ApiSnapshot {
+    private static final int MAGIC = 0x4A415053;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int NONE = 0;
+    private static final int INTEGER = 1;
+    private static final int LONG = 2;
+    private static final int FLOAT = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+
+    private static final int METHOD = 1;
+    private static final int DEPRECATED = 2;
+    private static final int LOCAL = 4;
+
+    private ApiSnapshot() {
+    }
+
+    public static void write(ApiModel model, File file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            write(model, out);
+        }
+    }
+
+    public static void write(ApiModel model, OutputStream stream) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(records);
+        List<Integer> offsets = new ArrayList<>();
+        for (ApiClass apiClass : model.classes().values()) {
+            offsets.add(recordOut.size());
+            writeClass(recordOut, apiClass, strings);
+        }
+        recordOut.flush();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(strings.size());
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        int offset = 0;
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            out.writeInt(offset);
+            offset += bytes.length;
+        }
+        out.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+        out.writeInt(offsets.size());
+        for (int recordOffset : offsets) {
+            out.writeInt(recordOffset);
+        }
+        records.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Whether a file starts with the header of a snapshot, of any format version.
+     */
+    public static boolean isSnapshot(File file) throws IOException {
+        if (!file.isFile() || file.length() < 4) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Read a snapshot through a memory mapping of the file.
+     */
+    public static ApiModel read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static ApiModel read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an API snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported API snapshot version " + version);
+            }
+            StringTable strings = new StringTable(buffer);
+            int count = buffer.getInt();
+            int index = buffer.position();
+            int records = index + 4 * count;
+            Map<String, ApiClass> classes = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                buffer.position(records + buffer.getInt(index + 4 * i));
+                ApiClass apiClass = readClass(buffer, strings);
+                classes.put(apiClass.name(), apiClass);
+            }
+            return new ApiModel(classes);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt API snapshot", e);
+        }
+    }
+
+    private static void writeClass(DataOutputStream out, ApiClass apiClass, Map<String, Integer> strings)
+            throws IOException {
+        writeString(out, apiClass.name(), strings);
+        writeVarInt(out, apiClass.access());
+        writeString(out, apiClass.superName(), strings);
+        writeStrings(out, apiClass.interfaces(), strings);
+        writeString(out, apiClass.outerName(), strings);
+        writeString(out, apiClass.signature(), strings);
+        out.writeByte((apiClass.isDeprecated() ? DEPRECATED : 0) | (apiClass.isLocal() ? LOCAL : 0));
+        writeStrings(out, apiClass.annotations(), strings);
+        writeMembers(out, apiClass.fields().values(), strings);
+        writeMembers(out, apiClass.methods().values(), strings);
+    }
+
+    private static ApiClass readClass(ByteBuffer in, StringTable strings) {
+        String name = strings.read(in);
+        int access = readVarInt(in);
+        String superName = strings.read(in);
+        List<String> interfaces = Collections.unmodifiableList(readStrings(in, strings, new ArrayList<>()));
+        String outerName = strings.read(in);
+        String signature = strings.read(in);
+        int flags = in.get();
+        Set<String> annotations = Collections.unmodifiableSet(readStrings(in, strings, new HashSet<>()));
+        Map<String, ApiMember> fields = readMembers(in, strings);
+        Map<String, ApiMember> methods = readMembers(in, strings);
+        return new ApiClass(name, access, superName, interfaces, outerName, (flags & LOCAL) != 0, signature,
+                (flags & DEPRECATED) != 0, annotations, fields, methods);
+    }
+
+    private static void writeMembers(DataOutputStream out, Collection<ApiMember> members, Map<String, Integer> strings)
+            throws IOException {
+        writeVarInt(out, members.size());
+        for (ApiMember member : members) {
+            out.writeByte((member.isMethod() ? METHOD : 0) | (member.isDeprecated() ? DEPRECATED : 0));
+            writeString(out, member.name(), strings);
+            writeString(out, member.descriptor(), strings);
+            writeVarInt(out, member.access());
+            writeString(out, member.signature(), strings);
+            writeStrings(out, member.annotations(), strings);
+            writeStrings(out, member.exceptions(), strings);
+            writeConstant(out, member.constantValue(), strings);
+        }
+    }
+
+    private static Map<String, ApiMember> readMembers(ByteBuffer in, StringTable strings) {
+        int count = readVarInt(in);
+        Map<String, ApiMember> members = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int flags = in.get();
+            String name = strings.read(in);
+            String descriptor = strings.read(in);
+            int access = readVarInt(in);
+            String signature = strings.read(in);
+            Set<String> annotations = Collections.unmodifiableSet(readStrings(in, strings, new HashSet<>()));
+            List<String> exceptions = Collections.unmodifiableList(readStrings(in, strings, new ArrayList<>()));
+            Object constant = readConstant(in, strings);
+            ApiMember member = new ApiMember((flags & METHOD) != 0, name, descriptor, access, signature,
+                    (flags & DEPRECATED) != 0, annotations, exceptions, constant);
+            members.put(member.key(), member);
+        }
+        return Collections.unmodifiableMap(members);
+    }
+
+    private static void writeString(DataOutputStream out, String value, Map<String, Integer> strings)
+            throws IOException {
+        writeVarInt(out, value == null ? 0 : strings.computeIfAbsent(value, v -> strings.size()) + 1);
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values, Map<String, Integer> strings)
+            throws IOException {
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            writeString(out, value, strings);
+        }
+    }
+
+    private static <C extends Collection<String>> C readStrings(ByteBuffer in, StringTable strings, C target) {
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            target.add(strings.read(in));
+        }
+        return target;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Invalid variable-length integer");
+            }
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writeConstant(DataOutputStream out, Object value, Map<String, Integer> strings)
+            throws IOException {
+        if (value == null) {
+            out.writeByte(NONE);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString(), strings);
+        }
+    }
+
+    private static Object readConstant(ByteBuffer in, StringTable strings) {
+        int tag = in.get();
+        switch (tag) {
+            case NONE:
+                return null;
+            case INTEGER:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case FLOAT:
+                return in.getFloat();
+            case DOUBLE:
+                return in.getDouble();
+            case STRING:
+                return strings.read(in);
+            default:
+                throw new IllegalArgumentException("Invalid constant tag " + tag);
+        }
+    }
+
+    /**
+     * The string table of a mapped snapshot, decoding every string on first use.
+     */
+    private static final class StringTable {
+        private final ByteBuffer buffer;
+        private final int offsets;
+        private final int data;
+        private final String[] decoded;
+
+        private StringTable(ByteBuffer buffer) {
+            int count = buffer.getInt();
+            this.buffer = buffer;
+            this.offsets = buffer.position();
+            this.data = offsets + 4 * (count + 1);
+            this.decoded = new String[count];
+            buffer.position(data + buffer.getInt(offsets + 4 * count));
+        }
+
+        String read(ByteBuffer in) {
+            int index = readVarInt(in) - 1;
+            if (index < 0) {
+                return null;
+            }
+            String value = decoded[index];
+            if (value == null) {
+                int start = buffer.getInt(offsets + 4 * index);
+                int end = buffer.getInt(offsets + 4 * (index + 1));
+                byte[] bytes = new byte[end - start];
+                ByteBuffer view = buffer.duplicate();
+                view.position(data + start);
+                view.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                decoded[index] = value;
+            }
+            return value;
+        }
+    }
+}
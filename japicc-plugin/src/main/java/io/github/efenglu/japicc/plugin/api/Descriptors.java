@@ -0,0 +1,140 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversions between JVM descriptors and the Java source form used in reports.
+ */
+public final class Descriptors {
+    private Descriptors() {
+    }
+
+    /**
+     * Convert an internal name ({@code a/b/C$D}) to a binary name ({@code a.b.C$D}).
+     */
+    public static String binaryName(String internalName) {
+        return internalName == null ? null : internalName.replace('/', '.');
+    }
+
+    /**
+     * Convert a field descriptor ({@code La/b/C;}) to a binary name ({@code a.b.C}).
+     */
+    public static String typeName(String descriptor) {
+        return parseType(descriptor, new int[]{0});
+    }
+
+    /**
+     * Package of a binary class name, or the empty string for the default package.
+     */
+    public static String packageName(String binaryName) {
+        int dot = binaryName.lastIndexOf('.');
+        return dot < 0 ? "" : binaryName.substring(0, dot);
+    }
+
+    /**
+     * Normalizes nested class separators so that {@code a.b.C$D} and {@code a.b.C.D} compare equal.
+     */
+    public static String sourceName(String binaryName) {
+        return binaryName.replace('$', '.');
+    }
+
+    /**
+     * The parameter part of a method descriptor, e.g. {@code (ILjava/lang/String;)}.
+     */
+    public static String parameters(String methodDescriptor) {
+        return methodDescriptor.substring(0, methodDescriptor.indexOf(')') + 1);
+    }
+
+    /**
+     * The return type of a method descriptor in source form.
+     */
+    public static String returnType(String methodDescriptor) {
+        return typeName(methodDescriptor.substring(methodDescriptor.indexOf(')') + 1));
+    }
+
+    /**
+     * Parameter types of a method descriptor in source form.
+     */
+    public static List<String> parameterTypes(String methodDescriptor) {
+        List<String> types = new ArrayList<>();
+        int[] pos = {1};
+        while (methodDescriptor.charAt(pos[0]) != ')') {
+            types.add(parseType(methodDescriptor, pos));
+        }
+        return types;
+    }
+
+    /**
+     * Display form of a method, e.g. {@code find(int, java.lang.String)}.
+     */
+    public static String methodDisplay(String ownerName, String name, String descriptor) {
+        StringBuilder builder = new StringBuilder();
+        if ("<init>".equals(name)) {
+            String simple = sourceName(ownerName);
+            builder.append(simple.substring(simple.lastIndexOf('.') + 1));
+        } else {
+            builder.append(name);
+        }
+        builder.append('(');
+        List<String> types = parameterTypes(descriptor);
+        for (int i = 0; i < types.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(types.get(i));
+        }
+        return builder.append(')').toString();
+    }
+
+    private static String parseType(String descriptor, int[] pos) {
+        int dimensions = 0;
+        while (descriptor.charAt(pos[0]) == '[') {
+            dimensions++;
+            pos[0]++;
+        }
+        String base;
+        char c = descriptor.charAt(pos[0]++);
+        switch (c) {
+            case 'B':
+                base = "byte";
+                break;
+            case 'C':
+                base = "char";
+                break;
+            case 'D':
+                base = "double";
+                break;
+            case 'F':
+                base = "float";
+                break;
+            case 'I':
+                base = "int";
+                break;
+            case 'J':
+                base = "long";
+                break;
+            case 'S':
+                base = "short";
+                break;
+            case 'Z':
+                base = "boolean";
+                break;
+            case 'V':
+                base = "void";
+                break;
+            case 'L':
+                int end = descriptor.indexOf(';', pos[0]);
+                base = binaryName(descriptor.substring(pos[0], end));
+                pos[0] = end + 1;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid descriptor " + descriptor);
+        }
+        StringBuilder builder = new StringBuilder(base);
+        for (int i = 0; i < dimensions; i++) {
+            builder.append("[]");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.efenglu.japicc.plugin.api;
+
+/**
+ * The kinds of incompatibility detected by {@link ApiDiff} together with their binary and source severity.  A
+ * {@code null} severity means the change does not affect that kind of compatibility.
+ */
+public enum ProblemKind {
+    REMOVED_CLASS(Severity.HIGH, Severity.HIGH, "Class has been removed"),
+    CLASS_LESS_ACCESSIBLE(Severity.HIGH, Severity.HIGH, "Class access has been reduced"),
+    CHANGED_CLASS_KIND(Severity.HIGH, Severity.HIGH, "Class has been changed to/from an interface"),
+    CLASS_BECAME_FINAL(Severity.HIGH, Severity.HIGH, "Class became final"),
+    CLASS_BECAME_ABSTRACT(Severity.HIGH, Severity.HIGH, "Class became abstract"),
+    REMOVED_SUPERCLASS(Severity.MEDIUM, Severity.MEDIUM, "Super class has been removed from the hierarchy"),
+    REMOVED_INTERFACE(Severity.MEDIUM, Severity.HIGH, "Interface has been removed from the hierarchy"),
+    ADDED_ABSTRACT_METHOD(Severity.LOW, Severity.HIGH, "Abstract method has been added"),
+    REMOVED_METHOD(Severity.HIGH, Severity.HIGH, "Method has been removed"),
+    METHOD_LESS_ACCESSIBLE(Severity.HIGH, Severity.HIGH, "Method access has been reduced"),
+    CHANGED_RETURN_TYPE(Severity.HIGH, Severity.HIGH, "Method return type has been changed"),
+    METHOD_BECAME_STATIC(Severity.HIGH, Severity.HIGH, "Method became static"),
+    METHOD_BECAME_NON_STATIC(Severity.HIGH, Severity.HIGH, "Method became non-static"),
+    METHOD_BECAME_FINAL(Severity.MEDIUM, Severity.MEDIUM, "Method became final"),
+    METHOD_BECAME_ABSTRACT(Severity.MEDIUM, Severity.HIGH, "Method became abstract"),
+    ADDED_CHECKED_EXCEPTION(null, Severity.MEDIUM, "Checked exception has been added to the throws clause"),
+    ADDED_UNKNOWN_EXCEPTION(null, Severity.MEDIUM,
+            "Exception of unknown kind, possibly checked, has been added to the throws clause"),
+    REMOVED_FIELD(Severity.HIGH, Severity.HIGH, "Field has been removed"),
+    FIELD_LESS_ACCESSIBLE(Severity.HIGH, Severity.HIGH, "Field access has been reduced"),
+    CHANGED_FIELD_TYPE(Severity.HIGH, Severity.HIGH, "Field type has been changed"),
+    FIELD_BECAME_STATIC(Severity.HIGH, Severity.HIGH, "Field became static"),
+    FIELD_BECAME_NON_STATIC(Severity.HIGH, Severity.HIGH, "Field became non-static"),
+    FIELD_BECAME_FINAL(Severity.MEDIUM, Severity.HIGH, "Field became final"),
+    CHANGED_CONSTANT_VALUE(Severity.LOW, null, "Value of a compile-time constant has been changed");
+
+    private final Severity binary;
+    private final Severity source;
+    private final String description;
+
+    ProblemKind(Severity binary, Severity source, String description) {
+        this.binary = binary;
+        this.source = source;
+        this.description = description;
+    }
+
+    public Severity binarySeverity() {
+        return binary;
+    }
+
+    public Severity sourceSeverity() {
+        return source;
+    }
+
+    /**
+     * The highest of the binary and source severities.
+     */
+    public Severity severity() {
+        if (binary == null) {
+            return source;
+        }
+        if (source == null) {
+            return binary;
+        }
+        return binary.atLeast(source) ? binary : source;
+    }
+
+    public String description() {
+        return description;
+    }
+}
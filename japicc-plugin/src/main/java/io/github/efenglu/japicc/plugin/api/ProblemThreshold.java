@@ -0,0 +1,56 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import java.util.Locale;
+
+/**
+ * Decides which problems break the build: those with at least a minimum severity for binary compatibility, source
+ * compatibility or either.
+ */
+public final class ProblemThreshold {
+    /**
+     * The kind of compatibility a threshold applies to.
+     */
+    public enum Compatibility {
+        BINARY, SOURCE, ANY
+    }
+
+    private final Severity severity;
+    private final Compatibility compatibility;
+
+    public ProblemThreshold(Severity severity, Compatibility compatibility) {
+        this.severity = severity;
+        this.compatibility = compatibility;
+    }
+
+    /**
+     * Threshold from case insensitive names, e.g. {@code high} and {@code binary}.
+     *
+     * @throws IllegalArgumentException if a name is unknown
+     */
+    public static ProblemThreshold parse(String severity, String compatibility) {
+        return new ProblemThreshold(
+                Severity.valueOf(severity.trim().toUpperCase(Locale.ROOT)),
+                Compatibility.valueOf(compatibility.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public boolean matches(ApiProblem problem) {
+        ProblemKind kind = problem.kind();
+        switch (compatibility) {
+            case BINARY:
+                return atLeast(kind.binarySeverity());
+            case SOURCE:
+                return atLeast(kind.sourceSeverity());
+            default:
+                return atLeast(kind.binarySeverity()) || atLeast(kind.sourceSeverity());
+        }
+    }
+
+    private boolean atLeast(Severity actual) {
+        return actual != null && actual.atLeast(severity);
+    }
+
+    @Override
+    public String toString() {
+        return severity + " " + compatibility;
+    }
+}
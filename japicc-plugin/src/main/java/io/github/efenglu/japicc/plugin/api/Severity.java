@@ -0,0 +1,14 @@
+package io.github.efenglu.japicc.plugin.api;
+
+/**
+ * Severity of a compatibility problem, in ascending order.
+ */
+public enum Severity {
+    LOW,
+    MEDIUM,
+    HIGH;
+
+    public boolean atLeast(Severity other) {
+        return compareTo(other) >= 0;
+    }
+}
@@ -0,0 +1,233 @@
+package io.github.efenglu.japicc.plugin.classfile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class, field or method attribute.  The body stays in the class file buffer and is only decoded by the accessor
+ * matching the attribute's kind.
+ */
+public final class Attribute {
+    private final ClassFile owner;
+    private final String name;
+    private final int start;
+    private final int offset;
+    private final int length;
+
+    Attribute(ClassFile owner, String name, int start, int offset, int length) {
+        this.owner = owner;
+        this.name = name;
+        this.start = start;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Offset of the attribute header (name index) in the backing buffer.
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Offset of the attribute body in the backing buffer.
+     */
+    public int offset() {
+        return offset;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Value of a Signature attribute.
+     */
+    public String signature() {
+        return owner.utf8(owner.u2(offset));
+    }
+
+    /**
+     * Value of a ConstantValue attribute.
+     */
+    public Object constantValue() {
+        return owner.constant(owner.u2(offset));
+    }
+
+    /**
+     * Internal names listed by an Exceptions attribute.
+     */
+    public List<String> exceptions() {
+        int count = owner.u2(offset);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(owner.className(owner.u2(offset + 2 + i * 2)));
+        }
+        return names;
+    }
+
+    /**
+     * Type descriptors of the annotations in a Runtime(In)VisibleAnnotations attribute.
+     */
+    public List<String> annotationTypes() {
+        int count = owner.u2(offset);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<String> types = new ArrayList<>(count);
+        int[] cursor = {offset + 2};
+        for (int i = 0; i < count; i++) {
+            types.add(owner.utf8(owner.u2(cursor[0])));
+            skipAnnotation(cursor);
+        }
+        return types;
+    }
+
+    /**
+     * Entries of an InnerClasses attribute.
+     */
+    public List<InnerClass> innerClasses() {
+        int count = owner.u2(offset);
+        List<InnerClass> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int entry = offset + 2 + i * 8;
+            int inner = owner.u2(entry);
+            int outer = owner.u2(entry + 2);
+            int simpleName = owner.u2(entry + 4);
+            entries.add(new InnerClass(
+                    owner.className(inner),
+                    outer == 0 ? null : owner.className(outer),
+                    simpleName == 0 ? null : owner.utf8(simpleName),
+                    owner.u2(entry + 6)));
+        }
+        return entries;
+    }
+
+    /**
+     * Exported packages listed by the Module attribute of a module descriptor.
+     */
+    public List<Export> exports() {
+        int pos = offset + 6;
+        int requires = owner.u2(pos);
+        pos += 2 + requires * 6;
+        int count = owner.u2(pos);
+        pos += 2;
+        List<Export> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String packageName = owner.className(owner.u2(pos));
+            int flags = owner.u2(pos + 2);
+            int targetCount = owner.u2(pos + 4);
+            pos += 6;
+            List<String> targets = new ArrayList<>(targetCount);
+            for (int j = 0; j < targetCount; j++) {
+                targets.add(owner.className(owner.u2(pos)));
+                pos += 2;
+            }
+            entries.add(new Export(packageName, flags, Collections.unmodifiableList(targets)));
+        }
+        return entries;
+    }
+
+    private void skipAnnotation(int[] cursor) {
+        int pairs = owner.u2(cursor[0] + 2);
+        cursor[0] += 4;
+        for (int i = 0; i < pairs; i++) {
+            cursor[0] += 2;
+            skipElementValue(cursor);
+        }
+    }
+
+    private void skipElementValue(int[] cursor) {
+        int tag = owner.u1(cursor[0]);
+        cursor[0] += 1;
+        switch (tag) {
+            case 'e':
+                cursor[0] += 4;
+                break;
+            case '@':
+                skipAnnotation(cursor);
+                break;
+            case '[':
+                int values = owner.u2(cursor[0]);
+                cursor[0] += 2;
+                for (int i = 0; i < values; i++) {
+                    skipElementValue(cursor);
+                }
+                break;
+            default:
+                cursor[0] += 2;
+                break;
+        }
+    }
+
+    /**
+     * One entry of the InnerClasses attribute.
+     */
+    public static final class InnerClass {
+        private final String innerName;
+        private final String outerName;
+        private final String simpleName;
+        private final int access;
+
+        InnerClass(String innerName, String outerName, String simpleName, int access) {
+            this.innerName = innerName;
+            this.outerName = outerName;
+            this.simpleName = simpleName;
+            this.access = access;
+        }
+
+        public String innerName() {
+            return innerName;
+        }
+
+        public String outerName() {
+            return outerName;
+        }
+
+        public String simpleName() {
+            return simpleName;
+        }
+
+        public int access() {
+            return access;
+        }
+    }
+
+    /**
+     * One entry of the exports table of the Module attribute.
+     */
+    public static final class Export {
+        private final String packageName;
+        private final int flags;
+        private final List<String> targets;
+
+        Export(String packageName, int flags, List<String> targets) {
+            this.packageName = packageName;
+            this.flags = flags;
+            this.targets = targets;
+        }
+
+        /**
+         * Internal name of the package, e.g. {@code java/lang}.
+         */
+        public String packageName() {
+            return packageName;
+        }
+
+        public int flags() {
+            return flags;
+        }
+
+        /**
+         * The modules of a qualified export, empty if the package is exported to every module.
+         */
+        public List<String> targets() {
+            return targets;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package io.github.efenglu.japicc.plugin.classfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A minimal, read-only view of a JVM class file.  Only the constant pool, the class header, fields, methods and
+ * attribute boundaries are decoded eagerly; attribute bodies are left in the backing buffer and decoded on demand.
+ */
+public final class ClassFile {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_PROTECTED = 0x0004;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SYNCHRONIZED = 0x0020;
+    public static final int ACC_BRIDGE = 0x0040;
+    public static final int ACC_VARARGS = 0x0080;
+    public static final int ACC_NATIVE = 0x0100;
+    public static final int ACC_INTERFACE = 0x0200;
+    public static final int ACC_ABSTRACT = 0x0400;
+    public static final int ACC_SYNTHETIC = 0x1000;
+    public static final int ACC_ANNOTATION = 0x2000;
+    public static final int ACC_ENUM = 0x4000;
+    public static final int ACC_MODULE = 0x8000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final byte[] bytes;
+    private final int[] cpOffsets;
+    private final String[] utf8Cache;
+    private final int constantPoolEnd;
+    private final int access;
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<Member> fields;
+    private final List<Member> methods;
+    private final List<Attribute> attributes;
+
+    private ClassFile(byte[] bytes) {
+        this.bytes = bytes;
+        if (u4(0) != 0xCAFEBABE) {
+            throw new ClassFormatException("Not a class file");
+        }
+        int count = u2(8);
+        cpOffsets = new int[count];
+        utf8Cache = new String[count];
+        int pos = 10;
+        for (int i = 1; i < count; i++) {
+            cpOffsets[i] = pos;
+            int tag = u1(pos);
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    pos += 3 + u2(pos + 1);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    pos += 5;
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    pos += 9;
+                    i++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    pos += 3;
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    pos += 4;
+                    break;
+                default:
+                    throw new ClassFormatException("Unknown constant pool tag " + tag + " at " + pos);
+            }
+        }
+        constantPoolEnd = pos;
+        access = u2(pos);
+        thisClass = u2(pos + 2);
+        superClass = u2(pos + 4);
+        int interfaceCount = u2(pos + 6);
+        pos += 8;
+        interfaces = new int[interfaceCount];
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces[i] = u2(pos);
+            pos += 2;
+        }
+        int[] cursor = {pos};
+        fields = readMembers(cursor);
+        methods = readMembers(cursor);
+        attributes = readAttributes(cursor);
+    }
+
+    /**
+     * Parse a class file held in memory.  The array is retained and must not be modified afterwards.
+     */
+    public static ClassFile parse(byte[] bytes) {
+        try {
+            return new ClassFile(bytes);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new ClassFormatException("Truncated class file", e);
+        }
+    }
+
+    /**
+     * Read the stream fully and parse it as a class file.
+     */
+    public static ClassFile parse(InputStream in) throws IOException {
+        return parse(readFully(in));
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private List<Member> readMembers(int[] cursor) {
+        int count = u2(cursor[0]);
+        cursor[0] += 2;
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = cursor[0];
+            int memberAccess = u2(start);
+            int name = u2(start + 2);
+            int descriptor = u2(start + 4);
+            cursor[0] += 6;
+            List<Attribute> memberAttributes = readAttributes(cursor);
+            members.add(new Member(this, start, memberAccess, name, descriptor, memberAttributes));
+        }
+        return Collections.unmodifiableList(members);
+    }
+
+    private List<Attribute> readAttributes(int[] cursor) {
+        int count = u2(cursor[0]);
+        cursor[0] += 2;
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<Attribute> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int name = u2(cursor[0]);
+            int length = u4(cursor[0] + 2);
+            list.add(new Attribute(this, utf8(name), cursor[0], cursor[0] + 6, length));
+            cursor[0] += 6 + length;
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Offset of the first byte after the constant pool, i.e. the class access flags.
+     */
+    public int constantPoolEnd() {
+        return constantPoolEnd;
+    }
+
+    public int access() {
+        return access;
+    }
+
+    public boolean isModuleInfo() {
+        return (access & ACC_MODULE) != 0;
+    }
+
+    /**
+     * Internal name of this class, e.g. {@code java/lang/String}.
+     */
+    public String name() {
+        return className(thisClass);
+    }
+
+    /**
+     * Internal name of the super class or {@code null} for {@code java/lang/Object} and module descriptors.
+     */
+    public String superName() {
+        return superClass == 0 ? null : className(superClass);
+    }
+
+    public List<String> interfaceNames() {
+        List<String> names = new ArrayList<>(interfaces.length);
+        for (int index : interfaces) {
+            names.add(className(index));
+        }
+        return names;
+    }
+
+    public List<Member> fields() {
+        return fields;
+    }
+
+    public List<Member> methods() {
+        return methods;
+    }
+
+    public List<Attribute> attributes() {
+        return attributes;
+    }
+
+    public Attribute attribute(String name) {
+        return find(attributes, name);
+    }
+
+    static Attribute find(List<Attribute> attributes, String name) {
+        for (Attribute attribute : attributes) {
+            if (attribute.name().equals(name)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decode a CONSTANT_Utf8 entry.
+     */
+    public String utf8(int index) {
+        String cached = utf8Cache[index];
+        if (cached != null) {
+            return cached;
+        }
+        int offset = cpOffsets[index];
+        if (u1(offset) != CONSTANT_UTF8) {
+            throw new ClassFormatException("Constant " + index + " is not a Utf8 entry");
+        }
+        int length = u2(offset + 1);
+        String value = decodeModifiedUtf8(offset + 3, length);
+        utf8Cache[index] = value;
+        return value;
+    }
+
+    /**
+     * Decode a CONSTANT_Class, CONSTANT_Module or CONSTANT_Package entry to its name.
+     */
+    public String className(int index) {
+        int offset = cpOffsets[index];
+        int tag = u1(offset);
+        if (tag != CONSTANT_CLASS && tag != CONSTANT_MODULE && tag != CONSTANT_PACKAGE) {
+            throw new ClassFormatException("Constant " + index + " is not a Class entry");
+        }
+        return utf8(u2(offset + 1));
+    }
+
+    /**
+     * Decode a loadable constant as used by the ConstantValue attribute.
+     */
+    public Object constant(int index) {
+        int offset = cpOffsets[index];
+        switch (u1(offset)) {
+            case CONSTANT_INTEGER:
+                return u4(offset + 1);
+            case CONSTANT_FLOAT:
+                return Float.intBitsToFloat(u4(offset + 1));
+            case CONSTANT_LONG:
+                return u8(offset + 1);
+            case CONSTANT_DOUBLE:
+                return Double.longBitsToDouble(u8(offset + 1));
+            case CONSTANT_STRING:
+                return utf8(u2(offset + 1));
+            default:
+                throw new ClassFormatException("Constant " + index + " is not a loadable value");
+        }
+    }
+
+    public int u1(int offset) {
+        return bytes[offset] & 0xFF;
+    }
+
+    public int u2(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    public int u4(int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    private long u8(int offset) {
+        return ((long) u4(offset) << 32) | (u4(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private String decodeModifiedUtf8(int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+        int pos = offset;
+        while (pos < end) {
+            int b = bytes[pos++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[pos++] & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[pos++] & 0x3F) << 6) | (bytes[pos++] & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * A field or method.
+     */
+    public static final class Member {
+        private final ClassFile owner;
+        private final int offset;
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private final List<Attribute> attributes;
+
+        Member(ClassFile owner, int offset, int access, int name, int descriptor, List<Attribute> attributes) {
+            this.owner = owner;
+            this.offset = offset;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.attributes = attributes;
+        }
+
+        /**
+         * Offset of the member's access flags in the backing buffer.
+         */
+        public int offset() {
+            return offset;
+        }
+
+        public int access() {
+            return access;
+        }
+
+        public String name() {
+            return owner.utf8(name);
+        }
+
+        public String descriptor() {
+            return owner.utf8(descriptor);
+        }
+
+        public List<Attribute> attributes() {
+            return attributes;
+        }
+
+        public Attribute attribute(String attributeName) {
+            return find(attributes, attributeName);
+        }
+    }
+}
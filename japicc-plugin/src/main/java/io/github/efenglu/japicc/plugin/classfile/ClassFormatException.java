@@ -0,0 +1,16 @@
+package io.github.efenglu.japicc.plugin.classfile;
+
+/**
+ * Thrown when a class file is malformed or uses a construct the reader does not understand.
+ */
+public class ClassFormatException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ClassFormatException(String message) {
+        super(message);
+    }
+
+    public ClassFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.efenglu.japicc.plugin.classfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Rewrites class files into API stubs: the class header, the non-private fields and methods with their signatures,
+ * constant values, annotations and thrown exceptions, without method bodies or debug information.  The constant
+ * pool is copied unchanged so every retained index stays valid.
+ */
+public final class ClassStubs {
+    private static final Set<String> DROPPED_ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "Code", "SourceFile", "SourceDebugExtension", "LineNumberTable", "LocalVariableTable",
+            "LocalVariableTypeTable", "StackMapTable"));
+
+    private ClassStubs() {
+    }
+
+    /**
+     * The stub of a class file.
+     */
+    public static byte[] stub(ClassFile classFile) {
+        byte[] bytes = classFile.bytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        // magic, version, constant pool, access flags, this, super and interfaces
+        int headerEnd = classFile.constantPoolEnd() + 8 + 2 * classFile.u2(classFile.constantPoolEnd() + 6);
+        out.write(bytes, 0, headerEnd);
+        writeMembers(out, classFile, classFile.fields());
+        writeMembers(out, classFile, classFile.methods());
+        writeAttributes(out, classFile, classFile.attributes());
+        return out.toByteArray();
+    }
+
+    /**
+     * Write a jar holding the stubs of every class file of the given jar or classes directory.  Resources are left
+     * out.
+     *
+     * @return the number of classes written
+     */
+    public static int writeJar(File source, File stubJar) throws IOException {
+        int classes = 0;
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(stubJar))) {
+            if (source.isDirectory()) {
+                Path root = source.toPath();
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(root)) {
+                    files = walk.filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+                    write(out, name, Files.readAllBytes(file), Files.getLastModifiedTime(file).toMillis());
+                    classes++;
+                }
+            } else {
+                try (ZipFile zip = new ZipFile(source)) {
+                    Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                            continue;
+                        }
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            write(out, entry.getName(), ClassFile.readFully(in), entry.getTime());
+                        }
+                        classes++;
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static void write(ZipOutputStream out, String name, byte[] bytes, long time) throws IOException {
+        ClassFile classFile;
+        try {
+            classFile = ClassFile.parse(bytes);
+        } catch (ClassFormatException e) {
+            throw new ClassFormatException(name + ": " + e.getMessage(), e);
+        }
+        ZipEntry entry = new ZipEntry(name);
+        // keep the stub of unchanged classes byte for byte identical
+        entry.setTime(time);
+        out.putNextEntry(entry);
+        out.write(stub(classFile));
+        out.closeEntry();
+    }
+
+    private static void writeMembers(ByteArrayOutputStream out, ClassFile classFile, List<ClassFile.Member> members) {
+        int count = 0;
+        for (ClassFile.Member member : members) {
+            if (isVisible(member)) {
+                count++;
+            }
+        }
+        writeU2(out, count);
+        for (ClassFile.Member member : members) {
+            if (isVisible(member)) {
+                // access flags, name and descriptor
+                out.write(classFile.bytes(), member.offset(), 6);
+                writeAttributes(out, classFile, member.attributes());
+            }
+        }
+    }
+
+    private static boolean isVisible(ClassFile.Member member) {
+        return (member.access() & (ClassFile.ACC_PRIVATE | ClassFile.ACC_SYNTHETIC)) == 0;
+    }
+
+    private static void writeAttributes(ByteArrayOutputStream out, ClassFile classFile, List<Attribute> attributes) {
+        int count = 0;
+        for (Attribute attribute : attributes) {
+            if (!DROPPED_ATTRIBUTES.contains(attribute.name())) {
+                count++;
+            }
+        }
+        writeU2(out, count);
+        for (Attribute attribute : attributes) {
+            if (!DROPPED_ATTRIBUTES.contains(attribute.name())) {
+                out.write(classFile.bytes(), attribute.start(), attribute.offset() - attribute.start() + attribute.length());
+            }
+        }
+    }
+
+    private static void writeU2(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.efenglu.japicc.plugin.report;
+
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.Severity;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Writes the HTML compatibility reports of the in-process engine.
+ */
+public class HtmlReport {
+    private final String title;
+    private final String oldVersion;
+    private final String newVersion;
+
+    public HtmlReport(String title, String oldVersion, String newVersion) {
+        this.title = title;
+        this.oldVersion = oldVersion;
+        this.newVersion = newVersion;
+    }
+
+    /**
+     * Write a report of every problem.
+     */
+    public void writeCombined(File file, List<ApiProblem> problems) throws IOException {
+        write(file, "Binary and Source Compatibility", problems, p -> true, ApiProblem::severity);
+    }
+
+    /**
+     * Write a report of the problems affecting binary compatibility.
+     */
+    public void writeBinary(File file, List<ApiProblem> problems) throws IOException {
+        write(file, "Binary Compatibility", problems, ApiProblem::isBinary, p -> p.kind().binarySeverity());
+    }
+
+    /**
+     * Write a report of the problems affecting source compatibility.
+     */
+    public void writeSource(File file, List<ApiProblem> problems) throws IOException {
+        write(file, "Source Compatibility", problems, ApiProblem::isSource, p -> p.kind().sourceSeverity());
+    }
+
+    private void write(File file,
+                       String heading,
+                       List<ApiProblem> problems,
+                       Predicate<ApiProblem> include,
+                       Function<ApiProblem, Severity> severity) throws IOException {
+        Map<Severity, Integer> counts = new EnumMap<>(Severity.class);
+        for (ApiProblem problem : problems) {
+            if (include.test(problem)) {
+                counts.merge(severity.apply(problem), 1, Integer::sum);
+            }
+        }
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+            out.write(escape(title + ": " + heading));
+            out.write("</title>\n</head>\n<body>\n<h1>");
+            out.write(escape(heading));
+            out.write(" Report</h1>\n<table>\n<tr><th>Library</th><td>");
+            out.write(escape(title));
+            out.write("</td></tr>\n<tr><th>Version #1</th><td>");
+            out.write(escape(oldVersion));
+            out.write("</td></tr>\n<tr><th>Version #2</th><td>");
+            out.write(escape(newVersion));
+            out.write("</td></tr>\n<tr><th>Verdict</th><td>");
+            out.write(total == 0 ? "Compatible" : "Incompatible");
+            out.write("</td></tr>\n</table>\n<h2>Problem Summary</h2>\n<table>\n");
+            for (Severity level : Severity.values()) {
+                out.write("<tr><th>" + level + "</th><td>" + counts.getOrDefault(level, 0) + "</td></tr>\n");
+            }
+            out.write("</table>\n");
+            if (total > 0) {
+                out.write("<h2>Problems</h2>\n<table>\n<tr><th>Severity</th><th>Type</th><th>Member</th>"
+                        + "<th>Change</th><th>Detail</th></tr>\n");
+                for (ApiProblem problem : problems) {
+                    if (!include.test(problem)) {
+                        continue;
+                    }
+                    out.write("<tr><td>");
+                    out.write(severity.apply(problem).name());
+                    out.write("</td><td>");
+                    out.write(escape(problem.type()));
+                    out.write("</td><td>");
+                    out.write(escape(problem.member() == null ? "" : problem.member()));
+                    out.write("</td><td>");
+                    out.write(escape(problem.kind().description()));
+                    out.write("</td><td>");
+                    out.write(escape(problem.detail() == null ? "" : problem.detail()));
+                    out.write("</td></tr>\n");
+                }
+                out.write("</table>\n");
+            }
+            out.write("</body>\n</html>\n");
+        }
+    }
+
+    static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.efenglu.japicc.plugin.report;
+
+import io.github.efenglu.japicc.plugin.api.ApiDiff;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemKind;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import io.github.efenglu.japicc.plugin.api.Severity;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Streams the result of a comparison as JSON.  Problems are written as they are reported, so the size of the result
+ * does not depend on memory, followed by the problem counts per severity and the verdict:
+ * <pre>
+ * {"library":..., "oldVersion":..., "newVersion":..., "engine":...,
+ *  "problems":[{"severity":"HIGH", "binarySeverity":"HIGH", "sourceSeverity":"HIGH", "kind":"REMOVED_METHOD",
+ *               "type":"a.B", "member":"m(int)", "detail":null, "description":...}, ...],
+ *  "summary":{"total":1, "failing":1, "binary":{"HIGH":1, ...}, "source":{...}},
+ *  "threshold":"LOW ANY", "compatible":false}
+ * </pre>
+ * A result without a threshold reports the verdict of an external checker, it has no {@code threshold} and counts
+ * no problem as failing.
+ */
+public class JsonResult implements ApiDiff.ProblemListener, Closeable {
+    private final Writer writer;
+    private final ProblemThreshold threshold;
+    private final Map<Severity, Integer> binary = new EnumMap<>(Severity.class);
+    private final Map<Severity, Integer> source = new EnumMap<>(Severity.class);
+    private int total;
+    private int failing;
+    private boolean finished;
+
+    /**
+     * @param threshold the problems failing the check, {@code null} if the verdict is determined elsewhere
+     */
+    public JsonResult(File file, String library, String oldVersion, String newVersion, String engine,
+                      ProblemThreshold threshold) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        this.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+        this.threshold = threshold;
+        writer.write("{\"library\":");
+        string(library);
+        writer.write(",\n\"oldVersion\":");
+        string(oldVersion);
+        writer.write(",\n\"newVersion\":");
+        string(newVersion);
+        writer.write(",\n\"engine\":");
+        string(engine);
+        writer.write(",\n\"problems\":[");
+    }
+
+    @Override
+    public void problem(ApiProblem problem) {
+        try {
+            write(problem);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(ApiProblem problem) throws IOException {
+        ProblemKind kind = problem.kind();
+        writer.write(total == 0 ? "\n" : ",\n");
+        writer.write("{\"severity\":");
+        string(problem.severity().name());
+        writer.write(",\"binarySeverity\":");
+        string(kind.binarySeverity() == null ? null : kind.binarySeverity().name());
+        writer.write(",\"sourceSeverity\":");
+        string(kind.sourceSeverity() == null ? null : kind.sourceSeverity().name());
+        writer.write(",\"kind\":");
+        string(kind.name());
+        writer.write(",\"type\":");
+        string(problem.type());
+        writer.write(",\"member\":");
+        string(problem.member());
+        writer.write(",\"detail\":");
+        string(problem.detail());
+        writer.write(",\"description\":");
+        string(kind.description());
+        writer.write('}');
+        total++;
+        if (threshold != null && threshold.matches(problem)) {
+            failing++;
+        }
+        if (kind.binarySeverity() != null) {
+            binary.merge(kind.binarySeverity(), 1, Integer::sum);
+        }
+        if (kind.sourceSeverity() != null) {
+            source.merge(kind.sourceSeverity(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Number of problems at or above the threshold reported so far.
+     */
+    public int getFailing() {
+        return failing;
+    }
+
+    /**
+     * Write the summary and the verdict derived from the threshold.
+     *
+     * @return whether no problem reached the threshold
+     */
+    public boolean finish() throws IOException {
+        return finish(failing == 0);
+    }
+
+    /**
+     * Write the summary with a verdict determined elsewhere, e.g. from the exit code of an external checker that
+     * does not report individual problems.
+     */
+    public boolean finish(boolean compatible) throws IOException {
+        writer.write("\n],\n\"summary\":{\"total\":" + total + ",\"failing\":" + failing + ",\"binary\":");
+        counts(binary);
+        writer.write(",\"source\":");
+        counts(source);
+        writer.write('}');
+        if (threshold != null) {
+            writer.write(",\n\"threshold\":");
+            string(threshold.toString());
+        }
+        writer.write(",\n\"compatible\":" + compatible + "}\n");
+        finished = true;
+        writer.close();
+        return compatible;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            writer.close();
+        }
+    }
+
+    private void counts(Map<Severity, Integer> counts) throws IOException {
+        writer.write('{');
+        for (Severity severity : Severity.values()) {
+            if (severity.ordinal() > 0) {
+                writer.write(',');
+            }
+            writer.write("\"" + severity + "\":" + counts.getOrDefault(severity, 0));
+        }
+        writer.write('}');
+    }
+
+    private void string(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,241 @@
+package io.github.efenglu.japicc.plugin.report;
+
+import io.github.efenglu.japicc.plugin.api.ApiDiff;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.Descriptors;
+import io.github.efenglu.japicc.plugin.api.Severity;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the report of a comparison as a small index of packages and one page per package, so huge change sets
+ * neither need to be held in memory nor loaded by the browser at once.  Problems are appended to the rows of their
+ * package as they are reported, only the problem counts of every package are kept.
+ * <p>
+ * Compressed pages are named {@code .html.gz} and linked without the suffix, as expected by web servers serving
+ * precompressed files.
+ */
+public class PagedHtmlReport implements ApiDiff.ProblemListener, Closeable {
+    private static final String ROWS = ".rows";
+    private static final String DEFAULT_PACKAGE = "default-package";
+
+    private final File directory;
+    private final boolean gzip;
+    private final String title;
+    private final String oldVersion;
+    private final String newVersion;
+    private final Map<String, Counts> packages = new TreeMap<>();
+    private String current;
+    private Writer rows;
+
+    private static final class Counts {
+        private final Map<Severity, Integer> binary = new EnumMap<>(Severity.class);
+        private final Map<Severity, Integer> source = new EnumMap<>(Severity.class);
+        private int total;
+    }
+
+    /**
+     * @param directory directory of the package pages, emptied of pages of earlier runs
+     */
+    public PagedHtmlReport(File directory, boolean gzip, String title, String oldVersion, String newVersion)
+            throws IOException {
+        this.directory = directory;
+        this.gzip = gzip;
+        this.title = title;
+        this.oldVersion = oldVersion;
+        this.newVersion = newVersion;
+        Files.createDirectories(directory.toPath());
+        File[] stale = directory.listFiles((dir, name) -> name.endsWith(".html") || name.endsWith(".html.gz")
+                || name.endsWith(ROWS));
+        if (stale != null) {
+            for (File file : stale) {
+                Files.delete(file.toPath());
+            }
+        }
+    }
+
+    @Override
+    public void problem(ApiProblem problem) {
+        try {
+            write(problem);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(ApiProblem problem) throws IOException {
+        String packageName = Descriptors.packageName(problem.type());
+        if (!packageName.equals(current)) {
+            // classes are compared in name order, so a package is rarely visited twice
+            closeRows();
+            rows = Files.newBufferedWriter(rowsFile(packageName).toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            current = packageName;
+        }
+        Counts counts = packages.computeIfAbsent(packageName, p -> new Counts());
+        counts.total++;
+        Severity binary = problem.kind().binarySeverity();
+        Severity source = problem.kind().sourceSeverity();
+        if (binary != null) {
+            counts.binary.merge(binary, 1, Integer::sum);
+        }
+        if (source != null) {
+            counts.source.merge(source, 1, Integer::sum);
+        }
+        rows.write("<tr><td>");
+        rows.write(binary == null ? "" : binary.name());
+        rows.write("</td><td>");
+        rows.write(source == null ? "" : source.name());
+        rows.write("</td><td>");
+        rows.write(HtmlReport.escape(problem.type()));
+        rows.write("</td><td>");
+        rows.write(HtmlReport.escape(problem.member() == null ? "" : problem.member()));
+        rows.write("</td><td>");
+        rows.write(HtmlReport.escape(problem.kind().description()));
+        rows.write("</td><td>");
+        rows.write(HtmlReport.escape(problem.detail() == null ? "" : problem.detail()));
+        rows.write("</td></tr>\n");
+    }
+
+    /**
+     * Write the page of every package and the index linking them.
+     *
+     * @param indexes the files to write the index to
+     */
+    public void write(List<File> indexes, boolean compatible) throws IOException {
+        closeRows();
+        for (String packageName : packages.keySet()) {
+            writePage(packageName);
+        }
+        for (File index : indexes) {
+            writeIndex(index, compatible);
+        }
+    }
+
+    private void writePage(String packageName) throws IOException {
+        File rowsFile = rowsFile(packageName);
+        File page = new File(directory, pageName(packageName) + (gzip ? ".gz" : ""));
+        try (OutputStream stream = Files.newOutputStream(page.toPath());
+             Writer out = new BufferedWriter(new OutputStreamWriter(gzip ? new GZIPOutputStream(stream) : stream,
+                     StandardCharsets.UTF_8));
+             Reader in = Files.newBufferedReader(rowsFile.toPath(), StandardCharsets.UTF_8)) {
+            String name = packageName.isEmpty() ? "(default package)" : packageName;
+            out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+            out.write(HtmlReport.escape(title + ": " + name));
+            out.write("</title>\n</head>\n<body>\n<h1>");
+            out.write(HtmlReport.escape(name));
+            out.write("</h1>\n<table>\n<tr><th>Binary</th><th>Source</th><th>Type</th><th>Member</th>"
+                    + "<th>Change</th><th>Detail</th></tr>\n");
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            out.write("</table>\n</body>\n</html>\n");
+        }
+        Files.delete(rowsFile.toPath());
+    }
+
+    private void writeIndex(File file, boolean compatible) throws IOException {
+        Map<Severity, Integer> binary = new EnumMap<>(Severity.class);
+        Map<Severity, Integer> source = new EnumMap<>(Severity.class);
+        for (Counts counts : packages.values()) {
+            counts.binary.forEach((level, count) -> binary.merge(level, count, Integer::sum));
+            counts.source.forEach((level, count) -> source.merge(level, count, Integer::sum));
+        }
+        Path parent = file.getAbsoluteFile().getParentFile().toPath();
+        Files.createDirectories(parent);
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+            out.write(HtmlReport.escape(title + ": Compatibility"));
+            out.write("</title>\n</head>\n<body>\n<h1>Compatibility Report</h1>\n<table>\n<tr><th>Library</th><td>");
+            out.write(HtmlReport.escape(title));
+            out.write("</td></tr>\n<tr><th>Version #1</th><td>");
+            out.write(HtmlReport.escape(oldVersion));
+            out.write("</td></tr>\n<tr><th>Version #2</th><td>");
+            out.write(HtmlReport.escape(newVersion));
+            out.write("</td></tr>\n<tr><th>Verdict</th><td>");
+            out.write(compatible ? "Compatible" : "Incompatible");
+            out.write("</td></tr>\n</table>\n<h2>Problem Summary</h2>\n<table>\n"
+                    + "<tr><th></th><th>Binary</th><th>Source</th></tr>\n");
+            for (Severity level : Severity.values()) {
+                out.write("<tr><th>" + level + "</th><td>" + binary.getOrDefault(level, 0) + "</td><td>"
+                        + source.getOrDefault(level, 0) + "</td></tr>\n");
+            }
+            out.write("</table>\n");
+            if (!packages.isEmpty()) {
+                out.write("<h2>Packages</h2>\n<table>\n<tr><th>Package</th><th>Problems</th><th>Binary</th>"
+                        + "<th>Source</th></tr>\n");
+                for (Map.Entry<String, Counts> entry : packages.entrySet()) {
+                    String href = parent.relativize(new File(directory, pageName(entry.getKey()))
+                            .getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+                    out.write("<tr><td><a href=\"" + HtmlReport.escape(href) + "\">");
+                    out.write(HtmlReport.escape(entry.getKey().isEmpty() ? "(default package)" : entry.getKey()));
+                    out.write("</a></td><td>" + entry.getValue().total + "</td><td>");
+                    out.write(summary(entry.getValue().binary));
+                    out.write("</td><td>");
+                    out.write(summary(entry.getValue().source));
+                    out.write("</td></tr>\n");
+                }
+                out.write("</table>\n");
+            }
+            out.write("</body>\n</html>\n");
+        }
+    }
+
+    private static String summary(Map<Severity, Integer> counts) {
+        StringBuilder summary = new StringBuilder();
+        for (int i = Severity.values().length - 1; i >= 0; i--) {
+            Integer count = counts.get(Severity.values()[i]);
+            if (count != null) {
+                summary.append(summary.length() == 0 ? "" : ", ").append(count).append(' ')
+                        .append(Severity.values()[i]);
+            }
+        }
+        return summary.toString();
+    }
+
+    private static String pageName(String packageName) {
+        return (packageName.isEmpty() ? DEFAULT_PACKAGE : packageName) + ".html";
+    }
+
+    private File rowsFile(String packageName) {
+        return new File(directory, (packageName.isEmpty() ? DEFAULT_PACKAGE : packageName) + ROWS);
+    }
+
+    private void closeRows() throws IOException {
+        if (rows != null) {
+            rows.close();
+            rows = null;
+            current = null;
+        }
+    }
+
+    /**
+     * Release the open page, deleting the rows of pages that were not written.
+     */
+    @Override
+    public void close() throws IOException {
+        closeRows();
+        for (String packageName : packages.keySet()) {
+            Files.deleteIfExists(rowsFile(packageName).toPath());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.efenglu.japicc.plugin.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the report of a sharded comparison: the overall verdict and a link to the reports of every shard.
+ */
+public class ShardIndex {
+    private final String title;
+    private final String oldVersion;
+    private final String newVersion;
+
+    /**
+     * The outcome of one shard.
+     */
+    public static final class Shard {
+        private final String name;
+        private final int classes;
+        private final boolean compatible;
+        private final File report;
+        private final File binReport;
+        private final File srcReport;
+
+        public Shard(String name, int classes, boolean compatible, File report, File binReport, File srcReport) {
+            this.name = name;
+            this.classes = classes;
+            this.compatible = compatible;
+            this.report = report;
+            this.binReport = binReport;
+            this.srcReport = srcReport;
+        }
+    }
+
+    public ShardIndex(String title, String oldVersion, String newVersion) {
+        this.title = title;
+        this.oldVersion = oldVersion;
+        this.newVersion = newVersion;
+    }
+
+    public void write(File file, List<Shard> shards) throws IOException {
+        boolean compatible = shards.stream().allMatch(s -> s.compatible);
+        Path directory = file.getAbsoluteFile().getParentFile().toPath();
+        Files.createDirectories(directory);
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+            out.write(HtmlReport.escape(title + ": Compatibility"));
+            out.write("</title>\n</head>\n<body>\n<h1>Compatibility Report</h1>\n<table>\n<tr><th>Library</th><td>");
+            out.write(HtmlReport.escape(title));
+            out.write("</td></tr>\n<tr><th>Version #1</th><td>");
+            out.write(HtmlReport.escape(oldVersion));
+            out.write("</td></tr>\n<tr><th>Version #2</th><td>");
+            out.write(HtmlReport.escape(newVersion));
+            out.write("</td></tr>\n<tr><th>Verdict</th><td>");
+            out.write(compatible ? "Compatible" : "Incompatible");
+            out.write("</td></tr>\n</table>\n<h2>Shards</h2>\n<p>Each shard also checks the super types of its "
+                    + "classes, so a problem of a super type can appear in several shards.</p>\n<table>\n"
+                    + "<tr><th>Shard</th><th>Classes</th><th>Verdict</th><th>Reports</th></tr>\n");
+            for (Shard shard : shards) {
+                out.write("<tr><td>");
+                out.write(HtmlReport.escape(shard.name));
+                out.write("</td><td>" + shard.classes + "</td><td>");
+                out.write(shard.compatible ? "Compatible" : "Incompatible");
+                out.write("</td><td>");
+                link(out, directory, shard.report, "Binary and Source");
+                out.write(" | ");
+                link(out, directory, shard.binReport, "Binary");
+                out.write(" | ");
+                link(out, directory, shard.srcReport, "Source");
+                out.write("</td></tr>\n");
+            }
+            out.write("</table>\n</body>\n</html>\n");
+        }
+    }
+
+    private static void link(Writer out, Path directory, File report, String label) throws IOException {
+        String href = directory.relativize(report.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+        out.write("<a href=\"" + HtmlReport.escape(href) + "\">" + label + "</a>");
+    }
+}
@@ -0,0 +1,175 @@
+#!/usr/bin/perl
+#
+# Runs japi-compliance-checker jobs submitted on standard input.  The Perl modules used by the checker are loaded
+# once, every job runs in a forked child with its own process group, so jobs can neither affect each other nor the
+# daemon.
+#
+# Requests:
+#   JOB <id> <n>   followed by n lines: the stdout file, the stderr file and the checker arguments
+#   KILL <id>      terminate a queued or running job
+# Responses:
+#   READY <pid>
+#   START <id> <pid>
+#   EXIT <id> <exit code>
+#   BYE <reason>
+#
+# The daemon exits once standard input is closed and all jobs have finished, or after being idle for --idle
+# seconds.
+#
+use strict;
+use warnings;
+use Cwd qw(abs_path);
+use File::Basename qw(dirname);
+use Getopt::Long;
+use IO::Handle;
+use IO::Select;
+use POSIX qw(:sys_wait_h);
+
+my $Workers = 1;
+my $Idle = 60;
+GetOptions("workers=i" => \$Workers, "idle=i" => \$Idle) or exit(2);
+$Workers = 1 if $Workers < 1;
+
+my $Home = dirname(abs_path(__FILE__));
+my $Checker = "$Home/japi-compliance-checker.pl";
+my $KillGrace = 5;
+
+my @Queue;
+my %Running;  # pid => job id
+my %Pids;     # job id => pid
+my %KillAt;   # pid => time of the SIGKILL
+my $Pending;
+my $Buffer = "";
+my $Eof = 0;
+my $LastActivity = time;
+
+preload();
+STDOUT->autoflush(1);
+print "READY $$\n";
+
+my $Input = IO::Select->new(\*STDIN);
+while (1) {
+    reap();
+    while (@Queue and keys(%Running) < $Workers) {
+        start(shift(@Queue));
+    }
+    if ($Eof) {
+        last if not %Running;
+        select(undef, undef, undef, 0.1);
+        next;
+    }
+    if ($Input->can_read(0.1)) {
+        my $Read = sysread(STDIN, $Buffer, 65536, length($Buffer));
+        if (not $Read) {
+            $Eof = 1;
+            @Queue = ();
+            next;
+        }
+        $LastActivity = time;
+        parse();
+    }
+    elsif (not %Running and not @Queue and not $Pending and $Idle > 0 and time - $LastActivity >= $Idle) {
+        print "BYE idle\n";
+        exit(0);
+    }
+}
+print "BYE eof\n";
+exit(0);
+
+sub preload {
+    foreach my $Module (qw(Getopt::Long File::Path File::Temp File::Copy File::Spec File::Basename Cwd Config
+            Data::Dumper Digest::MD5 Time::HiRes)) {
+        eval "require $Module; 1";
+    }
+    # the checker requires its modules by absolute path, so these are not loaded again
+    foreach my $File (glob("$Home/modules/Internals/*.pm"), glob("$Home/modules/Internals/*/*.pm")) {
+        if (not eval { require $File; 1 }) {
+            delete($INC{$File});
+        }
+    }
+}
+
+sub parse {
+    while ($Buffer =~ s/\A([^\n]*)\n//) {
+        my $Line = $1;
+        if ($Pending) {
+            push(@{$Pending->{"Lines"}}, $Line);
+            if (@{$Pending->{"Lines"}} == $Pending->{"Count"}) {
+                push(@Queue, $Pending);
+                $Pending = undef;
+            }
+        }
+        elsif ($Line =~ /\AJOB (\S+) (\d+)\z/ and $2 >= 2) {
+            $Pending = { "Id" => $1, "Count" => $2, "Lines" => [] };
+        }
+        elsif ($Line =~ /\AKILL (\S+)\z/) {
+            kill_job($1);
+        }
+        else {
+            print STDERR "japicc-daemon: ignoring request '$Line'\n";
+        }
+    }
+}
+
+sub start {
+    my $Job = shift;
+    my ($Out, $Err, @Args) = @{$Job->{"Lines"}};
+    my $Pid = fork();
+    if (not defined $Pid) {
+        print STDERR "japicc-daemon: fork failed: $!\n";
+        print "EXIT $Job->{Id} 255\n";
+        return;
+    }
+    if ($Pid == 0) {
+        setpgrp(0, 0);
+        open(STDIN, "<", "/dev/null");
+        open(STDOUT, ">", $Out) or POSIX::_exit(255);
+        open(STDERR, ">", $Err) or POSIX::_exit(255);
+        STDOUT->autoflush(1);
+        STDERR->autoflush(1);
+        $0 = $Checker;
+        @ARGV = @Args;
+        do $Checker;
+        if ($@) {
+            print STDERR $@;
+            exit(255);
+        }
+        exit(0);
+    }
+    $Running{$Pid} = $Job->{"Id"};
+    $Pids{$Job->{"Id"}} = $Pid;
+    print "START $Job->{Id} $Pid\n";
+}
+
+sub kill_job {
+    my $Id = shift;
+    my @Remaining = grep { $_->{"Id"} ne $Id } @Queue;
+    if (@Remaining != @Queue) {
+        @Queue = @Remaining;
+        print "EXIT $Id 143\n";
+        return;
+    }
+    my $Pid = $Pids{$Id};
+    if (defined $Pid) {
+        kill("TERM", -$Pid);
+        $KillAt{$Pid} = time + $KillGrace;
+    }
+}
+
+sub reap {
+    while ((my $Pid = waitpid(-1, WNOHANG)) > 0) {
+        my $Id = delete($Running{$Pid});
+        next if not defined $Id;
+        delete($Pids{$Id});
+        delete($KillAt{$Pid});
+        my $Code = WIFEXITED($?) ? WEXITSTATUS($?) : 128 + WTERMSIG($?);
+        print "EXIT $Id $Code\n";
+        $LastActivity = time;
+    }
+    foreach my $Pid (keys(%KillAt)) {
+        if (time >= $KillAt{$Pid}) {
+            kill("KILL", -$Pid);
+            delete($KillAt{$Pid});
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BaselineConfigurationTest {
+    private static final String PLUGIN_KEY = "io.github.efenglu:japicc-plugin";
+
+    private MavenExecutionRequest request;
+    private MavenSession session;
+    private MavenProject project;
+
+    @Before
+    @SuppressWarnings("deprecation") // the supported constructor needs a container
+    public void createProject() {
+        request = new DefaultMavenExecutionRequest();
+        session = new MavenSession(null, (RepositorySystemSession) null, request, new DefaultMavenExecutionResult());
+        project = new MavenProject();
+        project.setGroupId("g");
+        project.setArtifactId("a");
+        project.setVersion("2.1.0");
+        project.setBuild(new Build());
+    }
+
+    @Test
+    public void moduleWithoutPluginHasNone() {
+        assertNull(BaselineConfiguration.of(session, project, PLUGIN_KEY));
+    }
+
+    @Test
+    public void readsPluginConfiguration() throws Exception {
+        addPlugin("<configuration>"
+                + "<previousArtifactId>old</previousArtifactId>"
+                + "<previousVersions><previousVersion>1.0</previousVersion><previousVersion> 1.1 </previousVersion>"
+                + "</previousVersions>"
+                + "<classifiers>tests, sources</classifiers>"
+                + "<engine>java</engine>"
+                + "</configuration>", null);
+        BaselineConfiguration configuration = BaselineConfiguration.of(session, project, PLUGIN_KEY);
+        assertFalse(configuration.isSkip());
+        assertEquals("g", configuration.getGroupId());
+        assertEquals("old", configuration.getArtifactId());
+        assertEquals(Arrays.asList("1.0", "1.1"), configuration.getVersions());
+        assertEquals(1, configuration.getReleases());
+        assertEquals(Arrays.asList("tests", "sources"), configuration.getClassifiers());
+        assertFalse(configuration.isCheckAttached());
+        assertTrue(configuration.isApiSnapshots());
+    }
+
+    @Test
+    public void prefersConfigurationOfCheckExecution() throws Exception {
+        addPlugin("<configuration><previousVersion>1.0</previousVersion></configuration>",
+                "<configuration><previousVersion>1.2</previousVersion><skip>true</skip></configuration>");
+        BaselineConfiguration configuration = BaselineConfiguration.of(session, project, PLUGIN_KEY);
+        assertTrue(configuration.isSkip());
+        assertEquals(Collections.singletonList("1.2"), configuration.getVersions());
+    }
+
+    @Test
+    public void fallsBackToProperties() throws Exception {
+        addPlugin(null, null);
+        project.getProperties().setProperty("japicc.previousReleases", "3");
+        project.getProperties().setProperty("japicc.previousVersion", "1.0");
+        request.getUserProperties().setProperty("japicc.previousVersion", "1.5");
+        BaselineConfiguration configuration = BaselineConfiguration.of(session, project, PLUGIN_KEY);
+        assertEquals(Collections.singletonList("1.5"), configuration.getVersions());
+        assertEquals(3, configuration.getReleases());
+        assertEquals("a", configuration.getArtifactId());
+        assertEquals(Collections.<String>emptyList(), configuration.getClassifiers());
+        // the perl engine is the default and compares jars
+        assertFalse(configuration.isApiSnapshots());
+    }
+
+    @Test
+    public void comparingGoalDecidesOnApiSnapshots() throws Exception {
+        addPlugin("<configuration><engine>java</engine><previousReleases>2</previousReleases>"
+                + "<checkAttached>true</checkAttached></configuration>", null);
+        BaselineConfiguration module = BaselineConfiguration.of(session, project, PLUGIN_KEY);
+        assertTrue(module.isApiSnapshots());
+        BaselineConfiguration aggregate = module.withApiSnapshots(false);
+        assertFalse(aggregate.isApiSnapshots());
+        assertEquals(2, aggregate.getReleases());
+        assertTrue(aggregate.isCheckAttached());
+        assertTrue(module.withApiSnapshots(true) == module);
+    }
+
+    private void addPlugin(String configuration, String checkConfiguration)
+            throws IOException, XmlPullParserException {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("io.github.efenglu");
+        plugin.setArtifactId("japicc-plugin");
+        if (configuration != null) {
+            plugin.setConfiguration(Xpp3DomBuilder.build(new StringReader(configuration)));
+        }
+        if (checkConfiguration != null) {
+            PluginExecution execution = new PluginExecution();
+            execution.setGoals(Collections.singletonList(BaselineConfiguration.CHECK_GOAL));
+            execution.setConfiguration(Xpp3DomBuilder.build(new StringReader(checkConfiguration)));
+            plugin.addExecution(execution);
+        }
+        project.getBuild().addPlugin(plugin);
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CheckHistoryTest {
+    private File directory;
+    private CheckHistory history;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("history").toFile();
+        history = new CheckHistory(new File(directory, "g/a.tsv"));
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void emptyWithoutFile() throws IOException {
+        assertTrue(history.read().isEmpty());
+        assertEquals(-1, history.typicalMillis("k"));
+        assertEquals(0, history.runsSince("k", "other"));
+    }
+
+    @Test
+    public void typicalMillisIsMedianOfRecentChecks() throws IOException {
+        append(CheckHistory.FULL, 100, "k");
+        append(CheckHistory.FULL, 300, "k");
+        assertEquals(-1, history.typicalMillis("k"));
+
+        // skipped checks and checks of other configurations do not count
+        append(CheckHistory.SKIPPED, 5, "k");
+        append(CheckHistory.FULL, 9000, "other");
+        assertEquals(-1, history.typicalMillis("k"));
+
+        append(CheckHistory.FULL, 200, "k");
+        assertEquals(200, history.typicalMillis("k"));
+        append(CheckHistory.FULL, 1000, "k");
+        append(CheckHistory.FULL, 2000, "k");
+        assertEquals(300, history.typicalMillis("k"));
+        // the latest three only
+        assertEquals(1000, history.typicalMillis("k", CheckHistory.MIN_RUNS));
+    }
+
+    @Test
+    public void countsRunsSinceOtherConfiguration() throws IOException {
+        append(CheckHistory.REDUCED, 10, "quick");
+        append(CheckHistory.FULL, 100, "full");
+        append(CheckHistory.REDUCED, 10, "quick");
+        append(CheckHistory.SKIPPED, 1, "full");
+        append(CheckHistory.REDUCED, 10, "quick");
+        assertEquals(2, history.runsSince("quick", "full"));
+        assertEquals(3, history.runsSince("quick", "none"));
+    }
+
+    @Test
+    public void ignoresMalformedLines() throws IOException {
+        append(CheckHistory.FULL, 100, "k");
+        Files.write(history.getFile().toPath(), Arrays.asList("garbage", "1\tx\tfull\tjava\t1.0\t1\t1\tk"),
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        append(CheckHistory.FULL, 100, "k");
+        assertEquals(2, history.read().size());
+    }
+
+    @Test
+    public void dropsOldestHalfOfLongHistory() throws IOException {
+        for (int i = 0; i < 201; i++) {
+            append(CheckHistory.FULL, i, "k");
+        }
+        assertEquals(100, history.read().size());
+        assertEquals(199, history.typicalMillis("k", CheckHistory.MIN_RUNS));
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(1, history.getFile().getParentFile().list().length);
+    }
+
+    private void append(String mode, long millis, String configuration) throws IOException {
+        history.append(new CheckHistory.Run(System.currentTimeMillis(), millis, mode, "java", "1.0", 10, 10,
+                configuration));
+    }
+}
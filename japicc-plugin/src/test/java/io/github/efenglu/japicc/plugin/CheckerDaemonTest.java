@@ -0,0 +1,126 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CheckerDaemonTest {
+    /**
+     * Stands in for japi-compliance-checker.pl: prints its arguments and exits with the first one, or sleeps.
+     */
+    private static final String CHECKER = "if ($ARGV[0] eq 'sleep') { sleep(60); }\n"
+            + "print \"out @ARGV\\n\";\n"
+            + "print STDERR \"err\\n\";\n"
+            + "exit($ARGV[0]);\n";
+
+    private File directory;
+    private File daemonScript;
+    private RecordingLog log;
+
+    @Before
+    public void installDaemon() throws IOException {
+        Assume.assumeTrue(new File("/usr/bin/perl").canExecute());
+        directory = Files.createTempDirectory("daemon").toFile();
+        daemonScript = new File(directory, ScriptInstaller.DAEMON);
+        try (InputStream in = CheckerDaemon.class.getResourceAsStream("/" + ScriptInstaller.DAEMON)) {
+            Files.copy(in, daemonScript.toPath());
+        }
+        Files.write(new File(directory, "japi-compliance-checker.pl").toPath(),
+                CHECKER.getBytes(StandardCharsets.UTF_8));
+        log = new RecordingLog();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        if (directory != null) {
+            JavaSources.delete(directory);
+        }
+    }
+
+    @Test
+    public void runsJobsAndForwardsOutput() throws Exception {
+        CheckerDaemon daemon = daemon(1);
+        assertEquals(3, daemon.run(Arrays.asList("3", "a b"), log, 60));
+        assertEquals("out 3 a b", log.info.get(0));
+        assertTrue(log.info.get(1).startsWith("JAPICC exited with 3 after "));
+        assertEquals(Collections.singletonList("err"), log.warn);
+
+        // the same daemon runs the next job
+        assertEquals(0, daemon.run(Collections.singletonList("0"), new RecordingLog(), 60));
+    }
+
+    @Test
+    public void sharesDaemonOfSameConfiguration() {
+        assertTrue(daemon(1) == daemon(1));
+        assertTrue(daemon(1) != daemon(2));
+    }
+
+    @Test
+    public void killsJobAfterTimeout() throws Exception {
+        CheckerDaemon daemon = daemon(1);
+        long start = System.nanoTime();
+        try {
+            daemon.run(Collections.singletonList("sleep"), log, 1);
+            fail();
+        } catch (MojoExecutionException e) {
+            assertEquals("JAPICC did not finish within 1 seconds", e.getMessage());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+        assertEquals(5, daemon.run(Collections.singletonList("5"), new RecordingLog(), 60));
+    }
+
+    @Test
+    public void restartsDaemonAfterIdleExit() throws Exception {
+        CheckerDaemon daemon = CheckerDaemon.get("perl", daemonScript, 1, 1, 1, 0, log);
+        assertEquals(1, daemon.run(Collections.singletonList("1"), log, 60));
+        Thread.sleep(2500);
+        assertEquals(2, daemon.run(Collections.singletonList("2"), log, 60));
+    }
+
+    @Test
+    public void rejectsArgumentsWithLineBreak() throws MojoExecutionException {
+        try {
+            daemon(1).run(Arrays.asList("0", "a\nb"), log, 60);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Argument with line break can not be passed to the daemon: a\nb", e.getMessage());
+        }
+    }
+
+    private CheckerDaemon daemon(int workers) {
+        return CheckerDaemon.get("perl", daemonScript, workers, 4, 10, 0, log);
+    }
+
+    private static final class RecordingLog extends SystemStreamLog {
+        private final List<String> info = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> warn = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void info(CharSequence content) {
+            info.add(content.toString());
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            warn.add(content.toString());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CheckerProcessTest {
+    private RecordingLog log;
+
+    @Before
+    public void createLog() {
+        log = new RecordingLog();
+    }
+
+    @Test
+    public void commandWithoutMemoryLimitIsUnchanged() {
+        List<String> command = Arrays.asList("perl", "japi-compliance-checker.pl", "-l", "a b");
+        assertEquals(command, CheckerProcess.wrap(command, 0));
+    }
+
+    @Test
+    public void memoryLimitWrapsCommandInShell() {
+        assertEquals(Arrays.asList("/bin/sh", "-c", "ulimit -v 2097152 && exec \"$0\" \"$@\"",
+                "perl", "japi-compliance-checker.pl", "-l", "a b"),
+                CheckerProcess.wrap(Arrays.asList("perl", "japi-compliance-checker.pl", "-l", "a b"), 2048));
+    }
+
+    @Test
+    public void forwardsOutputAndReturnsExitCode() throws MojoExecutionException {
+        assumeShell();
+        int exitCode = new CheckerProcess(Arrays.asList("/bin/sh", "-c", "echo out; echo err >&2; exit 3"),
+                log, 60, 0).run();
+        assertEquals(3, exitCode);
+        assertTrue(log.info.contains("out"));
+        assertEquals(Collections.singletonList("err"), log.warn);
+        assertTrue(log.info.get(log.info.size() - 1).startsWith("JAPICC exited with 3 after "));
+    }
+
+    @Test
+    public void appliesMemoryLimit() throws MojoExecutionException {
+        assumeShell();
+        new CheckerProcess(Arrays.asList("/bin/sh", "-c", "ulimit -v"), log, 60, 512).run();
+        assertEquals("524288", log.info.get(0));
+    }
+
+    @Test
+    public void killsProcessAfterTimeout() {
+        assumeShell();
+        long start = System.nanoTime();
+        try {
+            new CheckerProcess(Arrays.asList("/bin/sh", "-c", "sleep 60"), log, 1, 0).run();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertEquals("JAPICC did not finish within 1 seconds", e.getMessage());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    }
+
+    @Test
+    public void missingCommandFails() {
+        try {
+            new CheckerProcess(Collections.singletonList("/no/such/command"), log, 60, 0).run();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertEquals("IO Error while validating", e.getMessage());
+        }
+    }
+
+    private static void assumeShell() {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+    }
+
+    private static final class RecordingLog extends SystemStreamLog {
+        private final List<String> info = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> warn = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void info(CharSequence content) {
+            info.add(content.toString());
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            warn.add(content.toString());
+        }
+    }
+}
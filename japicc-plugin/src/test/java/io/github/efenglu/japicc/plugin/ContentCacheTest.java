@@ -0,0 +1,124 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ContentCacheTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("cache").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void putAndGet() throws IOException {
+        ContentCache cache = new ContentCache(new File(directory, "entries"), 1000, new SystemStreamLog());
+        assertNull(cache.get("a"));
+        File entry = cache.put("a", file -> Files.write(file.toPath(), new byte[]{1, 2, 3}));
+        assertEquals(new File(cache.getDirectory(), "a"), entry);
+        assertEquals(entry, cache.get("a"));
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(entry.toPath()));
+    }
+
+    @Test
+    public void failedWriterLeavesNoEntry() throws IOException {
+        ContentCache cache = new ContentCache(directory, 1000, new SystemStreamLog());
+        try {
+            cache.put("a", file -> {
+                Files.write(file.toPath(), new byte[]{1});
+                throw new IOException("failed");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertNull(cache.get("a"));
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntries() throws IOException {
+        long now = System.currentTimeMillis();
+        File a = entry("a", now - TimeUnit.MINUTES.toMillis(3));
+        File b = entry("b", now - TimeUnit.MINUTES.toMillis(2));
+
+        // reading marks a as recently used, so b is evicted when c exceeds the limit
+        ContentCache cache = new ContentCache(directory, 25, new SystemStreamLog());
+        cache.get("a");
+        File c = cache.put("c", file -> Files.write(file.toPath(), new byte[10]));
+        assertTrue(a.isFile());
+        assertFalse(b.exists());
+        assertTrue(c.isFile());
+    }
+
+    @Test
+    public void neverEvictsNewEntry() throws IOException {
+        File a = entry("a", System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+        ContentCache cache = new ContentCache(directory, 5, new SystemStreamLog());
+        File b = cache.put("b", file -> Files.write(file.toPath(), new byte[10]));
+        assertFalse(a.exists());
+        assertTrue(b.isFile());
+    }
+
+    @Test
+    public void neverEvictsEntriesInUse() throws IOException {
+        File a = entry("a", System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2));
+        File b = entry("b", System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+        Set<File> inUse = ConcurrentHashMap.newKeySet();
+        new ContentCache(directory, 15, new SystemStreamLog(), null, inUse).get("a");
+        // a cache of another module of the same build
+        File c = new ContentCache(directory, 15, new SystemStreamLog(), null, inUse)
+                .put("c", file -> Files.write(file.toPath(), new byte[10]));
+        assertTrue(a.isFile());
+        assertFalse(b.exists());
+        assertTrue(c.isFile());
+        assertEquals(new HashSet<>(Arrays.asList(a, c)), inUse);
+    }
+
+    @Test
+    public void deletesStaleTemporaryFiles() throws IOException {
+        ContentCache cache = new ContentCache(directory, 1000, new SystemStreamLog());
+        File stale = new File(directory, ".tmp-stale");
+        File fresh = new File(directory, ".tmp-fresh");
+        Files.write(stale.toPath(), new byte[1]);
+        Files.write(fresh.toPath(), new byte[1]);
+        assertTrue(stale.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+        cache.evict(null);
+        assertFalse(stale.exists());
+        assertTrue(fresh.exists());
+    }
+
+    /**
+     * Create an entry as left by an earlier build.
+     */
+    private File entry(String name, long lastModified) throws IOException {
+        File file = new ContentCache(directory, Long.MAX_VALUE, new SystemStreamLog())
+                .put(name, f -> Files.write(f.toPath(), new byte[10]));
+        assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+}
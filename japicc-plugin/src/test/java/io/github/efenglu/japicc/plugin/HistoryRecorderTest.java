@@ -0,0 +1,135 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryRecorderTest {
+    private File directory;
+    private MavenProject project;
+    private HistoryRecorder recorder;
+
+    @Before
+    public void createProject() throws IOException {
+        directory = Files.createTempDirectory("recorder").toFile();
+        project = new MavenProject();
+        project.setGroupId("g");
+        project.setArtifactId("a");
+        project.setVersion("1.1-SNAPSHOT");
+        project.setBuild(new Build());
+        project.getBuild().setDirectory(new File(directory, "target").getPath());
+        recorder = new HistoryRecorder(new File(directory, "history"), "java",
+                module -> module.isReduced() ? "quick" : "full");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void recordsCheck() throws Exception {
+        ModuleContext module = module();
+        module.getMetrics().count("newJar.classes", 12);
+        assertFalse(recorder.run(module, "1.0", 1, () -> false));
+        String[] fields = lastRun(module);
+        assertEquals(new File(directory, "history/g/a.tsv"), recorder.history(module).getFile());
+        assertEquals(CheckHistory.FULL, fields[2]);
+        assertEquals("java", fields[3]);
+        assertEquals("1.0", fields[4]);
+        assertEquals("12", fields[5]);
+        assertEquals("-1", fields[6]);
+        assertEquals("full", fields[7]);
+    }
+
+    @Test
+    public void attachedJarsHaveTheirOwnHistory() {
+        ModuleContext module = module();
+        assertEquals(new File(directory, "history/g/a-tests.tsv"),
+                recorder.history(module.forClassifier("tests", new File(directory, "a-tests.jar"))).getFile());
+    }
+
+    @Test
+    public void recordsSkippedCheck() throws Exception {
+        ModuleContext module = module();
+        module.getMetrics().count("upToDate.skipped", 1);
+        module.getMetrics().count("upToDate.identical", 1);
+        assertTrue(recorder.run(module, "1.0,1.1", 2, () -> true));
+        assertEquals(CheckHistory.SKIPPED, lastRun(module)[2]);
+    }
+
+    @Test
+    public void reducesSlowSnapshotChecks() throws Exception {
+        recorder.setTimeBudget(1);
+        ModuleContext module = module();
+        record(module, CheckHistory.FULL, 5000, "full", 3);
+        assertTrue(recorder.run(module, "1.0", 1, module::isReduced));
+        assertEquals(CheckHistory.REDUCED, lastRun(module)[2]);
+        assertEquals("quick", lastRun(module)[7]);
+    }
+
+    @Test
+    public void releasesRunFullAnalysis() throws Exception {
+        recorder.setTimeBudget(1);
+        project.setVersion("1.1");
+        ModuleContext module = module();
+        record(module, CheckHistory.FULL, 5000, "full", 3);
+        assertFalse(recorder.run(module, "1.0", 1, module::isReduced));
+        assertEquals(CheckHistory.FULL, lastRun(module)[2]);
+    }
+
+    @Test
+    public void fastChecksRunFullAnalysis() throws Exception {
+        recorder.setTimeBudget(10);
+        ModuleContext module = module();
+        record(module, CheckHistory.FULL, 5000, "full", 3);
+        assertFalse(recorder.run(module, "1.0", 1, module::isReduced));
+    }
+
+    @Test
+    public void updatesFullDurationAfterReducedChecks() throws Exception {
+        recorder.setTimeBudget(1);
+        ModuleContext module = module();
+        record(module, CheckHistory.FULL, 5000, "full", 3);
+        record(module, CheckHistory.REDUCED, 100, "quick", HistoryRecorder.REDUCED_RUNS);
+        assertFalse(recorder.run(module, "1.0", 1, module::isReduced));
+        assertEquals(CheckHistory.FULL, lastRun(module)[2]);
+    }
+
+    @Test
+    public void failingHistoryDoesNotFailCheck() throws Exception {
+        Files.write(new File(directory, "history").toPath(), new byte[0]);
+        assertTrue(recorder.run(module(), "1.0", 1, () -> true));
+    }
+
+    private ModuleContext module() {
+        return ModuleContext.of(project, new SystemStreamLog(), new File(directory, "a.jar"));
+    }
+
+    private void record(ModuleContext module, String mode, long millis, String configuration, int runs)
+            throws IOException {
+        CheckHistory history = recorder.history(module);
+        for (int i = 0; i < runs; i++) {
+            history.append(new CheckHistory.Run(System.currentTimeMillis(), millis, mode, "java", "1.0", 1, 1,
+                    configuration));
+        }
+    }
+
+    private String[] lastRun(ModuleContext module) throws IOException {
+        List<String> lines = Files.readAllLines(recorder.history(module).getFile().toPath(), StandardCharsets.UTF_8);
+        return lines.get(lines.size() - 1).split("\t");
+    }
+}
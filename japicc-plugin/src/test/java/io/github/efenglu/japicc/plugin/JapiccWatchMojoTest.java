@@ -0,0 +1,88 @@
+package io.github.efenglu.japicc.plugin;
+
+import io.github.efenglu.japicc.plugin.api.ApiDiff;
+import io.github.efenglu.japicc.plugin.api.ApiFilter;
+import io.github.efenglu.japicc.plugin.api.ApiModel;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemKind;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JapiccWatchMojoTest {
+    private File directory;
+    private ApiModel oldModel;
+    private ApiDiff diff;
+    private ProblemThreshold threshold;
+    private JapiccWatchMojo mojo;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("watch").toFile();
+        oldModel = ApiModel.load(JavaSources.compile(directory, "old",
+                "package p; public class A { public void m() { } }",
+                "package p; public class B { public void m() { } }"));
+        diff = new ApiDiff(new ApiFilter());
+        threshold = ProblemThreshold.parse("low", "any");
+        mojo = new JapiccWatchMojo();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void rechecksAffectedClasses() throws IOException {
+        Path root = JavaSources.compile(directory, "new",
+                "package p; public class A { public void m() { } }",
+                "package p; public class B { }").toPath();
+        assertEquals(new LinkedHashSet<>(Arrays.asList("p.A", "p.B")),
+                mojo.recheck(diff, oldModel, root, classFiles(root), threshold, false));
+        assertEquals(Collections.singletonList(new ApiProblem(ProblemKind.REMOVED_METHOD, "p.B", "m()", null)),
+                mojo.getProblems().get("p.B"));
+
+        // unchanged content is not compared again
+        assertTrue(mojo.recheck(diff, oldModel, root, classFiles(root), threshold, false).isEmpty());
+    }
+
+    @Test
+    public void lostEventsRecheckEveryClass() throws IOException {
+        Path root = JavaSources.compile(directory, "new",
+                "package p; public class A { public void m() { } }",
+                "package p; public class B { }").toPath();
+        mojo.recheck(diff, oldModel, root, classFiles(root), threshold, false);
+
+        // B is deleted while the events are lost, no event names its file
+        Files.delete(root.resolve("p/B.class"));
+        Set<String> checked = mojo.recheck(diff, oldModel, root, classFiles(root), threshold, true);
+        assertEquals(new LinkedHashSet<>(oldModel.names()), checked);
+        List<ApiProblem> problems = mojo.getProblems().get("p.B");
+        assertEquals(Collections.singletonList(new ApiProblem(ProblemKind.REMOVED_CLASS, "p.B", null, null)),
+                problems);
+        assertEquals(1, mojo.getProblems().size());
+    }
+
+    private static Set<Path> classFiles(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(p -> p.toString().endsWith(".class"))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.efenglu.japicc.plugin;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Compiles test sources into class files with the compiler of the running JDK.
+ */
+public final class JavaSources {
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern TYPE = Pattern.compile("\\b(?:class|interface|enum)\\s+(\\w+)");
+    private static final Pattern MODULE = Pattern.compile("^\\s*module\\s+[\\w.]+\\s*\\{", Pattern.MULTILINE);
+
+    private JavaSources() {
+    }
+
+    /**
+     * Compile compilation units into a new directory.
+     *
+     * @param directory parent of the source and class directories
+     * @param name      name of the class directory
+     * @param units     source of the compilation units, the first type of each names its file
+     * @return the class directory
+     */
+    public static File compile(File directory, String name, String... units) throws IOException {
+        File sources = new File(directory, name + "-src");
+        File classes = new File(directory, name);
+        Files.createDirectories(classes.toPath());
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-nowarn");
+        arguments.add("-d");
+        arguments.add(classes.getPath());
+        for (String unit : units) {
+            File file = new File(sources, fileName(unit));
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), unit.getBytes(StandardCharsets.UTF_8));
+            arguments.add(file.getPath());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Tests require a JDK");
+        }
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Compilation failed: " + new String(errors.toByteArray(),
+                    StandardCharsets.UTF_8));
+        }
+        return classes;
+    }
+
+    /**
+     * Whether the running compiler supports module descriptors.
+     */
+    public static boolean supportsModules() {
+        return !System.getProperty("java.specification.version").startsWith("1.");
+    }
+
+    /**
+     * Delete a directory tree.
+     */
+    public static void delete(File directory) throws IOException {
+        if (!directory.exists()) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(directory.toPath())) {
+            for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String fileName(String unit) {
+        if (MODULE.matcher(unit).find()) {
+            return "module-info.java";
+        }
+        Matcher type = TYPE.matcher(unit);
+        if (!type.find()) {
+            throw new IllegalArgumentException("No type declared in " + unit);
+        }
+        Matcher packageName = PACKAGE.matcher(unit);
+        String prefix = packageName.find() ? packageName.group(1).replace('.', '/') + "/" : "";
+        return prefix + type.group(1) + ".java";
+    }
+}
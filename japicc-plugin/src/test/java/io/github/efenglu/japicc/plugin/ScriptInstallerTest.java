@@ -0,0 +1,65 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScriptInstallerTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("scripts").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void installsScriptWithManifest() throws IOException {
+        File script = new ScriptInstaller(new File(directory, "a"), "1.0/beta", new SystemStreamLog()).install();
+        File installation = script.getParentFile();
+        assertEquals(ScriptInstaller.SCRIPT, script.getName());
+        assertTrue(script.isFile());
+        assertTrue(new File(installation, ScriptInstaller.DAEMON).isFile());
+        assertTrue(installation.getName().startsWith("1.0_beta-"));
+        assertTrue(new File(installation, "MANIFEST.sha256").isFile());
+        assertEquals(1, installation.getParentFile().list((dir, name) -> !name.endsWith(".lock")).length);
+    }
+
+    @Test
+    public void reusesInstallation() throws IOException {
+        File script = new ScriptInstaller(new File(directory, "a"), "1.0", new SystemStreamLog()).install();
+        long modified = script.lastModified();
+        assertEquals(script, new ScriptInstaller(new File(directory, "a"), "1.0", new SystemStreamLog()).install());
+        assertEquals(modified, script.lastModified());
+    }
+
+    @Test
+    public void replacesDamagedInstallation() throws IOException {
+        String key = new ScriptInstaller(new File(directory, "a"), "1.0", new SystemStreamLog()).install()
+                .getParentFile().getName();
+        // as left by another build that failed while extracting
+        File damaged = new File(directory, "b/" + key);
+        assertTrue(damaged.mkdirs());
+        Files.write(new File(damaged, ScriptInstaller.SCRIPT).toPath(), "truncated".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(damaged, "MANIFEST.sha256").toPath(), new byte[0]);
+
+        File script = new ScriptInstaller(new File(directory, "b"), "1.0", new SystemStreamLog()).install();
+        assertEquals(new File(damaged, ScriptInstaller.SCRIPT), script);
+        assertFalse(new String(Files.readAllBytes(script.toPath()), StandardCharsets.UTF_8).equals("truncated"));
+        assertEquals(1, damaged.getParentFile().list((dir, name) -> !name.endsWith(".lock")).length);
+    }
+}
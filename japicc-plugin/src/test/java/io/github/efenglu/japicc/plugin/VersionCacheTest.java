@@ -0,0 +1,151 @@
+package io.github.efenglu.japicc.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VersionCacheTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private File directory;
+    private File file;
+    // entries are also kept in memory for the whole JVM, every test uses keys of its own
+    private String key;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("versions").toFile();
+        file = new File(directory, "cache/versions.properties");
+        key = "g:a-" + UUID.randomUUID() + ":1";
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void loadsMissingEntryOnce() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        VersionCache cache = cache(false, false);
+        assertEquals("1.2", cache.get(key, () -> {
+            loads.incrementAndGet();
+            return "1.2";
+        }));
+        assertEquals("1.2", cache.get(key, () -> {
+            loads.incrementAndGet();
+            return "1.3";
+        }));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertTrue(read().getProperty(key).startsWith("1.2|"));
+    }
+
+    @Test
+    public void cachesMissingRelease() {
+        VersionCache cache = cache(false, false);
+        assertNull(cache.get(key, () -> null));
+        assertNull(cache.get(key, () -> {
+            throw new IllegalStateException("looked up again");
+        }));
+    }
+
+    @Test
+    public void readsEntriesOfEarlierBuilds() throws IOException {
+        write(key, "1.4", System.currentTimeMillis());
+        assertEquals("1.4", cache(false, false).get(key, () -> {
+            throw new IllegalStateException("looked up again");
+        }));
+    }
+
+    @Test
+    public void reloadsExpiredEntry() throws IOException {
+        write(key, "1.4", System.currentTimeMillis() - 2 * TTL);
+        assertEquals("1.5", cache(false, false).get(key, () -> "1.5"));
+        assertTrue(read().getProperty(key).startsWith("1.5|"));
+    }
+
+    @Test
+    public void refreshReloadsEntry() throws IOException {
+        write(key, "1.4", System.currentTimeMillis());
+        assertEquals("1.5", cache(true, false).get(key, () -> "1.5"));
+    }
+
+    @Test
+    public void offlineUsesExpiredEntry() throws IOException {
+        write(key, "1.4", System.currentTimeMillis() - 2 * TTL);
+        assertEquals("1.4", cache(false, true).get(key, () -> {
+            throw new IllegalStateException("looked up offline");
+        }));
+    }
+
+    @Test
+    public void failedLookupUsesExpiredEntry() throws IOException {
+        write(key, "1.4", System.currentTimeMillis() - 2 * TTL);
+        VersionCache.Loader<IOException> failing = () -> {
+            throw new IOException("unreachable");
+        };
+        assertEquals("1.4", cache(false, false).get(key, failing));
+    }
+
+    @Test
+    public void failedLookupWithoutEntryFails() {
+        VersionCache.Loader<IOException> failing = () -> {
+            throw new IOException("unreachable");
+        };
+        try {
+            cache(false, false).get(key, failing);
+            fail();
+        } catch (IOException e) {
+            assertEquals("unreachable", e.getMessage());
+        }
+    }
+
+    @Test
+    public void keepsEntriesOfOtherKeys() throws IOException {
+        String other = key + "-other";
+        write(other, "2.0", 5);
+        cache(false, false).get(key, () -> "1.2");
+        Properties properties = read();
+        assertEquals("2.0|5", properties.getProperty(other));
+        assertTrue(properties.getProperty(key).startsWith("1.2|"));
+    }
+
+    private VersionCache cache(boolean refresh, boolean offline) {
+        return new VersionCache(file, TTL, refresh, offline, new SystemStreamLog());
+    }
+
+    private void write(String key, String version, long resolved) throws IOException {
+        Properties properties = file.isFile() ? read() : new Properties();
+        properties.setProperty(key, version + "|" + resolved);
+        Files.createDirectories(file.getParentFile().toPath());
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            properties.store(out, null);
+        }
+    }
+
+    private Properties read() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,375 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApiDiffTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("diff").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void compatibleChanges() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                "package p; public class A { protected void m() { } private int hidden; public static final int C = 1; }",
+                "package p; public class A implements Runnable { public void m() { } public void run() { }"
+                        + " public int added; public static final int C = 1; }"));
+    }
+
+    @Test
+    public void removedClass() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public class A { }", "package p; public class B { }"),
+                Arrays.asList("package p; public class B { }"));
+        assertEquals(Arrays.asList(new ApiProblem(ProblemKind.REMOVED_CLASS, "p.A", null, null)), problems);
+    }
+
+    @Test
+    public void removedClassOfInternalPackage() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                "package p.internal; public class A { }",
+                "package p.internal; class B { }"));
+    }
+
+    @Test
+    public void classLessAccessible() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CLASS_LESS_ACCESSIBLE), kinds(
+                "package p; public class A { public void m() { } }",
+                "package p; class A { public void m() { } }"));
+    }
+
+    @Test
+    public void changedClassKind() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CHANGED_CLASS_KIND), kinds(
+                "package p; public class A { }",
+                "package p; public interface A { }"));
+    }
+
+    @Test
+    public void classBecameFinal() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CLASS_BECAME_FINAL), kinds(
+                "package p; public class A { public void m() { } }",
+                "package p; public final class A { public void m() { } }"));
+    }
+
+    @Test
+    public void classBecameAbstract() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CLASS_BECAME_ABSTRACT), kinds(
+                "package p; public class A { }",
+                "package p; public abstract class A { }"));
+    }
+
+    @Test
+    public void removedSuperclass() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public class Base { }", "package p; public class A extends Base { }"),
+                Arrays.asList("package p; public class Base { }", "package p; public class A { }"));
+        assertEquals(Arrays.asList(new ApiProblem(ProblemKind.REMOVED_SUPERCLASS, "p.A", null, "p.Base")), problems);
+    }
+
+    @Test
+    public void removedInterface() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.REMOVED_INTERFACE), kinds(
+                "package p; public class A implements Runnable { public void run() { } }",
+                "package p; public class A { public void run() { } }"));
+    }
+
+    @Test
+    public void removedInheritedInterface() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public interface I extends java.io.Serializable { }",
+                        "package p; public class A implements I { }"),
+                Arrays.asList("package p; public interface I { }",
+                        "package p; public class A implements I { }"));
+        assertEquals(Arrays.asList(
+                new ApiProblem(ProblemKind.REMOVED_INTERFACE, "p.A", null, "java.io.Serializable"),
+                new ApiProblem(ProblemKind.REMOVED_INTERFACE, "p.I", null, "java.io.Serializable")), problems);
+    }
+
+    @Test
+    public void addedAbstractMethod() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.ADDED_ABSTRACT_METHOD), kinds(
+                "package p; public abstract class A { }",
+                "package p; public abstract class A { public abstract void m(); }"));
+        assertEquals(EnumSet.of(ProblemKind.ADDED_ABSTRACT_METHOD), kinds(
+                "package p; public interface I { }",
+                "package p; public interface I { void m(); }"));
+    }
+
+    @Test
+    public void addedAbstractMethodOfNewSuperType() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public interface I { void m(); }",
+                        "package p; public abstract class A { }"),
+                Arrays.asList("package p; public interface I { void m(); }",
+                        "package p; public abstract class A implements I { }"));
+        assertEquals(Arrays.asList(new ApiProblem(ProblemKind.ADDED_ABSTRACT_METHOD, "p.A", "m()", null)), problems);
+        assertEquals(EnumSet.of(ProblemKind.ADDED_ABSTRACT_METHOD), kinds(
+                Arrays.asList("package p; public abstract class Base { }",
+                        "package p; public abstract class A extends Base { }"),
+                Arrays.asList("package p; public abstract class Base { protected abstract int size(); }",
+                        "package p; public abstract class A extends Base { }")));
+    }
+
+    @Test
+    public void implementedMethodOfNewSuperType() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                Arrays.asList("package p; public interface I { void m(); boolean equals(Object o); }",
+                        "package p; public abstract class A { public void m() { } }"),
+                Arrays.asList("package p; public interface I { void m(); boolean equals(Object o); }",
+                        "package p; public abstract class A implements I { public void m() { } }")));
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                Arrays.asList("package p; public interface I { void m(); }",
+                        "package p; public abstract class A implements I { }"),
+                Arrays.asList("package p; public interface I { void m(); }",
+                        "package p; public interface J extends I { }",
+                        "package p; public abstract class A implements J { }")));
+    }
+
+    @Test
+    public void addedDefaultMethod() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                "package p; public interface I { }",
+                "package p; public interface I { default void m() { } }"));
+    }
+
+    @Test
+    public void removedMethod() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.REMOVED_METHOD), kinds(
+                "package p; public class A { public void m(int i) { } }",
+                "package p; public class A { public void m(long i) { } }"));
+    }
+
+    @Test
+    public void methodPulledUp() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                Arrays.asList("package p; public class Base { }",
+                        "package p; public class A extends Base { public void m() { } }"),
+                Arrays.asList("package p; public class Base { public void m() { } }",
+                        "package p; public class A extends Base { }")));
+    }
+
+    @Test
+    public void methodLessAccessible() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.METHOD_LESS_ACCESSIBLE), kinds(
+                "package p; public class A { public void m() { } }",
+                "package p; public class A { protected void m() { } }"));
+    }
+
+    @Test
+    public void changedReturnType() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CHANGED_RETURN_TYPE), kinds(
+                "package p; public class A { public int m() { return 0; } }",
+                "package p; public class A { public long m() { return 0; } }"));
+    }
+
+    @Test
+    public void narrowedReturnTypeWithoutSuperType() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CHANGED_RETURN_TYPE), kinds(
+                "package p; public class A { public Object copy() { return this; } }",
+                "package p; public class A { public A copy() { return this; } }"));
+    }
+
+    @Test
+    public void covariantReturnTypeOverridingSuperClass() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                Arrays.asList("package p; public class Base { public Object copy() { return this; } }",
+                        "package p; public class A extends Base { public Object copy() { return this; } }"),
+                Arrays.asList("package p; public class Base { public Object copy() { return this; } }",
+                        "package p; public class A extends Base { public A copy() { return this; } }")));
+    }
+
+    @Test
+    public void covariantReturnTypeImplementingInterface() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                Arrays.asList("package p; public interface I { Object get(); }",
+                        "package p; public class A implements I { public Object get() { return null; } }"),
+                Arrays.asList("package p; public interface I { Object get(); }",
+                        "package p; public class A implements I { public String get() { return null; } }")));
+    }
+
+    @Test
+    public void covariantClone() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                "package p; public class A implements Cloneable { public Object clone() { return this; } }",
+                "package p; public class A implements Cloneable { public A clone() { return this; } }"));
+    }
+
+    @Test
+    public void changedReturnTypeOfSuperTypeMethod() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CHANGED_RETURN_TYPE), kinds(
+                Arrays.asList("package p; public class Base { public Object copy() { return this; } }",
+                        "package p; public class A extends Base { public Object copy() { return this; } }"),
+                Arrays.asList("package p; public class Base { public Base copy() { return this; } }",
+                        "package p; public class A extends Base { public A copy() { return this; } }")));
+    }
+
+    @Test
+    public void methodBecameStatic() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.METHOD_BECAME_STATIC), kinds(
+                "package p; public class A { public void m() { } }",
+                "package p; public class A { public static void m() { } }"));
+    }
+
+    @Test
+    public void methodBecameNonStatic() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.METHOD_BECAME_NON_STATIC), kinds(
+                "package p; public class A { public static void m() { } }",
+                "package p; public class A { public void m() { } }"));
+    }
+
+    @Test
+    public void methodBecameFinal() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.METHOD_BECAME_FINAL), kinds(
+                "package p; public class A { public void m() { } }",
+                "package p; public class A { public final void m() { } }"));
+    }
+
+    @Test
+    public void methodBecameAbstract() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.METHOD_BECAME_ABSTRACT), kinds(
+                "package p; public abstract class A { public void m() { } }",
+                "package p; public abstract class A { public abstract void m(); }"));
+    }
+
+    @Test
+    public void addedCheckedException() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public class A { public void m() { } }"),
+                Arrays.asList("package p; public class A { public void m() throws java.io.IOException { } }"));
+        assertEquals(Arrays.asList(new ApiProblem(ProblemKind.ADDED_CHECKED_EXCEPTION, "p.A", "m()",
+                "java.io.IOException")), problems);
+    }
+
+    @Test
+    public void addedUncheckedException() throws IOException {
+        assertEquals(EnumSet.noneOf(ProblemKind.class), kinds(
+                Arrays.asList("package p; public class Failure extends IllegalStateException { }",
+                        "package p; public class A { public void m() { } }"),
+                Arrays.asList("package p; public class Failure extends IllegalStateException { }",
+                        "package p; public class A { public void m() throws Failure, IllegalArgumentException { } }")));
+    }
+
+    @Test
+    public void addedExceptionsResolvedByJdk() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public class Failure extends java.io.IOException { }",
+                        "package p; public class A { public void m() { } }"),
+                Arrays.asList("package p; public class Failure extends java.io.IOException { }",
+                        "package p; public class A { public void m() throws Failure, java.sql.SQLException,"
+                                + " AssertionError, java.util.ConcurrentModificationException { } }"));
+        assertEquals(Arrays.asList(
+                new ApiProblem(ProblemKind.ADDED_CHECKED_EXCEPTION, "p.A", "m()", "p.Failure"),
+                new ApiProblem(ProblemKind.ADDED_CHECKED_EXCEPTION, "p.A", "m()", "java.sql.SQLException")),
+                problems);
+    }
+
+    @Test
+    public void addedExceptionOfUnknownKind() throws IOException {
+        File test = Files.createTempDirectory(directory.toPath(), "test").toFile();
+        ApiModel oldModel = ApiModel.load(JavaSources.compile(test, "old",
+                "package p; public class A { public void m() { } }"));
+        File newClasses = JavaSources.compile(test, "new",
+                "package q; public class Missing extends RuntimeException { }",
+                "package p; public class Failure extends q.Missing { }",
+                "package p; public class A { public void m() throws Failure, q.Missing { } }");
+        // both hierarchies lead to a class of another library
+        assertTrue(new File(newClasses, "q/Missing.class").delete());
+        ApiModel newModel = ApiModel.load(newClasses);
+        assertEquals(Arrays.asList(
+                new ApiProblem(ProblemKind.ADDED_UNKNOWN_EXCEPTION, "p.A", "m()", "p.Failure"),
+                new ApiProblem(ProblemKind.ADDED_UNKNOWN_EXCEPTION, "p.A", "m()", "q.Missing")),
+                new ApiDiff(new ApiFilter()).compare(oldModel, newModel));
+    }
+
+    @Test
+    public void removedField() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.REMOVED_FIELD), kinds(
+                "package p; public class A { public int f; }",
+                "package p; public class A { }"));
+    }
+
+    @Test
+    public void fieldLessAccessible() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.FIELD_LESS_ACCESSIBLE), kinds(
+                "package p; public class A { public int f; }",
+                "package p; public class A { int f; }"));
+    }
+
+    @Test
+    public void changedFieldType() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.CHANGED_FIELD_TYPE), kinds(
+                "package p; public class A { public int f; }",
+                "package p; public class A { public long f; }"));
+    }
+
+    @Test
+    public void fieldBecameStatic() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.FIELD_BECAME_STATIC), kinds(
+                "package p; public class A { public int f; }",
+                "package p; public class A { public static int f; }"));
+    }
+
+    @Test
+    public void fieldBecameNonStatic() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.FIELD_BECAME_NON_STATIC), kinds(
+                "package p; public class A { public static int f; }",
+                "package p; public class A { public int f; }"));
+    }
+
+    @Test
+    public void fieldBecameFinal() throws IOException {
+        assertEquals(EnumSet.of(ProblemKind.FIELD_BECAME_FINAL), kinds(
+                "package p; public class A { public int f; }",
+                "package p; public class A { public final int f; public A() { f = 1; } }"));
+    }
+
+    @Test
+    public void changedConstantValue() throws IOException {
+        List<ApiProblem> problems = compare(
+                Arrays.asList("package p; public class A { public static final String C = \"a\"; }"),
+                Arrays.asList("package p; public class A { public static final String C = \"b\"; }"));
+        assertEquals(Arrays.asList(new ApiProblem(ProblemKind.CHANGED_CONSTANT_VALUE, "p.A", "C", "a -> b")),
+                problems);
+    }
+
+    private Set<ProblemKind> kinds(String oldUnit, String newUnit) throws IOException {
+        return kinds(Arrays.asList(oldUnit), Arrays.asList(newUnit));
+    }
+
+    private Set<ProblemKind> kinds(List<String> oldUnits, List<String> newUnits) throws IOException {
+        Set<ProblemKind> kinds = EnumSet.noneOf(ProblemKind.class);
+        for (ApiProblem problem : compare(oldUnits, newUnits)) {
+            kinds.add(problem.kind());
+        }
+        return kinds;
+    }
+
+    private List<ApiProblem> compare(List<String> oldUnits, List<String> newUnits) throws IOException {
+        File test = Files.createTempDirectory(directory.toPath(), "test").toFile();
+        ApiModel oldModel = ApiModel.load(JavaSources.compile(test, "old", oldUnits.toArray(new String[0])));
+        ApiModel newModel = ApiModel.load(JavaSources.compile(test, "new", newUnits.toArray(new String[0])));
+        return new ApiDiff(new ApiFilter()).compare(oldModel, newModel);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ApiExportsTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("exports").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void readsExportsOfClassesDirectory() throws IOException {
+        Assume.assumeTrue(JavaSources.supportsModules());
+        File classes = JavaSources.compile(directory, "classes",
+                "module m.api { requires java.logging; exports p; exports q.impl to m.friend, m.other; }",
+                "package p; public class A { }",
+                "package q.impl; public class B { }",
+                "package r; public class C { }");
+        ApiExports exports = ApiExports.read(classes);
+        assertEquals("m.api", exports.moduleName());
+        assertEquals(Collections.singleton("p"), exports.packages(Collections.<String>emptyList()));
+        assertEquals(new TreeSet<>(Arrays.asList("p", "q.impl")),
+                exports.packages(Collections.singletonList("m.friend")));
+        assertEquals(Collections.singleton("p"), exports.packages(Collections.singletonList("m.unknown")));
+        assertEquals(new TreeSet<>(Arrays.asList("p", "q.impl")),
+                exports.packages(Collections.singletonList(ApiExports.ALL_MODULES)));
+    }
+
+    @Test
+    public void highestVersionedDescriptorWins() throws IOException {
+        Assume.assumeTrue(JavaSources.supportsModules());
+        File base = JavaSources.compile(directory, "base",
+                "module m.api { exports p; }",
+                "package p; public class A { }",
+                "package q; public class B { }");
+        File v11 = JavaSources.compile(directory, "v11",
+                "module m.api { exports p; exports q; }",
+                "package p; public class A { }",
+                "package q; public class B { }");
+        File v9 = JavaSources.compile(directory, "v9",
+                "module m.api { }",
+                "package p; public class A { }");
+        File jar = new File(directory, "m.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+            add(out, "module-info.class", base);
+            add(out, "META-INF/versions/11/module-info.class", v11);
+            add(out, "META-INF/versions/9/module-info.class", v9);
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("p", "q")),
+                ApiExports.read(jar).packages(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void classesWithoutDescriptorHaveNoExports() throws IOException {
+        File classes = JavaSources.compile(directory, "classes", "package p; public class A { }");
+        assertNull(ApiExports.read(classes));
+        File jar = new File(directory, "a.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new ZipEntry("p/A.class"));
+            out.write(Files.readAllBytes(new File(classes, "p/A.class").toPath()));
+        }
+        assertNull(ApiExports.read(jar));
+        assertNull(ApiExports.read(new File(directory, "missing.jar")));
+    }
+
+    private static void add(ZipOutputStream out, String name, File classes) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(Files.readAllBytes(new File(classes, "module-info.class").toPath()));
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class ApiShardsTest {
+    private static final List<String> NAMES = Arrays.asList(
+            "a.A1", "a.A2", "a.A3", "a.A4", "b.B1", "b.B2", "b.B3", "c.C1", "c.C2", "d.D1");
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("shards").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void byPackageKeepsPackagesTogether() {
+        List<Set<String>> shards = ApiShards.byPackage(NAMES, 2);
+        assertEquals(Arrays.asList(
+                names("a.A1", "a.A2", "a.A3", "a.A4", "d.D1"),
+                names("b.B1", "b.B2", "b.B3", "c.C1", "c.C2")), shards);
+    }
+
+    @Test
+    public void byPackageCreatesAtMostOneShardPerPackage() {
+        List<Set<String>> shards = ApiShards.byPackage(NAMES, 10);
+        assertEquals(4, shards.size());
+        assertEquals(new TreeSet<>(NAMES), union(shards));
+    }
+
+    @Test
+    public void byClassCountBalancesShards() {
+        List<String> shuffled = new ArrayList<>(NAMES);
+        Collections.reverse(shuffled);
+        List<Set<String>> shards = ApiShards.byClassCount(shuffled, 3);
+        assertEquals(Arrays.asList(
+                names("a.A1", "a.A2", "a.A3"),
+                names("a.A4", "b.B1", "b.B2"),
+                names("b.B3", "c.C1", "c.C2", "d.D1")), shards);
+    }
+
+    @Test
+    public void byClassCountCreatesNoEmptyShards() {
+        assertEquals(Arrays.asList(names("a.A1"), names("a.A2")),
+                ApiShards.byClassCount(Arrays.asList("a.A2", "a.A1"), 5));
+        assertEquals(Collections.emptyList(), ApiShards.byClassCount(Collections.<String>emptyList(), 5));
+    }
+
+    @Test
+    public void withSupertypesAddsRelatedClassesOfBothVersions() throws IOException {
+        ApiModel oldModel = ApiModel.load(JavaSources.compile(directory, "old",
+                "package p; public class Base { }",
+                "package p; public interface I { }",
+                "package p; public class A extends Base implements I, Runnable { public void run() { } }",
+                "package p; public class Outer { public static class Inner extends Base { } }",
+                "package p; public class Unrelated { }"));
+        ApiModel newModel = ApiModel.load(JavaSources.compile(directory, "new",
+                "package p; public interface I extends J { }",
+                "package p; public interface J { }",
+                "package p; public class A implements I { }",
+                "package p; public class Unrelated { }"));
+
+        assertEquals(names("p.A", "p.Base", "p.I", "p.J"),
+                ApiShards.withSupertypes(names("p.A"), oldModel, newModel));
+        assertEquals(names("p.Base", "p.Outer", "p.Outer$Inner"),
+                ApiShards.withSupertypes(names("p.Outer$Inner"), oldModel, newModel));
+        assertEquals(names("p.Unrelated"), ApiShards.withSupertypes(names("p.Unrelated"), oldModel, newModel));
+    }
+
+    private static Set<String> names(String... names) {
+        return new TreeSet<>(Arrays.asList(names));
+    }
+
+    private static Set<String> union(List<Set<String>> shards) {
+        Set<String> union = new TreeSet<>();
+        for (Set<String> shard : shards) {
+            union.addAll(shard);
+        }
+        return union;
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ApiSnapshotTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("snapshot").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        ApiModel model = ApiModel.load(JavaSources.compile(directory, "classes",
+                "package p; @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)"
+                        + " public @interface Marker { }",
+                "package p; @Marker @Deprecated public abstract class A<T extends Number>"
+                        + " extends java.util.AbstractList<T> implements Runnable, java.io.Serializable {"
+                        + " public static final int I = -1;"
+                        + " public static final long L = Long.MIN_VALUE;"
+                        + " public static final float F = Float.NaN;"
+                        + " public static final double D = 1e300;"
+                        + " public static final String S = \"na\\u00efve \\ud83d\\ude00\";"
+                        + " protected java.util.Map<String, T> values;"
+                        + " @Marker public abstract <E extends Exception> T first() throws E, java.io.IOException;"
+                        + " public static class Nested { public Runnable local() {"
+                        + " class Local implements Runnable { public void run() { } } return new Local(); } }"
+                        + " }",
+                "package p; public interface I { String NAME = \"I\"; default int size() { return 0; } }"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ApiSnapshot.write(model, out);
+        assertEqualModels(model, ApiSnapshot.read(ByteBuffer.wrap(out.toByteArray())));
+
+        File file = new File(directory, "api.snapshot");
+        ApiSnapshot.write(model, file);
+        assertEqualModels(model, ApiSnapshot.read(file));
+    }
+
+    @Test
+    public void roundTripOfEmptyModel() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ApiSnapshot.write(new ApiModel(Collections.<String, ApiClass>emptyMap()), out);
+        assertEquals(0, ApiSnapshot.read(ByteBuffer.wrap(out.toByteArray())).size());
+    }
+
+    @Test
+    public void detectsSnapshotsByHeader() throws IOException {
+        File snapshot = new File(directory, "renamed.jar");
+        ApiSnapshot.write(new ApiModel(Collections.<String, ApiClass>emptyMap()), snapshot);
+        assertTrue(ApiSnapshot.isSnapshot(snapshot));
+
+        File jar = new File(directory, "a-api-snapshot.japi");
+        Files.write(jar.toPath(), new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0});
+        assertFalse(ApiSnapshot.isSnapshot(jar));
+        File empty = new File(directory, "empty.japi");
+        Files.write(empty.toPath(), new byte[0]);
+        assertFalse(ApiSnapshot.isSnapshot(empty));
+        assertFalse(ApiSnapshot.isSnapshot(directory));
+    }
+
+    @Test
+    public void rejectsOtherFiles() {
+        try {
+            ApiSnapshot.read(ByteBuffer.wrap(new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0}));
+            fail();
+        } catch (IOException e) {
+            assertEquals("Not an API snapshot", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedSnapshot() throws IOException {
+        ApiModel model = ApiModel.load(JavaSources.compile(directory, "classes",
+                "package p; public class A { public void m() { } }"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ApiSnapshot.write(model, out);
+        byte[] bytes = out.toByteArray();
+        try {
+            ApiSnapshot.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 4)));
+            fail();
+        } catch (IOException e) {
+            assertEquals("Truncated or corrupt API snapshot", e.getMessage());
+        }
+    }
+
+    private static void assertEqualModels(ApiModel expected, ApiModel actual) {
+        assertEquals(expected.names().toString(), actual.names().toString());
+        for (ApiClass expectedClass : expected.classes().values()) {
+            ApiClass actualClass = actual.get(expectedClass.name());
+            String name = expectedClass.name();
+            assertEquals(name, expectedClass.access(), actualClass.access());
+            assertEquals(name, expectedClass.superName(), actualClass.superName());
+            assertEquals(name, expectedClass.interfaces(), actualClass.interfaces());
+            assertEquals(name, expectedClass.outerName(), actualClass.outerName());
+            assertEquals(name, expectedClass.isLocal(), actualClass.isLocal());
+            assertEquals(name, expectedClass.signature(), actualClass.signature());
+            assertEquals(name, expectedClass.isDeprecated(), actualClass.isDeprecated());
+            assertEquals(name, expectedClass.annotations(), actualClass.annotations());
+            assertEqualMembers(name, expectedClass.fields(), actualClass.fields());
+            assertEqualMembers(name, expectedClass.methods(), actualClass.methods());
+        }
+    }
+
+    private static void assertEqualMembers(String className, Map<String, ApiMember> expected,
+                                           Map<String, ApiMember> actual) {
+        assertEquals(className, expected.keySet(), actual.keySet());
+        for (ApiMember expectedMember : expected.values()) {
+            ApiMember actualMember = actual.get(expectedMember.key());
+            String name = className + "." + expectedMember.key();
+            assertEquals(name, expectedMember.isMethod(), actualMember.isMethod());
+            assertEquals(name, expectedMember.descriptor(), actualMember.descriptor());
+            assertEquals(name, expectedMember.access(), actualMember.access());
+            assertEquals(name, expectedMember.signature(), actualMember.signature());
+            assertEquals(name, expectedMember.isDeprecated(), actualMember.isDeprecated());
+            assertEquals(name, expectedMember.annotations(), actualMember.annotations());
+            assertEquals(name, expectedMember.exceptions(), actualMember.exceptions());
+            assertEquals(name, expectedMember.constantValue(), actualMember.constantValue());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.efenglu.japicc.plugin.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProblemThresholdTest {
+    private static final ApiProblem ADDED_ABSTRACT_METHOD =
+            new ApiProblem(ProblemKind.ADDED_ABSTRACT_METHOD, "p.A", "m()", null);
+    private static final ApiProblem ADDED_CHECKED_EXCEPTION =
+            new ApiProblem(ProblemKind.ADDED_CHECKED_EXCEPTION, "p.A", "m()", "java.io.IOException");
+    private static final ApiProblem CHANGED_CONSTANT_VALUE =
+            new ApiProblem(ProblemKind.CHANGED_CONSTANT_VALUE, "p.A", "C", null);
+
+    @Test
+    public void parsesNamesIgnoringCase() {
+        assertEquals("HIGH BINARY", ProblemThreshold.parse(" high", "Binary ").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownSeverity() {
+        ProblemThreshold.parse("severe", "any");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownCompatibility() {
+        ProblemThreshold.parse("low", "runtime");
+    }
+
+    @Test
+    public void anyCompatibilityMatchesEitherSeverity() {
+        ProblemThreshold threshold = ProblemThreshold.parse("high", "any");
+        // low for binary, high for source compatibility
+        assertTrue(threshold.matches(ADDED_ABSTRACT_METHOD));
+        assertFalse(threshold.matches(ADDED_CHECKED_EXCEPTION));
+        assertTrue(ProblemThreshold.parse("low", "any").matches(CHANGED_CONSTANT_VALUE));
+    }
+
+    @Test
+    public void binaryCompatibilityIgnoresSourceProblems() {
+        ProblemThreshold threshold = ProblemThreshold.parse("medium", "binary");
+        assertFalse(threshold.matches(ADDED_ABSTRACT_METHOD));
+        assertFalse(threshold.matches(ADDED_CHECKED_EXCEPTION));
+        assertTrue(ProblemThreshold.parse("low", "binary").matches(ADDED_ABSTRACT_METHOD));
+    }
+
+    @Test
+    public void sourceCompatibilityIgnoresBinaryProblems() {
+        ProblemThreshold threshold = ProblemThreshold.parse("medium", "source");
+        assertTrue(threshold.matches(ADDED_ABSTRACT_METHOD));
+        assertTrue(threshold.matches(ADDED_CHECKED_EXCEPTION));
+        assertFalse(ProblemThreshold.parse("low", "source").matches(CHANGED_CONSTANT_VALUE));
+    }
+}
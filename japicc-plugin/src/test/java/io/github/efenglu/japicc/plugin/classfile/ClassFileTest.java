@@ -0,0 +1,212 @@
+package io.github.efenglu.japicc.plugin.classfile;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("classfile").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void readsHeader() throws IOException {
+        File classes = JavaSources.compile(directory, "classes",
+                "package p; public abstract class A extends java.util.AbstractList<String>"
+                        + " implements Runnable, java.io.Serializable { }");
+        ClassFile classFile = parse(classes, "p/A");
+        assertEquals("p/A", classFile.name());
+        assertEquals("java/util/AbstractList", classFile.superName());
+        assertEquals(Arrays.asList("java/lang/Runnable", "java/io/Serializable"), classFile.interfaceNames());
+        assertTrue(Modifier.isPublic(classFile.access()));
+        assertTrue(Modifier.isAbstract(classFile.access()));
+        assertFalse(classFile.isModuleInfo());
+        assertEquals("Ljava/util/AbstractList<Ljava/lang/String;>;Ljava/lang/Runnable;Ljava/io/Serializable;",
+                classFile.attribute("Signature").signature());
+    }
+
+    @Test
+    public void objectHasNoSuperClass() throws IOException {
+        try (InputStream in = Object.class.getResourceAsStream("Object.class")) {
+            Assume.assumeNotNull(in);
+            ClassFile classFile = ClassFile.parse(in);
+            assertEquals("java/lang/Object", classFile.name());
+            assertNull(classFile.superName());
+        }
+    }
+
+    @Test
+    public void readsConstantValues() throws IOException {
+        File classes = JavaSources.compile(directory, "classes",
+                "package p; public class A {"
+                        + " public static final int I = -7;"
+                        + " public static final long L = 1L << 40;"
+                        + " public static final float F = 1.5f;"
+                        + " public static final double D = -0.25;"
+                        + " public static final String S = \"caf\\u00e9 \\u0000 \\ud83d\\ude00\";"
+                        + " public static final boolean B = true;"
+                        + " public static final Object O = null;"
+                        + " }");
+        Map<String, Object> constants = new HashMap<>();
+        for (ClassFile.Member field : parse(classes, "p/A").fields()) {
+            Attribute constant = field.attribute("ConstantValue");
+            constants.put(field.name(), constant == null ? null : constant.constantValue());
+        }
+        assertEquals(-7, constants.get("I"));
+        assertEquals(1L << 40, constants.get("L"));
+        assertEquals(1.5f, constants.get("F"));
+        assertEquals(-0.25, constants.get("D"));
+        assertEquals("caf\u00e9 \u0000 \ud83d\ude00", constants.get("S"));
+        assertEquals(1, constants.get("B"));
+        assertTrue(constants.containsKey("O"));
+        assertNull(constants.get("O"));
+    }
+
+    @Test
+    public void readsMembers() throws IOException {
+        File classes = JavaSources.compile(directory, "classes",
+                "package p; public class A {"
+                        + " protected java.util.List<String> names;"
+                        + " public <T> T first(java.util.List<T> list) throws java.io.IOException, InterruptedException"
+                        + " { return list.get(0); }"
+                        + " }");
+        ClassFile classFile = parse(classes, "p/A");
+        ClassFile.Member field = classFile.fields().get(0);
+        assertEquals("names", field.name());
+        assertEquals("Ljava/util/List;", field.descriptor());
+        assertTrue(Modifier.isProtected(field.access()));
+        assertEquals("Ljava/util/List<Ljava/lang/String;>;", field.attribute("Signature").signature());
+
+        ClassFile.Member method = null;
+        for (ClassFile.Member candidate : classFile.methods()) {
+            if (candidate.name().equals("first")) {
+                method = candidate;
+            }
+        }
+        assertNotNull(method);
+        assertEquals("(Ljava/util/List;)Ljava/lang/Object;", method.descriptor());
+        assertEquals(Arrays.asList("java/io/IOException", "java/lang/InterruptedException"),
+                method.attribute("Exceptions").exceptions());
+        assertEquals("<T:Ljava/lang/Object;>(Ljava/util/List<TT;>;)TT;", method.attribute("Signature").signature());
+    }
+
+    @Test
+    public void readsAnnotations() throws IOException {
+        File classes = JavaSources.compile(directory, "classes",
+                "package p; @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)"
+                        + " public @interface Visible { String[] value() default {}; int count() default 0; }",
+                "package p; public @interface Invisible { Class<?> type(); }",
+                "package p; @Visible(value = {\"a\", \"b\"}, count = 2) @Invisible(type = String.class)"
+                        + " @Deprecated public class A {"
+                        + " @Visible @Invisible(type = int[].class) public void m() { }"
+                        + " }");
+        ClassFile classFile = parse(classes, "p/A");
+        assertEquals(new TreeSet<>(Arrays.asList("Lp/Visible;", "Ljava/lang/Deprecated;")),
+                new TreeSet<>(classFile.attribute("RuntimeVisibleAnnotations").annotationTypes()));
+        assertEquals(Collections.singletonList("Lp/Invisible;"),
+                classFile.attribute("RuntimeInvisibleAnnotations").annotationTypes());
+        assertNotNull(classFile.attribute("Deprecated"));
+        for (ClassFile.Member method : classFile.methods()) {
+            if (method.name().equals("m")) {
+                assertEquals(Collections.singletonList("Lp/Visible;"),
+                        method.attribute("RuntimeVisibleAnnotations").annotationTypes());
+                assertEquals(Collections.singletonList("Lp/Invisible;"),
+                        method.attribute("RuntimeInvisibleAnnotations").annotationTypes());
+            }
+        }
+    }
+
+    @Test
+    public void readsInnerClasses() throws IOException {
+        File classes = JavaSources.compile(directory, "classes",
+                "package p; public class Outer {"
+                        + " public static class Nested { }"
+                        + " protected class Inner { }"
+                        + " public Runnable local() { class Local implements Runnable { public void run() { } }"
+                        + " return new Local(); }"
+                        + " }");
+        Map<String, Attribute.InnerClass> entries = new HashMap<>();
+        for (Attribute.InnerClass entry : parse(classes, "p/Outer").attribute("InnerClasses").innerClasses()) {
+            entries.put(entry.innerName(), entry);
+        }
+
+        Attribute.InnerClass nested = entries.get("p/Outer$Nested");
+        assertEquals("p/Outer", nested.outerName());
+        assertEquals("Nested", nested.simpleName());
+        assertEquals(Modifier.PUBLIC | Modifier.STATIC, nested.access());
+
+        Attribute.InnerClass inner = entries.get("p/Outer$Inner");
+        assertEquals("p/Outer", inner.outerName());
+        assertEquals(Modifier.PROTECTED, inner.access());
+
+        Attribute.InnerClass local = entries.get("p/Outer$1Local");
+        assertNull(local.outerName());
+        assertEquals("Local", local.simpleName());
+
+        List<Attribute.InnerClass> own = parse(classes, "p/Outer$Nested").attribute("InnerClasses").innerClasses();
+        assertEquals("p/Outer$Nested", own.get(0).innerName());
+    }
+
+    @Test
+    public void readsModuleExports() throws IOException {
+        Assume.assumeTrue(JavaSources.supportsModules());
+        File classes = JavaSources.compile(directory, "classes",
+                "module m.api { requires java.logging; exports p; exports q to m.friend, m.other; }",
+                "package p; public class A { }",
+                "package q; public class B { }",
+                "package r; public class C { }");
+        ClassFile classFile = parse(classes, "module-info");
+        assertTrue(classFile.isModuleInfo());
+        List<Attribute.Export> exports = classFile.attribute("Module").exports();
+        assertEquals(2, exports.size());
+        assertEquals("p", exports.get(0).packageName());
+        assertEquals(Collections.emptyList(), exports.get(0).targets());
+        assertEquals("q", exports.get(1).packageName());
+        assertEquals(Arrays.asList("m.friend", "m.other"), exports.get(1).targets());
+        assertFalse(parse(classes, "p/A").isModuleInfo());
+    }
+
+    @Test(expected = ClassFormatException.class)
+    public void rejectsBadMagic() {
+        ClassFile.parse(new byte[]{0x0C, 0x0A, 0x0F, 0x0E, 0, 0, 0, 52, 0, 1});
+    }
+
+    @Test(expected = ClassFormatException.class)
+    public void rejectsTruncatedClass() throws IOException {
+        File classes = JavaSources.compile(directory, "classes", "package p; public class A { public int f; }");
+        byte[] bytes = Files.readAllBytes(new File(classes, "p/A.class").toPath());
+        ClassFile.parse(Arrays.copyOf(bytes, bytes.length / 2));
+    }
+
+    private static ClassFile parse(File classes, String name) throws IOException {
+        return ClassFile.parse(Files.readAllBytes(new File(classes, name + ".class").toPath()));
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.efenglu.japicc.plugin.report;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemKind;
+import io.github.efenglu.japicc.plugin.api.ProblemThreshold;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonResultTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("result").toFile();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void writesProblemsAndVerdict() throws IOException {
+        File file = new File(directory, "japicc/result.json");
+        boolean compatible;
+        try (JsonResult result = new JsonResult(file, "lib", "1.0", "1.1", "java",
+                ProblemThreshold.parse("medium", "binary"))) {
+            result.problem(new ApiProblem(ProblemKind.REMOVED_METHOD, "p.A", "m(int)", null));
+            result.problem(new ApiProblem(ProblemKind.ADDED_CHECKED_EXCEPTION, "p.A", "n()",
+                    "java.io.IOException"));
+            assertEquals(1, result.getFailing());
+            compatible = result.finish();
+        }
+        assertFalse(compatible);
+        assertEquals("{\"library\":\"lib\",\n"
+                + "\"oldVersion\":\"1.0\",\n"
+                + "\"newVersion\":\"1.1\",\n"
+                + "\"engine\":\"java\",\n"
+                + "\"problems\":[\n"
+                + "{\"severity\":\"HIGH\",\"binarySeverity\":\"HIGH\",\"sourceSeverity\":\"HIGH\","
+                + "\"kind\":\"REMOVED_METHOD\",\"type\":\"p.A\",\"member\":\"m(int)\",\"detail\":null,"
+                + "\"description\":\"Method has been removed\"},\n"
+                + "{\"severity\":\"MEDIUM\",\"binarySeverity\":null,\"sourceSeverity\":\"MEDIUM\","
+                + "\"kind\":\"ADDED_CHECKED_EXCEPTION\",\"type\":\"p.A\",\"member\":\"n()\","
+                + "\"detail\":\"java.io.IOException\","
+                + "\"description\":\"Checked exception has been added to the throws clause\"}\n"
+                + "],\n"
+                + "\"summary\":{\"total\":2,\"failing\":1,"
+                + "\"binary\":{\"LOW\":0,\"MEDIUM\":0,\"HIGH\":1},"
+                + "\"source\":{\"LOW\":0,\"MEDIUM\":1,\"HIGH\":1}},\n"
+                + "\"threshold\":\"MEDIUM BINARY\",\n"
+                + "\"compatible\":false}\n", read(file));
+    }
+
+    @Test
+    public void problemsBelowThresholdAreCompatible() throws IOException {
+        File file = new File(directory, "result.json");
+        try (JsonResult result = new JsonResult(file, "lib", "1.0", "1.1", "java",
+                ProblemThreshold.parse("high", "any"))) {
+            result.problem(new ApiProblem(ProblemKind.CHANGED_CONSTANT_VALUE, "p.A", "C", null));
+            assertTrue(result.finish());
+        }
+        assertTrue(read(file).endsWith("\"threshold\":\"HIGH ANY\",\n\"compatible\":true}\n"));
+    }
+
+    @Test
+    public void verdictOfExternalCheckerHasNoThreshold() throws IOException {
+        File file = new File(directory, "result.json");
+        try (JsonResult result = new JsonResult(file, "lib", "1.0", "1.1", "perl", null)) {
+            assertFalse(result.finish(false));
+        }
+        String json = read(file);
+        assertFalse(json.contains("threshold"));
+        assertTrue(json.endsWith("\"summary\":{\"total\":0,\"failing\":0,"
+                + "\"binary\":{\"LOW\":0,\"MEDIUM\":0,\"HIGH\":0},"
+                + "\"source\":{\"LOW\":0,\"MEDIUM\":0,\"HIGH\":0}},\n"
+                + "\"compatible\":false}\n"));
+    }
+
+    @Test
+    public void escapesStrings() throws IOException {
+        File file = new File(directory, "result.json");
+        try (JsonResult result = new JsonResult(file, "a \"b\"\\c\n\u0001", null, "1.1", "java",
+                ProblemThreshold.parse("low", "any"))) {
+            result.finish();
+        }
+        assertTrue(read(file).startsWith("{\"library\":\"a \\\"b\\\"\\\\c\\n\\u0001\",\n\"oldVersion\":null,"));
+    }
+
+    @Test
+    public void closingUnfinishedResultKeepsPartialFile() throws IOException {
+        File file = new File(directory, "result.json");
+        try (JsonResult result = new JsonResult(file, "lib", "1.0", "1.1", "java",
+                ProblemThreshold.parse("low", "any"))) {
+            result.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "p.A", null, null));
+        }
+        assertTrue(read(file).contains("\"kind\":\"REMOVED_CLASS\""));
+        assertFalse(read(file).contains("\"compatible\""));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.efenglu.japicc.plugin.report;
+
+import io.github.efenglu.japicc.plugin.JavaSources;
+import io.github.efenglu.japicc.plugin.api.ApiProblem;
+import io.github.efenglu.japicc.plugin.api.ProblemKind;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PagedHtmlReportTest {
+    private File directory;
+    private File pages;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("report").toFile();
+        pages = new File(directory, "site/pages");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        JavaSources.delete(directory);
+    }
+
+    @Test
+    public void writesPagePerPackage() throws IOException {
+        File index = new File(directory, "site/compat_report.html");
+        try (PagedHtmlReport report = new PagedHtmlReport(pages, false, "lib", "1.0", "1.1")) {
+            report.problem(new ApiProblem(ProblemKind.REMOVED_METHOD, "p.A", "m(java.util.List<T>)", null));
+            report.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "q.B", null, null));
+            // a package visited again appends to its page
+            report.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "p.C", null, null));
+            report.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "D", null, null));
+            report.write(Collections.singletonList(index), false);
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("default-package.html", "p.html", "q.html")),
+                new TreeSet<>(Arrays.asList(pages.list())));
+
+        String page = read(new File(pages, "p.html"));
+        assertTrue(page.contains("<td>p.A</td><td>m(java.util.List&lt;T&gt;)</td><td>Method has been removed</td>"));
+        assertTrue(page.contains("<td>p.C</td>"));
+        assertFalse(page.contains("q.B"));
+        assertTrue(read(new File(pages, "default-package.html")).contains("<h1>(default package)</h1>"));
+
+        String html = read(index);
+        assertTrue(html.contains("<th>Verdict</th><td>Incompatible</td>"));
+        assertTrue(html.contains("<tr><th>HIGH</th><td>4</td><td>4</td></tr>"));
+        assertTrue(html.contains("<a href=\"pages/p.html\">p</a></td><td>2</td><td>2 HIGH</td>"));
+        assertTrue(html.contains("<a href=\"pages/default-package.html\">(default package)</a>"));
+    }
+
+    @Test
+    public void compressesPages() throws IOException {
+        File index = new File(directory, "site/compat_report.html");
+        try (PagedHtmlReport report = new PagedHtmlReport(pages, true, "lib", "1.0", "1.1")) {
+            report.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "p.A", null, null));
+            report.write(Collections.singletonList(index), true);
+        }
+        assertEquals(Collections.singletonList("p.html.gz"), Arrays.asList(pages.list()));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(new File(pages, "p.html.gz").toPath()))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("<td>p.A</td>"));
+        }
+        String html = read(index);
+        assertTrue(html.contains("<th>Verdict</th><td>Compatible</td>"));
+        assertTrue(html.contains("<a href=\"pages/p.html\">"));
+    }
+
+    @Test
+    public void removesPagesOfEarlierRuns() throws IOException {
+        Files.createDirectories(pages.toPath());
+        Files.write(new File(pages, "old.html").toPath(), new byte[0]);
+        Files.write(new File(pages, "old.html.gz").toPath(), new byte[0]);
+        Files.write(new File(pages, "old.rows").toPath(), new byte[0]);
+        Files.write(new File(pages, "notes.txt").toPath(), new byte[0]);
+        new PagedHtmlReport(pages, false, "lib", "1.0", "1.1").close();
+        assertEquals(Collections.singletonList("notes.txt"), Arrays.asList(pages.list()));
+    }
+
+    @Test
+    public void closeDeletesUnwrittenRows() throws IOException {
+        try (PagedHtmlReport report = new PagedHtmlReport(pages, false, "lib", "1.0", "1.1")) {
+            report.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "p.A", null, null));
+            report.problem(new ApiProblem(ProblemKind.REMOVED_CLASS, "q.B", null, null));
+        }
+        assertEquals(0, pages.list().length);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}